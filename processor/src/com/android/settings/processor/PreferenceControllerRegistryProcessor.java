@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates {@code com.android.settings.core.PreferenceControllerRegistry}, which maps the class
+ * name of every public {@code BasePreferenceController} with a public {@code (Context)} or
+ * {@code (Context, String)} constructor to a reference to that constructor. This lets preference
+ * XMLs create their controllers without reflection.
+ *
+ * <p>The processor looks at every class of the module, so it claims no annotation.
+ */
+@SupportedAnnotationTypes("*")
+public class PreferenceControllerRegistryProcessor extends AbstractProcessor {
+
+    private static final String PACKAGE = "com.android.settings.core";
+    private static final String CLASS_NAME = "PreferenceControllerRegistry";
+    private static final String BASE_CONTROLLER = PACKAGE + ".BasePreferenceController";
+    private static final String CONTEXT = "android.content.Context";
+    private static final String STRING = "java.lang.String";
+
+    /** Cases per generated method, to stay well below the method size limit. */
+    private static final int CASES_PER_METHOD = 200;
+
+    private boolean mGenerated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (mGenerated || roundEnv.processingOver()) {
+            return false;
+        }
+        final TypeElement baseController =
+                processingEnv.getElementUtils().getTypeElement(BASE_CONTROLLER);
+        if (baseController == null) {
+            // Not the module defining the controllers.
+            return false;
+        }
+
+        // Sorted by class name, so that each generated method covers a contiguous range.
+        final Map<String, String> factories = new TreeMap<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectFactories(type, baseController.asType(), factories);
+        }
+        try {
+            writeRegistry(factories);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + CLASS_NAME + ": " + e);
+        }
+        mGenerated = true;
+        return false;
+    }
+
+    private void collectFactories(TypeElement type, TypeMirror baseController,
+            Map<String, String> factories) {
+        if (type.getKind() != ElementKind.CLASS || !isAccessible(type)) {
+            return;
+        }
+        final Types types = processingEnv.getTypeUtils();
+        if (!type.getModifiers().contains(Modifier.ABSTRACT)
+                && types.isSubtype(types.erasure(type.asType()), types.erasure(baseController))) {
+            final String factory = getFactory(type);
+            if (factory != null) {
+                factories.put(
+                        processingEnv.getElementUtils().getBinaryName(type).toString(), factory);
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectFactories(nested, baseController, factories);
+        }
+    }
+
+    /** Returns whether the class can be instantiated from the registry package. */
+    private static boolean isAccessible(TypeElement type) {
+        if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.TOP_LEVEL) {
+            return true;
+        }
+        final Element enclosing = type.getEnclosingElement();
+        return type.getNestingKind() == NestingKind.MEMBER
+                && type.getModifiers().contains(Modifier.STATIC)
+                && enclosing instanceof TypeElement
+                && isAccessible((TypeElement) enclosing);
+    }
+
+    /**
+     * Returns the factory expression of a controller, preferring the {@code (Context)}
+     * constructor like the reflective path, or null if it has no suitable constructor.
+     */
+    private String getFactory(TypeElement type) {
+        boolean hasContextConstructor = false;
+        boolean hasKeyConstructor = false;
+        for (ExecutableElement constructor :
+                ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC)
+                    || !constructor.getThrownTypes().isEmpty()
+                    || constructor.isVarArgs()) {
+                continue;
+            }
+            final List<? extends VariableElement> params = constructor.getParameters();
+            if (params.size() == 1 && isType(params.get(0), CONTEXT)) {
+                hasContextConstructor = true;
+            } else if (params.size() == 2 && isType(params.get(0), CONTEXT)
+                    && isType(params.get(1), STRING)) {
+                hasKeyConstructor = true;
+            }
+        }
+        final String name = type.getQualifiedName().toString();
+        if (hasContextConstructor) {
+            return "PreferenceControllerFactory.ofContext(" + name + "::new)";
+        }
+        if (hasKeyConstructor) {
+            return "PreferenceControllerFactory.ofContextAndKey(" + name + "::new)";
+        }
+        return null;
+    }
+
+    private boolean isType(VariableElement param, String typeName) {
+        final Types types = processingEnv.getTypeUtils();
+        final TypeElement type = processingEnv.getElementUtils().getTypeElement(typeName);
+        return type != null
+                && types.isSameType(types.erasure(param.asType()), types.erasure(type.asType()));
+    }
+
+    private void writeRegistry(Map<String, String> factories) throws IOException {
+        final List<String> names = new ArrayList<>(factories.keySet());
+        final int methodCount = (names.size() + CASES_PER_METHOD - 1) / CASES_PER_METHOD;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(PACKAGE + "." + CLASS_NAME).openWriter())) {
+            out.println("package " + PACKAGE + ";");
+            out.println();
+            out.println("import androidx.annotation.Nullable;");
+            out.println();
+            out.println("/** Generated by " + getClass().getSimpleName() + ". Do not edit. */");
+            out.println("@SuppressWarnings(\"deprecation\")");
+            out.println("final class " + CLASS_NAME + " {");
+            out.println();
+            out.println("    /** The first class name handled by each get method. */");
+            out.println("    private static final String[] FIRST_NAMES = {");
+            for (int i = 0; i < methodCount; i++) {
+                out.println("            \"" + names.get(i * CASES_PER_METHOD) + "\",");
+            }
+            out.println("    };");
+            out.println();
+            out.println("    private " + CLASS_NAME + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    @Nullable");
+            out.println("    static PreferenceControllerFactory get(String className) {");
+            out.println("        int index = java.util.Arrays.binarySearch(FIRST_NAMES, className);");
+            out.println("        if (index < 0) {");
+            out.println("            index = -index - 2;");
+            out.println("        }");
+            out.println("        switch (index) {");
+            for (int i = 0; i < methodCount; i++) {
+                out.println("            case " + i + ":");
+                out.println("                return get" + i + "(className);");
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            for (int i = 0; i < methodCount; i++) {
+                out.println();
+                out.println("    @Nullable");
+                out.println("    private static PreferenceControllerFactory get" + i
+                        + "(String className) {");
+                out.println("        switch (className) {");
+                final int end = Math.min(names.size(), (i + 1) * CASES_PER_METHOD);
+                for (String name : names.subList(i * CASES_PER_METHOD, end)) {
+                    out.println("            case \"" + name + "\":");
+                    out.println("                return " + factories.get(name) + ";");
+                }
+                out.println("            default:");
+                out.println("                return null;");
+                out.println("        }");
+                out.println("    }");
+            }
+            out.println("}");
+        }
+    }
+}
@@ -37,8 +37,14 @@ import android.util.Log;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.applications.ProcStatsData;
+import com.android.settings.core.PreferenceControllerLatency;
+import com.android.settings.core.PreferenceXmlMetadataCache;
 import com.android.settings.datausage.lib.DataUsageLib;
+import com.android.settings.homepage.HomepageStartupTrace;
 import com.android.settings.network.MobileNetworkRepository;
+import com.android.settings.search.NonIndexableKeysStats;
+import com.android.settings.slices.SlicesDatabaseAccessor;
+import com.android.settings.slices.SlicesIndexingStats;
 import com.android.settingslib.net.DataUsageController;
 
 import org.json.JSONArray;
@@ -67,6 +73,18 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_SLICES_INDEXING = "slices_indexing";
+    @VisibleForTesting
+    static final String KEY_SLICE_DATA_CACHE = "slice_data_cache";
+    @VisibleForTesting
+    static final String KEY_NON_INDEXABLE_KEYS = "non_indexable_keys";
+    @VisibleForTesting
+    static final String KEY_HOMEPAGE_STARTUP = "homepage_startup";
+    @VisibleForTesting
+    static final String KEY_PREFERENCE_XML_METADATA = "preference_xml_metadata";
+    @VisibleForTesting
+    static final String KEY_CONTROLLER_LATENCY = "preference_controller_latency";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -98,6 +116,12 @@ public class SettingsDumpService extends Service {
                 dump.put(KEY_DATAUSAGE, dumpDataUsage());
                 dump.put(KEY_MEMORY, dumpMemory());
                 dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
+                dump.put(KEY_SLICES_INDEXING, SlicesIndexingStats.toJson(this));
+                dump.put(KEY_SLICE_DATA_CACHE, dumpSliceDataCache());
+                dump.put(KEY_NON_INDEXABLE_KEYS, NonIndexableKeysStats.toJson());
+                dump.put(KEY_HOMEPAGE_STARTUP, HomepageStartupTrace.toJson());
+                dump.put(KEY_PREFERENCE_XML_METADATA, PreferenceXmlMetadataCache.toJson());
+                dump.put(KEY_CONTROLLER_LATENCY, PreferenceControllerLatency.toJson());
             } catch (Exception e) {
                 Log.w(TAG, "exception in dump: ", e);
             }
@@ -183,6 +207,13 @@ public class SettingsDumpService extends Service {
         return obj;
     }
 
+    private JSONObject dumpSliceDataCache() throws JSONException {
+        JSONObject obj = new JSONObject();
+        obj.put("hits", SlicesDatabaseAccessor.getCacheHitCount());
+        obj.put("misses", SlicesDatabaseAccessor.getCacheMissCount());
+        return obj;
+    }
+
     @VisibleForTesting
     String dumpDefaultBrowser() {
         final ResolveInfo resolveInfo = getPackageManager().resolveActivity(
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.accessibilityservice.AccessibilityShortcutInfo;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.UserHandle;
+import android.util.SparseArray;
+import android.view.accessibility.AccessibilityManager;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user cache of the installed accessibility services and shortcuts, which are expensive to
+ * fetch from {@link AccessibilityManager}. The lists are dropped when a package is added, removed
+ * or changed, and when the accessibility services report a state change.
+ */
+public final class AccessibilityServiceListRepository {
+
+    /**
+     * Delay before dropping the lists again after a package change, since
+     * AccessibilityManagerService processes the change asynchronously.
+     */
+    private static final long DELAY_INVALIDATE_MILLIS = 1000;
+
+    private static final SparseArray<Entry> sEntries = new SparseArray<>();
+
+    private AccessibilityServiceListRepository() {
+    }
+
+    /**
+     * Returns a copy of {@link AccessibilityManager#getInstalledAccessibilityServiceList()} for
+     * the user of {@code context}.
+     */
+    public static List<AccessibilityServiceInfo> getInstalledServiceList(Context context) {
+        final AccessibilityManager manager = context.getSystemService(AccessibilityManager.class);
+        if (manager == null) {
+            return new ArrayList<>();
+        }
+        final Entry entry = getEntry(context, manager);
+        if (entry == null) {
+            return copyOf(manager.getInstalledAccessibilityServiceList());
+        }
+        synchronized (entry) {
+            if (entry.mServiceList == null) {
+                entry.mServiceList = manager.getInstalledAccessibilityServiceList();
+            }
+            return copyOf(entry.mServiceList);
+        }
+    }
+
+    /**
+     * Returns a copy of {@link AccessibilityManager#getInstalledAccessibilityShortcutListAsUser}
+     * for the user of {@code context}.
+     */
+    public static List<AccessibilityShortcutInfo> getInstalledShortcutList(Context context) {
+        final AccessibilityManager manager = context.getSystemService(AccessibilityManager.class);
+        if (manager == null) {
+            return new ArrayList<>();
+        }
+        final Entry entry = getEntry(context, manager);
+        if (entry == null) {
+            return copyOf(manager.getInstalledAccessibilityShortcutListAsUser(
+                    context, context.getUserId()));
+        }
+        synchronized (entry) {
+            if (entry.mShortcutList == null) {
+                entry.mShortcutList = manager.getInstalledAccessibilityShortcutListAsUser(
+                        context, context.getUserId());
+            }
+            return copyOf(entry.mShortcutList);
+        }
+    }
+
+    /**
+     * Returns the key of the {@link AccessibilitySettings} category of each installed
+     * pre-bundled accessibility component.
+     */
+    public static Map<ComponentName, String> getPreBundledComponentCategories(Context context) {
+        final AccessibilityManager manager = context.getSystemService(AccessibilityManager.class);
+        final Entry entry = manager == null ? null : getEntry(context, manager);
+        if (entry == null) {
+            return AccessibilitySettings.createPreBundledComponentCategories(context,
+                    getInstalledShortcutList(context), getInstalledServiceList(context));
+        }
+        synchronized (entry) {
+            if (entry.mComponentCategories == null) {
+                entry.mComponentCategories = Collections.unmodifiableMap(
+                        AccessibilitySettings.createPreBundledComponentCategories(context,
+                                getInstalledShortcutList(context),
+                                getInstalledServiceList(context)));
+            }
+            return entry.mComponentCategories;
+        }
+    }
+
+    /** Drops the cached lists of the user of {@code context}. */
+    public static void invalidate(Context context) {
+        final Entry entry;
+        synchronized (sEntries) {
+            entry = sEntries.get(context.getUserId());
+        }
+        if (entry != null) {
+            entry.invalidate();
+        }
+    }
+
+    private static <T> List<T> copyOf(@Nullable List<T> list) {
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        synchronized (sEntries) {
+            sEntries.clear();
+        }
+    }
+
+    /**
+     * Returns the cache entry of the user of {@code context}, or null if the lists can't be
+     * cached. An entry only holds the lists of one {@link AccessibilityManager}, and is bound to
+     * the application context its receiver is registered on.
+     */
+    @Nullable
+    private static Entry getEntry(Context context, AccessibilityManager manager) {
+        final Context appContext = context.getApplicationContext();
+        if (appContext == null) {
+            return null;
+        }
+        final int userId = context.getUserId();
+        final Entry entry;
+        synchronized (sEntries) {
+            Entry current = sEntries.get(userId);
+            if (current == null || current.mAppContext != appContext) {
+                current = new Entry(appContext, userId);
+                sEntries.put(userId, current);
+            }
+            entry = current;
+        }
+        entry.setManager(manager);
+        return entry;
+    }
+
+    private static final class Entry {
+        final Context mAppContext;
+        final Handler mHandler = new Handler(Looper.getMainLooper());
+        final Runnable mInvalidateRunnable = this::invalidate;
+        final AccessibilityManager.AccessibilityServicesStateChangeListener mStateListener =
+                manager -> invalidate();
+
+        @Nullable
+        AccessibilityManager mManager;
+        @Nullable
+        List<AccessibilityServiceInfo> mServiceList;
+        @Nullable
+        List<AccessibilityShortcutInfo> mShortcutList;
+        @Nullable
+        Map<ComponentName, String> mComponentCategories;
+
+        Entry(Context appContext, int userId) {
+            mAppContext = appContext;
+            final IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addDataScheme("package");
+            appContext.registerReceiverAsUser(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    invalidate();
+                    mHandler.removeCallbacks(mInvalidateRunnable);
+                    mHandler.postDelayed(mInvalidateRunnable, DELAY_INVALIDATE_MILLIS);
+                }
+            }, UserHandle.of(userId), filter, null /* broadcastPermission */, mHandler);
+        }
+
+        synchronized void setManager(AccessibilityManager manager) {
+            if (manager == mManager) {
+                return;
+            }
+            if (mManager != null) {
+                mManager.removeAccessibilityServicesStateChangeListener(mStateListener);
+            }
+            mManager = manager;
+            manager.addAccessibilityServicesStateChangeListener(Runnable::run, mStateListener);
+            invalidate();
+        }
+
+        synchronized void invalidate() {
+            mServiceList = null;
+            mShortcutList = null;
+            mComponentCategories = null;
+        }
+    }
+}
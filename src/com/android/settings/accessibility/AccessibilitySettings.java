@@ -26,11 +26,9 @@ import android.content.Context;
 import android.hardware.input.InputManager;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.UserHandle;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
-import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
@@ -107,6 +105,7 @@ public class AccessibilitySettings extends DashboardFragment implements
         @Override
         public void run() {
             if (getActivity() != null) {
+                AccessibilityServiceListRepository.invalidate(getActivity());
                 onContentChanged();
             }
         }
@@ -151,8 +150,6 @@ public class AccessibilitySettings extends DashboardFragment implements
     @VisibleForTesting
     final Map<Preference, PreferenceCategory> mServicePreferenceToPreferenceCategoryMap =
             new ArrayMap<>();
-    private final Map<ComponentName, PreferenceCategory> mPreBundledServiceComponentToCategoryMap =
-            new ArrayMap<>();
 
     private boolean mNeedPreferencesUpdate = false;
     private boolean mIsForeground = true;
@@ -368,7 +365,6 @@ public class AccessibilitySettings extends DashboardFragment implements
     }
 
     protected void updateServicePreferences() {
-        final AccessibilityManager a11yManager = AccessibilityManager.getInstance(getPrefContext());
         // Since services category is auto generated we have to do a pass
         // to generate it since services can come and go and then based on
         // the global accessibility state to decided whether it is enabled.
@@ -380,36 +376,16 @@ public class AccessibilitySettings extends DashboardFragment implements
             category.removePreference(service);
         }
 
-        initializePreBundledServicesMapFromArray(CATEGORY_SCREEN_READER,
-                R.array.config_preinstalled_screen_reader_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_CAPTIONS,
-                R.array.config_preinstalled_captions_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_AUDIO,
-                R.array.config_preinstalled_audio_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_DISPLAY,
-                R.array.config_preinstalled_display_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_SPEECH,
-                R.array.config_preinstalled_speech_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_INTERACTION_CONTROL,
-                R.array.config_preinstalled_interaction_control_services);
-
-        // ACCESSIBILITY_MENU_IN_SYSTEM is a default pre-bundled interaction control service.
-        // If the device opts out of including this service then this is a no-op.
-        mPreBundledServiceComponentToCategoryMap.put(
-                AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM,
-                mCategoryToPrefCategoryMap.get(CATEGORY_INTERACTION_CONTROL));
-
         final List<AccessibilityShortcutInfo> installedShortcutList =
-                a11yManager.getInstalledAccessibilityShortcutListAsUser(getPrefContext(),
-                        UserHandle.myUserId());
+                AccessibilityServiceListRepository.getInstalledShortcutList(getPrefContext());
         final List<AccessibilityServiceInfo> installedServiceList =
-                a11yManager.getInstalledAccessibilityServiceList();
+                AccessibilityServiceListRepository.getInstalledServiceList(getPrefContext());
+        final Map<ComponentName, String> preBundledComponentCategories =
+                AccessibilityServiceListRepository.getPreBundledComponentCategories(
+                        getPrefContext());
         final List<RestrictedPreference> preferenceList = getInstalledAccessibilityPreferences(
                 getPrefContext(), installedShortcutList, installedServiceList);
 
-        removeNonPreinstalledComponents(mPreBundledServiceComponentToCategoryMap,
-                installedShortcutList, installedServiceList);
-
         final PreferenceCategory downloadedServicesCategory =
                 mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
 
@@ -419,8 +395,9 @@ public class AccessibilitySettings extends DashboardFragment implements
                     EXTRA_COMPONENT_NAME);
             PreferenceCategory prefCategory = downloadedServicesCategory;
             // Set the appropriate category if the service comes pre-installed.
-            if (mPreBundledServiceComponentToCategoryMap.containsKey(componentName)) {
-                prefCategory = mPreBundledServiceComponentToCategoryMap.get(componentName);
+            final String categoryKey = preBundledComponentCategories.get(componentName);
+            if (categoryKey != null) {
+                prefCategory = mCategoryToPrefCategoryMap.get(categoryKey);
             }
             prefCategory.addPreference(preference);
             mServicePreferenceToPreferenceCategoryMap.put(preference, prefCategory);
@@ -478,8 +455,40 @@ public class AccessibilitySettings extends DashboardFragment implements
         return preferenceList;
     }
 
+    /**
+     * Returns the category key of each pre-installed component declared in the config arrays,
+     * leaving out the components installed by a non-system app.
+     */
+    static Map<ComponentName, String> createPreBundledComponentCategories(Context context,
+            List<AccessibilityShortcutInfo> installedShortcutList,
+            List<AccessibilityServiceInfo> installedServiceList) {
+        final Map<ComponentName, String> componentToCategory = new ArrayMap<>();
+        putPreBundledComponentsFromArray(context, componentToCategory, CATEGORY_SCREEN_READER,
+                R.array.config_preinstalled_screen_reader_services);
+        putPreBundledComponentsFromArray(context, componentToCategory, CATEGORY_CAPTIONS,
+                R.array.config_preinstalled_captions_services);
+        putPreBundledComponentsFromArray(context, componentToCategory, CATEGORY_AUDIO,
+                R.array.config_preinstalled_audio_services);
+        putPreBundledComponentsFromArray(context, componentToCategory, CATEGORY_DISPLAY,
+                R.array.config_preinstalled_display_services);
+        putPreBundledComponentsFromArray(context, componentToCategory, CATEGORY_SPEECH,
+                R.array.config_preinstalled_speech_services);
+        putPreBundledComponentsFromArray(context, componentToCategory,
+                CATEGORY_INTERACTION_CONTROL,
+                R.array.config_preinstalled_interaction_control_services);
+
+        // ACCESSIBILITY_MENU_IN_SYSTEM is a default pre-bundled interaction control service.
+        // If the device opts out of including this service then this is a no-op.
+        componentToCategory.put(AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM,
+                CATEGORY_INTERACTION_CONTROL);
+
+        removeNonPreinstalledComponents(componentToCategory, installedShortcutList,
+                installedServiceList);
+        return componentToCategory;
+    }
+
     private static void removeNonPreinstalledComponents(
-            Map<ComponentName, PreferenceCategory> componentToCategory,
+            Map<ComponentName, String> componentToCategory,
             List<AccessibilityShortcutInfo> shortcutInfos,
             List<AccessibilityServiceInfo> serviceInfos) {
         for (AccessibilityShortcutInfo info : shortcutInfos) {
@@ -494,12 +503,12 @@ public class AccessibilitySettings extends DashboardFragment implements
         }
     }
 
-    private void initializePreBundledServicesMapFromArray(String categoryKey, int key) {
-        String[] services = getResources().getStringArray(key);
-        PreferenceCategory category = mCategoryToPrefCategoryMap.get(categoryKey);
+    private static void putPreBundledComponentsFromArray(Context context,
+            Map<ComponentName, String> componentToCategory, String categoryKey, int key) {
+        String[] services = context.getResources().getStringArray(key);
         for (int i = 0; i < services.length; i++) {
             ComponentName component = ComponentName.unflattenFromString(services[i]);
-            mPreBundledServiceComponentToCategoryMap.put(component, category);
+            componentToCategory.put(component, categoryKey);
         }
     }
 
@@ -570,17 +579,16 @@ public class AccessibilitySettings extends DashboardFragment implements
                         return dynamicRawData;
                     }
 
-                    AccessibilityManager a11yManager = context.getSystemService(
-                            AccessibilityManager.class);
                     AccessibilitySearchFeatureProvider a11ySearchFeatureProvider =
                             FeatureFactory.getFeatureFactory()
                                     .getAccessibilitySearchFeatureProvider();
                     List<RestrictedPreference> installedA11yFeaturesPref =
                             AccessibilitySettings.getInstalledAccessibilityPreferences(
                                     context,
-                                    a11yManager.getInstalledAccessibilityShortcutListAsUser(
-                                            context, UserHandle.myUserId()),
-                                    a11yManager.getInstalledAccessibilityServiceList()
+                                    AccessibilityServiceListRepository
+                                            .getInstalledShortcutList(context),
+                                    AccessibilityServiceListRepository
+                                            .getInstalledServiceList(context)
                             );
                     for (RestrictedPreference pref : installedA11yFeaturesPref) {
                         SearchIndexableRaw indexableRaw = new SearchIndexableRaw(context);
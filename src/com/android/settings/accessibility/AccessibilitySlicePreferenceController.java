@@ -24,7 +24,6 @@ import android.content.ComponentName;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.provider.Settings;
-import android.view.accessibility.AccessibilityManager;
 
 import com.android.settings.R;
 import com.android.settings.core.TogglePreferenceController;
@@ -105,10 +104,8 @@ public class AccessibilitySlicePreferenceController extends TogglePreferenceCont
     }
 
     private AccessibilityServiceInfo getAccessibilityServiceInfo() {
-        final AccessibilityManager accessibilityManager = mContext.getSystemService(
-                AccessibilityManager.class);
         final List<AccessibilityServiceInfo> serviceList =
-                accessibilityManager.getInstalledAccessibilityServiceList();
+                AccessibilityServiceListRepository.getInstalledServiceList(mContext);
 
         for (AccessibilityServiceInfo serviceInfo : serviceList) {
             if (mComponentName.equals(serviceInfo.getComponentName())) {
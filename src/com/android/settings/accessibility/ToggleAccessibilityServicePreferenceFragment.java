@@ -136,11 +136,12 @@ public class ToggleAccessibilityServicePreferenceFragment extends
     }
 
     // IMPORTANT: Refresh the info since there are dynamically changing capabilities. For
-    // example, before JellyBean MR2 the user was granting the explore by touch one.
+    // example, before JellyBean MR2 the user was granting the explore by touch one. The
+    // repository drops its lists when the accessibility services report a state change.
     @Nullable
     AccessibilityServiceInfo getAccessibilityServiceInfo() {
-        final List<AccessibilityServiceInfo> infos = AccessibilityManager.getInstance(
-                getPrefContext()).getInstalledAccessibilityServiceList();
+        final List<AccessibilityServiceInfo> infos =
+                AccessibilityServiceListRepository.getInstalledServiceList(getPrefContext());
 
         for (int i = 0, count = infos.size(); i < count; i++) {
             AccessibilityServiceInfo serviceInfo = infos.get(i);
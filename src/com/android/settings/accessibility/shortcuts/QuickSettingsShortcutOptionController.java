@@ -33,6 +33,7 @@ import androidx.preference.PreferenceScreen;
 import com.android.internal.accessibility.common.ShortcutConstants;
 import com.android.internal.accessibility.util.AccessibilityUtils;
 import com.android.settings.R;
+import com.android.settings.accessibility.AccessibilityServiceListRepository;
 import com.android.settings.accessibility.AccessibilityUtil;
 import com.android.settingslib.utils.StringUtil;
 
@@ -125,14 +126,12 @@ public class QuickSettingsShortcutOptionController extends ShortcutOptionPrefere
      * </p>
      */
     private boolean allTargetsHasValidQsTileUseCase() {
-        AccessibilityManager accessibilityManager = mContext.getSystemService(
-                AccessibilityManager.class);
-        if (accessibilityManager == null) {
+        if (mContext.getSystemService(AccessibilityManager.class) == null) {
             return false;
         }
 
         List<AccessibilityServiceInfo> installedServices =
-                accessibilityManager.getInstalledAccessibilityServiceList();
+                AccessibilityServiceListRepository.getInstalledServiceList(mContext);
         final Set<String> standardA11yServices = new ArraySet<>();
         for (AccessibilityServiceInfo serviceInfo : installedServices) {
             if (AccessibilityUtils.getAccessibilityServiceFragmentType(serviceInfo)
@@ -131,10 +131,16 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and user-defined key.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through the generated {@link PreferenceControllerFactory} if there is one for
+     * the controller, or through reflection otherwise. Do not use this method unless you know
+     * what you are doing.
      */
     public static BasePreferenceController createInstance(Context context,
             String controllerName, String key) {
+        final PreferenceControllerFactory factory = PreferenceControllerFactory.get(controllerName);
+        if (factory != null && factory.requiresKey()) {
+            return createFromFactory(factory, context, controllerName, key);
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
@@ -151,9 +157,15 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through the generated {@link PreferenceControllerFactory} if there is one for
+     * the controller, or through reflection otherwise. Do not use this method unless you know
+     * what you are doing.
      */
     public static BasePreferenceController createInstance(Context context, String controllerName) {
+        final PreferenceControllerFactory factory = PreferenceControllerFactory.get(controllerName);
+        if (factory != null && !factory.requiresKey()) {
+            return createFromFactory(factory, context, controllerName, null /* key */);
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor = clazz.getConstructor(Context.class);
@@ -169,7 +181,9 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and work profile
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through the generated {@link PreferenceControllerFactory} if there is one for
+     * the controller, or through reflection otherwise. Do not use this method unless you know
+     * what you are doing.
      *
      * @param context        application context
      * @param controllerName class name of the {@link BasePreferenceController}
@@ -178,6 +192,13 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static BasePreferenceController createInstance(Context context, String controllerName,
             String key, boolean isWorkProfile) {
+        final PreferenceControllerFactory factory = PreferenceControllerFactory.get(controllerName);
+        if (factory != null && factory.requiresKey()) {
+            final BasePreferenceController controller =
+                    createFromFactory(factory, context, controllerName, key);
+            controller.setForWork(isWorkProfile);
+            return controller;
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
@@ -194,6 +215,16 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
         }
     }
 
+    private static BasePreferenceController createFromFactory(PreferenceControllerFactory factory,
+            Context context, String controllerName, @Nullable String key) {
+        try {
+            return factory.create(context, key);
+        } catch (RuntimeException e) {
+            // Same as a constructor throwing through reflection.
+            throw new IllegalStateException("Invalid preference controller: " + controllerName, e);
+        }
+    }
+
     public BasePreferenceController(Context context, String preferenceKey) {
         super(context);
         mPreferenceKey = preferenceKey;
@@ -257,7 +288,10 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
             return false;
         }
 
+        final long beginNanos = PreferenceControllerLatency.begin();
         final int availabilityStatus = getAvailabilityStatus();
+        PreferenceControllerLatency.end(
+                this, PreferenceControllerLatency.GET_AVAILABILITY_STATUS, beginNanos);
         return (availabilityStatus == AVAILABLE
                 || availabilityStatus == AVAILABLE_UNSEARCHABLE
                 || availabilityStatus == DISABLED_DEPENDENT_SETTING);
@@ -419,6 +453,14 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public interface UiBlocker {
     }
 
+    /**
+     * Marks a {@link BasePreferenceController} whose {@link #getAvailabilityStatus()} is safe to
+     * call off the main thread, i.e. it only reads state and never touches views. Dashboard
+     * fragments evaluate the availability of these controllers in the background.
+     */
+    public interface BackgroundAvailability {
+    }
+
     /**
      * Set the metrics category of the parent fragment.
      *
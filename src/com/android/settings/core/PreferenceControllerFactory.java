@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Creates a {@link BasePreferenceController} declared in a preference XML by calling its
+ * constructor directly. The factories are generated at build time into
+ * {@code PreferenceControllerRegistry} for every public controller with a public
+ * {@code (Context)} or {@code (Context, String)} constructor; other controllers are still
+ * created through reflection.
+ */
+public final class PreferenceControllerFactory {
+
+    /** Whether the generated factories are used. Disabled to compare against reflection. */
+    @VisibleForTesting
+    public static volatile boolean sGeneratedFactoriesEnabled = true;
+
+    @Nullable
+    private final Function<Context, BasePreferenceController> mContextConstructor;
+    @Nullable
+    private final BiFunction<Context, String, BasePreferenceController> mKeyConstructor;
+
+    private PreferenceControllerFactory(
+            @Nullable Function<Context, BasePreferenceController> contextConstructor,
+            @Nullable BiFunction<Context, String, BasePreferenceController> keyConstructor) {
+        mContextConstructor = contextConstructor;
+        mKeyConstructor = keyConstructor;
+    }
+
+    /** Returns a factory calling the {@code (Context)} constructor of a controller. */
+    static PreferenceControllerFactory ofContext(
+            Function<Context, BasePreferenceController> constructor) {
+        return new PreferenceControllerFactory(constructor, null);
+    }
+
+    /** Returns a factory calling the {@code (Context, String)} constructor of a controller. */
+    static PreferenceControllerFactory ofContextAndKey(
+            BiFunction<Context, String, BasePreferenceController> constructor) {
+        return new PreferenceControllerFactory(null, constructor);
+    }
+
+    /**
+     * Returns the generated factory of {@code controllerName}, or null if the controller has to
+     * be created through reflection.
+     */
+    @Nullable
+    static PreferenceControllerFactory get(String controllerName) {
+        if (!sGeneratedFactoriesEnabled) {
+            return null;
+        }
+        return PreferenceControllerRegistry.get(controllerName);
+    }
+
+    /** Returns whether the controller is created with the key of its preference. */
+    boolean requiresKey() {
+        return mContextConstructor == null;
+    }
+
+    /** Creates the controller. {@code key} is only used if {@link #requiresKey()}. */
+    BasePreferenceController create(Context context, @Nullable String key) {
+        if (mContextConstructor != null) {
+            return mContextConstructor.apply(context);
+        }
+        return mKeyConstructor.apply(context, key);
+    }
+}
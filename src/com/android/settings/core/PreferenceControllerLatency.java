@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.os.SystemClock;
+import android.os.SystemProperties;
+import android.util.Log;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms of the preference controller calls made by the preference framework, per
+ * controller class, for dumpsys. Recording only uses atomic counters, so it is cheap enough to
+ * be always on. Calls off the main thread, like the availability checks that
+ * {@link com.android.settings.dashboard.DashboardFragment} runs in the background, are kept in
+ * separate histograms.
+ *
+ * <p>Calls on the main thread taking longer than the budget set by the
+ * {@code debug.settings.controller_budget_ms} system property are counted and logged.
+ */
+public final class PreferenceControllerLatency {
+
+    private static final String TAG = "ControllerLatency";
+    private static final String PROPERTY_MAIN_THREAD_BUDGET_MS =
+            "debug.settings.controller_budget_ms";
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({GET_AVAILABILITY_STATUS, DISPLAY_PREFERENCE, UPDATE_STATE,
+            HANDLE_PREFERENCE_TREE_CLICK})
+    public @interface Method {
+    }
+
+    public static final int GET_AVAILABILITY_STATUS = 0;
+    public static final int DISPLAY_PREFERENCE = 1;
+    public static final int UPDATE_STATE = 2;
+    public static final int HANDLE_PREFERENCE_TREE_CLICK = 3;
+
+    private static final String[] METHOD_NAMES = {
+            "getAvailabilityStatus", "displayPreference", "updateState",
+            "handlePreferenceTreeClick"};
+
+    /** Appended to the method name of the histograms of the calls off the main thread. */
+    @VisibleForTesting
+    static final String BACKGROUND_SUFFIX = "_background";
+
+    /** Upper bounds of the histogram buckets, the last bucket holds anything slower. */
+    @VisibleForTesting
+    static final long[] BUCKET_UPPER_BOUNDS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+
+    @VisibleForTesting
+    static final String KEY_BUCKET_UPPER_BOUNDS_MS = "bucket_upper_bounds_ms";
+    @VisibleForTesting
+    static final String KEY_MAIN_THREAD_BUDGET_MS = "main_thread_budget_ms";
+    @VisibleForTesting
+    static final String KEY_CONTROLLERS = "controllers";
+    @VisibleForTesting
+    static final String KEY_COUNT = "count";
+    @VisibleForTesting
+    static final String KEY_TOTAL_US = "total_us";
+    @VisibleForTesting
+    static final String KEY_MAX_US = "max_us";
+    @VisibleForTesting
+    static final String KEY_OVER_BUDGET = "over_budget";
+    @VisibleForTesting
+    static final String KEY_BUCKETS = "buckets";
+
+    /** Budget of a single call on the main thread, 0 to not flag any call. */
+    @VisibleForTesting
+    static long sMainThreadBudgetMs =
+            SystemProperties.getLong(PROPERTY_MAIN_THREAD_BUDGET_MS, 0L);
+
+    private static final Map<Class<?>, Histogram[]> sHistograms = new ConcurrentHashMap<>();
+
+    private PreferenceControllerLatency() {
+    }
+
+    /**
+     * @return the start time of a call, to pass to {@link #end}.
+     */
+    public static long begin() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Records a call of {@code method} on {@code controller} that started at
+     * {@code beginNanos}, as returned by {@link #begin()}.
+     */
+    public static void end(Object controller, @Method int method, long beginNanos) {
+        final long latencyNanos = SystemClock.elapsedRealtimeNanos() - beginNanos;
+        final Class<?> controllerClass = controller.getClass();
+        Histogram[] histograms = sHistograms.get(controllerClass);
+        if (histograms == null) {
+            histograms = sHistograms.computeIfAbsent(controllerClass, key -> {
+                // The histograms of the calls on the main thread, then of the other ones.
+                final Histogram[] newHistograms = new Histogram[METHOD_NAMES.length * 2];
+                for (int i = 0; i < newHistograms.length; i++) {
+                    newHistograms[i] = new Histogram();
+                }
+                return newHistograms;
+            });
+        }
+        final boolean mainThread = ThreadUtils.isMainThread();
+        final long budgetMs = sMainThreadBudgetMs;
+        final boolean overBudget = mainThread && budgetMs > 0
+                && latencyNanos > TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        histograms[mainThread ? method : METHOD_NAMES.length + method]
+                .record(latencyNanos, overBudget);
+        if (overBudget) {
+            Log.w(TAG, controllerClass.getName() + "." + METHOD_NAMES[method] + " took "
+                    + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + "ms on the main thread");
+        }
+    }
+
+    /**
+     * @return the histograms of the methods called on each controller class.
+     */
+    public static JSONObject toJson() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        final JSONArray bounds = new JSONArray();
+        for (long bound : BUCKET_UPPER_BOUNDS_MS) {
+            bounds.put(bound);
+        }
+        obj.put(KEY_BUCKET_UPPER_BOUNDS_MS, bounds);
+        obj.put(KEY_MAIN_THREAD_BUDGET_MS, sMainThreadBudgetMs);
+        final JSONObject controllers = new JSONObject();
+        for (Map.Entry<Class<?>, Histogram[]> entry : sHistograms.entrySet()) {
+            final JSONObject controllerObj = new JSONObject();
+            final Histogram[] histograms = entry.getValue();
+            for (int i = 0; i < histograms.length; i++) {
+                if (histograms[i].mCount.get() > 0) {
+                    controllerObj.put(i < METHOD_NAMES.length ? METHOD_NAMES[i]
+                            : METHOD_NAMES[i - METHOD_NAMES.length] + BACKGROUND_SUFFIX,
+                            histograms[i].toJson());
+                }
+            }
+            controllers.put(entry.getKey().getName(), controllerObj);
+        }
+        obj.put(KEY_CONTROLLERS, controllers);
+        return obj;
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sHistograms.clear();
+    }
+
+    private static final class Histogram {
+        final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MS.length + 1);
+        final AtomicLong mCount = new AtomicLong();
+        final AtomicLong mTotalNanos = new AtomicLong();
+        final AtomicLong mMaxNanos = new AtomicLong();
+        final AtomicLong mOverBudget = new AtomicLong();
+
+        void record(long latencyNanos, boolean overBudget) {
+            mBuckets.incrementAndGet(getBucket(latencyNanos));
+            mCount.incrementAndGet();
+            mTotalNanos.addAndGet(latencyNanos);
+            mMaxNanos.accumulateAndGet(latencyNanos, Math::max);
+            if (overBudget) {
+                mOverBudget.incrementAndGet();
+            }
+        }
+
+        private static int getBucket(long latencyNanos) {
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+                if (latencyNanos < TimeUnit.MILLISECONDS.toNanos(BUCKET_UPPER_BOUNDS_MS[i])) {
+                    return i;
+                }
+            }
+            return BUCKET_UPPER_BOUNDS_MS.length;
+        }
+
+        JSONObject toJson() throws JSONException {
+            final JSONObject obj = new JSONObject();
+            obj.put(KEY_COUNT, mCount.get());
+            obj.put(KEY_TOTAL_US, TimeUnit.NANOSECONDS.toMicros(mTotalNanos.get()));
+            obj.put(KEY_MAX_US, TimeUnit.NANOSECONDS.toMicros(mMaxNanos.get()));
+            obj.put(KEY_OVER_BUDGET, mOverBudget.get());
+            final JSONArray buckets = new JSONArray();
+            for (int i = 0; i < mBuckets.length(); i++) {
+                buckets.put(mBuckets.get(i));
+            }
+            obj.put(KEY_BUCKETS, buckets);
+            return obj;
+        }
+    }
+}
@@ -27,8 +27,6 @@ import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
-import androidx.preference.PreferenceManager;
-import androidx.preference.PreferenceScreen;
 
 import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -70,11 +68,20 @@ public class PreferenceControllerListHelper {
             if (TextUtils.isEmpty(controllerName)) {
                 continue;
             }
-            BasePreferenceController controller;
-            try {
-                controller = BasePreferenceController.createInstance(context, controllerName);
-            } catch (IllegalStateException e) {
-                Log.d(TAG, "Could not find Context-only controller for pref: " + controllerName);
+            BasePreferenceController controller = null;
+            // Skip the Context-only attempt when the controller is known to need a key, rather
+            // than failing it through reflection.
+            final PreferenceControllerFactory factory =
+                    PreferenceControllerFactory.get(controllerName);
+            if (factory == null || !factory.requiresKey()) {
+                try {
+                    controller = BasePreferenceController.createInstance(context, controllerName);
+                } catch (IllegalStateException e) {
+                    Log.d(TAG, "Could not find Context-only controller for pref: "
+                            + controllerName);
+                }
+            }
+            if (controller == null) {
                 final String key = metadata.getString(METADATA_KEY);
                 final boolean isWorkProfile = metadata.getBoolean(METADATA_FOR_WORK, false);
                 if (TextUtils.isEmpty(key)) {
@@ -102,12 +109,18 @@ public class PreferenceControllerListHelper {
      * @return {@code true} if none of the preferences in the given screen will appear
      */
     public static boolean areAllPreferencesUnavailable(@NonNull Context context,
-            @NonNull PreferenceManager preferenceManager, @XmlRes int xmlResId) {
-        PreferenceScreen screen = preferenceManager.inflateFromResource(context, xmlResId,
-                /* rootPreferences= */ null);
+            @XmlRes int xmlResId) {
+        final int preferenceCount;
+        try {
+            preferenceCount =
+                    PreferenceXmlParserUtils.getTopLevelPreferenceCount(context, xmlResId);
+        } catch (IOException | XmlPullParserException e) {
+            Log.e(TAG, "Failed to parse preference xml for counting preferences", e);
+            return false;
+        }
         List<BasePreferenceController> preferenceControllers =
                 getPreferenceControllersFromXml(context, xmlResId);
-        if (screen.getPreferenceCount() != preferenceControllers.size()) {
+        if (preferenceCount != preferenceControllers.size()) {
             // There are some preferences without controllers, which will show regardless.
             return false;
         }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Process-wide cache of the metadata of preference XMLs, parsed once with every
+ * {@link PreferenceXmlParserUtils.MetadataFlag} and shared by all callers of
+ * {@link PreferenceXmlParserUtils#extractMetadata}. Entries are keyed by the configuration and the
+ * assets of the resources they were parsed with, so contexts with different resources, e.g. of
+ * another locale, don't share or evict each other's entries.
+ */
+public final class PreferenceXmlMetadataCache {
+
+    @VisibleForTesting
+    static final String KEY_HITS = "hits";
+    @VisibleForTesting
+    static final String KEY_MISSES = "misses";
+    @VisibleForTesting
+    static final String KEY_PARSE_TIME_MS = "parse_time_ms";
+    @VisibleForTesting
+    static final String KEY_MAX_PARSE_TIME_MS = "max_parse_time_ms";
+
+    private static final int MAX_ENTRIES = 128;
+
+    private static final Object sLock = new Object();
+    private static final LruCache<Key, Entry> sEntries = new LruCache<>(MAX_ENTRIES);
+    private static int sHits;
+    private static int sMisses;
+    private static long sParseTimeMs;
+    private static long sMaxParseTimeMs;
+
+    private PreferenceXmlMetadataCache() {
+    }
+
+    /**
+     * Returns the parsed metadata of {@code xmlResId}, parsing it if it is not cached for the
+     * current resources of {@code context}.
+     */
+    static Entry get(Context context, int xmlResId) throws IOException, XmlPullParserException {
+        final Resources res = context.getResources();
+        final Key key = new Key(xmlResId, res.getConfiguration(), res.getAssets());
+        synchronized (sLock) {
+            final Entry entry = sEntries.get(key);
+            if (entry != null) {
+                sHits++;
+                return entry;
+            }
+            sMisses++;
+        }
+
+        final long startTime = SystemClock.elapsedRealtime();
+        final Entry entry = PreferenceXmlParserUtils.parseAllMetadata(context, xmlResId);
+        final long parseTimeMs = SystemClock.elapsedRealtime() - startTime;
+        synchronized (sLock) {
+            sParseTimeMs += parseTimeMs;
+            sMaxParseTimeMs = Math.max(sMaxParseTimeMs, parseTimeMs);
+            sEntries.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * @return the hit count, miss count and total parse time of the cache.
+     */
+    public static JSONObject toJson() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        synchronized (sLock) {
+            obj.put(KEY_HITS, sHits);
+            obj.put(KEY_MISSES, sMisses);
+            obj.put(KEY_PARSE_TIME_MS, sParseTimeMs);
+            obj.put(KEY_MAX_PARSE_TIME_MS, sMaxParseTimeMs);
+        }
+        return obj;
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        synchronized (sLock) {
+            sEntries.evictAll();
+            sHits = 0;
+            sMisses = 0;
+            sParseTimeMs = 0;
+            sMaxParseTimeMs = 0;
+        }
+    }
+
+    /** A preference XML and the resources it is parsed with. */
+    private static final class Key {
+        final int mXmlResId;
+        final Configuration mConfiguration;
+        final AssetManager mAssets;
+
+        Key(int xmlResId, Configuration configuration, AssetManager assets) {
+            mXmlResId = xmlResId;
+            mConfiguration = new Configuration(configuration);
+            // Window bounds differ between activities but don't select resources.
+            mConfiguration.windowConfiguration.setToDefaults();
+            mAssets = assets;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mXmlResId == other.mXmlResId
+                    && mAssets == other.mAssets
+                    && mConfiguration.equals(other.mConfiguration);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mXmlResId, mConfiguration, System.identityHashCode(mAssets));
+        }
+    }
+
+    /** The metadata of a preference XML, with every field extracted. */
+    static final class Entry {
+        /** Never modified, callers get filtered copies. */
+        final List<Bundle> mMetadata;
+        /** The number of preferences directly under the root of the XML. */
+        final int mTopLevelPreferenceCount;
+
+        Entry(List<Bundle> metadata, int topLevelPreferenceCount) {
+            mMetadata = metadata;
+            mTopLevelPreferenceCount = topLevelPreferenceCount;
+        }
+    }
+}
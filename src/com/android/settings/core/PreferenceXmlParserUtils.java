@@ -51,6 +51,9 @@ public class PreferenceXmlParserUtils {
     private static final List<String> SUPPORTED_PREF_TYPES = Arrays.asList(
             "Preference", "PreferenceCategory", "PreferenceScreen", "SwitchPreferenceCompat",
             "com.android.settings.widget.WorkOnlyCategory");
+    // Child tags of a preference that are not preferences themselves.
+    private static final String TAG_INTENT = "intent";
+    private static final String TAG_EXTRA = "extra";
     public static final int PREPEND_VALUE = 0;
     public static final int APPEND_VALUE = 1;
 
@@ -108,7 +111,8 @@ public class PreferenceXmlParserUtils {
     public static final String METADATA_USER_RESTRICTION = "userRestriction";
 
     /**
-     * Extracts metadata from preference xml and put them into a {@link Bundle}.
+     * Extracts metadata from preference xml and put them into a {@link Bundle}. The XML is only
+     * parsed once for all flags, see {@link PreferenceXmlMetadataCache}.
      *
      * @param xmlResId xml res id of a preference screen
      * @param flags    Should be one or more of {@link MetadataFlag}.
@@ -121,93 +125,136 @@ public class PreferenceXmlParserUtils {
             Log.d(TAG, xmlResId + " is invalid.");
             return metadata;
         }
-        final XmlResourceParser parser = context.getResources().getXml(xmlResId);
-
-        int type;
-        while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
-                && type != XmlPullParser.START_TAG) {
-            // Parse next until start tag is found
-        }
-        final int outerDepth = parser.getDepth();
         final boolean hasPrefScreenFlag = hasFlag(flags, MetadataFlag.FLAG_INCLUDE_PREF_SCREEN);
-        do {
-            if (type != XmlPullParser.START_TAG) {
-                continue;
-            }
-            final String nodeName = parser.getName();
+        for (Bundle allMetadata : PreferenceXmlMetadataCache.get(context, xmlResId).mMetadata) {
+            final String nodeName = allMetadata.getString(METADATA_PREF_TYPE);
             if (!hasPrefScreenFlag && TextUtils.equals(PREF_SCREEN_TAG, nodeName)) {
                 continue;
             }
-            if (!SUPPORTED_PREF_TYPES.contains(nodeName) && !nodeName.endsWith("Preference")) {
-                continue;
-            }
             final Bundle preferenceMetadata = new Bundle();
-            final AttributeSet attrs = Xml.asAttributeSet(parser);
-
-            final TypedArray preferenceAttributes = context.obtainStyledAttributes(attrs,
-                    R.styleable.Preference);
-            TypedArray preferenceScreenAttributes = null;
-            if (hasPrefScreenFlag) {
-                preferenceScreenAttributes = context.obtainStyledAttributes(
-                        attrs, R.styleable.PreferenceScreen);
-            }
-
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TYPE)) {
                 preferenceMetadata.putString(METADATA_PREF_TYPE, nodeName);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_KEY)) {
-                preferenceMetadata.putString(METADATA_KEY, getKey(preferenceAttributes));
+                copyString(allMetadata, preferenceMetadata, METADATA_KEY);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_CONTROLLER)) {
-                preferenceMetadata.putString(METADATA_CONTROLLER,
-                        getController(preferenceAttributes));
+                copyString(allMetadata, preferenceMetadata, METADATA_CONTROLLER);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TITLE)) {
-                preferenceMetadata.putString(METADATA_TITLE, getTitle(preferenceAttributes));
+                copyString(allMetadata, preferenceMetadata, METADATA_TITLE);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_SUMMARY)) {
-                preferenceMetadata.putString(METADATA_SUMMARY, getSummary(preferenceAttributes));
+                copyString(allMetadata, preferenceMetadata, METADATA_SUMMARY);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_ICON)) {
-                preferenceMetadata.putInt(METADATA_ICON, getIcon(preferenceAttributes));
+                preferenceMetadata.putInt(METADATA_ICON, allMetadata.getInt(METADATA_ICON));
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_KEYWORDS)) {
-                preferenceMetadata.putString(METADATA_KEYWORDS, getKeywords(preferenceAttributes));
+                copyString(allMetadata, preferenceMetadata, METADATA_KEYWORDS);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_SEARCHABLE)) {
                 preferenceMetadata.putBoolean(METADATA_SEARCHABLE,
-                        isSearchable(preferenceAttributes));
+                        allMetadata.getBoolean(METADATA_SEARCHABLE));
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_APPEND) && hasPrefScreenFlag) {
                 preferenceMetadata.putBoolean(METADATA_APPEND,
-                        isAppended(preferenceScreenAttributes));
+                        allMetadata.getBoolean(METADATA_APPEND));
             }
             if (hasFlag(flags, MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE)) {
-                preferenceMetadata.putString(METADATA_UNAVAILABLE_SLICE_SUBTITLE,
-                        getUnavailableSliceSubtitle(preferenceAttributes));
+                copyString(allMetadata, preferenceMetadata, METADATA_UNAVAILABLE_SLICE_SUBTITLE);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_FOR_WORK)) {
                 preferenceMetadata.putBoolean(METADATA_FOR_WORK,
-                        isForWork(preferenceAttributes));
+                        allMetadata.getBoolean(METADATA_FOR_WORK));
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_HIGHLIGHTABLE_MENU_KEY)) {
-                preferenceMetadata.putString(METADATA_HIGHLIGHTABLE_MENU_KEY,
-                        getHighlightableMenuKey(preferenceAttributes));
+                copyString(allMetadata, preferenceMetadata, METADATA_HIGHLIGHTABLE_MENU_KEY);
             }
             if (hasFlag(flags, MetadataFlag.FLAG_NEED_USER_RESTRICTION)) {
-                preferenceMetadata.putString(METADATA_USER_RESTRICTION,
-                        getUserRestriction(context, attrs));
+                copyString(allMetadata, preferenceMetadata, METADATA_USER_RESTRICTION);
             }
             metadata.add(preferenceMetadata);
+        }
+        return metadata;
+    }
 
-            preferenceAttributes.recycle();
-            if (preferenceScreenAttributes != null) {
-                preferenceScreenAttributes.recycle();
+    /**
+     * Returns the number of preferences directly under the root of a preference xml, i.e. the
+     * preference count of the inflated {@link androidx.preference.PreferenceScreen}.
+     */
+    public static int getTopLevelPreferenceCount(Context context, @XmlRes int xmlResId)
+            throws IOException, XmlPullParserException {
+        if (xmlResId <= 0) {
+            return 0;
+        }
+        return PreferenceXmlMetadataCache.get(context, xmlResId).mTopLevelPreferenceCount;
+    }
+
+    /**
+     * Parses every metadata of a preference xml, including the {@link #PREF_SCREEN_TAG} nodes.
+     */
+    static PreferenceXmlMetadataCache.Entry parseAllMetadata(Context context,
+            @XmlRes int xmlResId) throws IOException, XmlPullParserException {
+        final List<Bundle> metadata = new ArrayList<>();
+        int topLevelPreferenceCount = 0;
+        final XmlResourceParser parser = context.getResources().getXml(xmlResId);
+
+        int type;
+        while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
+                && type != XmlPullParser.START_TAG) {
+            // Parse next until start tag is found
+        }
+        final int outerDepth = parser.getDepth();
+        do {
+            if (type != XmlPullParser.START_TAG) {
+                continue;
+            }
+            final String nodeName = parser.getName();
+            if (parser.getDepth() == outerDepth + 1 && !TAG_INTENT.equals(nodeName)
+                    && !TAG_EXTRA.equals(nodeName)) {
+                topLevelPreferenceCount++;
+            }
+            if (!SUPPORTED_PREF_TYPES.contains(nodeName) && !nodeName.endsWith("Preference")) {
+                continue;
             }
+            final Bundle preferenceMetadata = new Bundle();
+            final AttributeSet attrs = Xml.asAttributeSet(parser);
+
+            final TypedArray preferenceAttributes = context.obtainStyledAttributes(attrs,
+                    R.styleable.Preference);
+            final TypedArray preferenceScreenAttributes = context.obtainStyledAttributes(
+                    attrs, R.styleable.PreferenceScreen);
+
+            preferenceMetadata.putString(METADATA_PREF_TYPE, nodeName);
+            preferenceMetadata.putString(METADATA_KEY, getKey(preferenceAttributes));
+            preferenceMetadata.putString(METADATA_CONTROLLER, getController(preferenceAttributes));
+            preferenceMetadata.putString(METADATA_TITLE, getTitle(preferenceAttributes));
+            preferenceMetadata.putString(METADATA_SUMMARY, getSummary(preferenceAttributes));
+            preferenceMetadata.putInt(METADATA_ICON, getIcon(preferenceAttributes));
+            preferenceMetadata.putString(METADATA_KEYWORDS, getKeywords(preferenceAttributes));
+            preferenceMetadata.putBoolean(METADATA_SEARCHABLE, isSearchable(preferenceAttributes));
+            preferenceMetadata.putBoolean(METADATA_APPEND,
+                    isAppended(preferenceScreenAttributes));
+            preferenceMetadata.putString(METADATA_UNAVAILABLE_SLICE_SUBTITLE,
+                    getUnavailableSliceSubtitle(preferenceAttributes));
+            preferenceMetadata.putBoolean(METADATA_FOR_WORK, isForWork(preferenceAttributes));
+            preferenceMetadata.putString(METADATA_HIGHLIGHTABLE_MENU_KEY,
+                    getHighlightableMenuKey(preferenceAttributes));
+            preferenceMetadata.putString(METADATA_USER_RESTRICTION,
+                    getUserRestriction(context, attrs));
+            metadata.add(preferenceMetadata);
+
+            preferenceAttributes.recycle();
+            preferenceScreenAttributes.recycle();
         } while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
                 && (type != XmlPullParser.END_TAG || parser.getDepth() > outerDepth));
         parser.close();
-        return metadata;
+        return new PreferenceXmlMetadataCache.Entry(metadata, topLevelPreferenceCount);
+    }
+
+    private static void copyString(Bundle from, Bundle to, String key) {
+        to.putString(key, from.getString(key));
     }
 
     private static boolean hasFlag(int flags, @MetadataFlag int flag) {
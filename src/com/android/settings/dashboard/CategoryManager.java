@@ -23,9 +23,12 @@ import android.util.ArraySet;
 import android.util.Log;
 import android.util.Pair;
 
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.homepage.HighlightableMenu;
+import com.android.settings.homepage.HomepageStartupTrace;
 import com.android.settings.safetycenter.SafetyCenterManagerWrapper;
 import com.android.settingslib.applications.InterestingConfigChanges;
 import com.android.settingslib.drawer.CategoryKey;
@@ -37,12 +40,14 @@ import com.android.settingslib.drawer.TileUtils;
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CategoryManager {
 
@@ -50,15 +55,17 @@ public class CategoryManager {
     private static final boolean DEBUG = false;
 
     private static CategoryManager sInstance;
+
+    // Guards loading, i.e. the tile cache, the config changes and publishing snapshots. Readers
+    // never take it once the first snapshot is published.
+    private final Object mLoadLock = new Object();
     private final InterestingConfigChanges mInterestingConfigChanges;
 
     // Tile cache (key: <packageName, activityName>, value: tile)
     private final Map<Pair<String, String>, Tile> mTileByComponentCache;
 
-    // Tile cache (key: category key, value: category)
-    private final Map<String, DashboardCategory> mCategoryByKeyMap;
-
-    private List<DashboardCategory> mCategories;
+    // The loaded categories. A published snapshot is never modified, changes publish a new one.
+    private final AtomicReference<Snapshot> mSnapshot = new AtomicReference<>();
 
     public static CategoryManager get(Context context) {
         if (sInstance == null) {
@@ -69,60 +76,120 @@ public class CategoryManager {
 
     CategoryManager(Context context) {
         mTileByComponentCache = new ArrayMap<>();
-        mCategoryByKeyMap = new ArrayMap<>();
         mInterestingConfigChanges = new InterestingConfigChanges();
         mInterestingConfigChanges.applyNewConfig(context.getResources());
     }
 
-    public synchronized DashboardCategory getTilesByCategory(Context context, String categoryKey) {
-        tryInitCategories(context);
-
-        return mCategoryByKeyMap.get(categoryKey);
+    public DashboardCategory getTilesByCategory(Context context, String categoryKey) {
+        final Snapshot snapshot = tryInitCategories(context);
+        return snapshot == null ? null : snapshot.mCategoryByKeyMap.get(categoryKey);
     }
 
-    public synchronized List<DashboardCategory> getCategories(Context context) {
+    public List<DashboardCategory> getCategories(Context context) {
         if (!WizardManagerHelper.isUserSetupComplete(context)) {
             return new ArrayList<>();
         }
-        tryInitCategories(context);
-        return mCategories;
+        final Snapshot snapshot = tryInitCategories(context);
+        return snapshot == null ? new ArrayList<>() : snapshot.mCategories;
     }
 
-    public synchronized void reloadAllCategories(Context context) {
-        final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
-                context.getResources());
-        mCategories = null;
-        tryInitCategories(context, forceClearCache);
+    /**
+     * Reloads the categories. Readers keep getting the previous categories until the new ones
+     * are loaded.
+     */
+    public void reloadAllCategories(Context context) {
+        synchronized (mLoadLock) {
+            final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
+                    context.getResources());
+            loadCategories(context, forceClearCache);
+        }
     }
 
     /**
      * Update category from deny list
      * @param tileDenylist
      */
-    public synchronized void updateCategoryFromDenylist(Set<ComponentName> tileDenylist) {
-        if (mCategories == null) {
-            Log.w(TAG, "Category is null, skipping denylist update");
-            return;
+    public void updateCategoryFromDenylist(Set<ComponentName> tileDenylist) {
+        synchronized (mLoadLock) {
+            final Snapshot snapshot = mSnapshot.get();
+            if (snapshot == null) {
+                Log.w(TAG, "Category is null, skipping denylist update");
+                return;
+            }
+            // Categories created by backwardCompatCleanupForCategory or
+            // mergeSecurityPrivacyKeys are only in the map, so filter the map and swap the
+            // filtered copies into the list.
+            final Map<DashboardCategory, DashboardCategory> filteredCategories = new ArrayMap<>();
+            final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+            for (Entry<String, DashboardCategory> entry : snapshot.mCategoryByKeyMap.entrySet()) {
+                final DashboardCategory category = entry.getValue();
+                final DashboardCategory newCategory = filterDeniedTiles(category, tileDenylist);
+                if (newCategory != null) {
+                    filteredCategories.put(category, newCategory);
+                }
+                categoryByKeyMap.put(entry.getKey(), newCategory != null ? newCategory : category);
+            }
+            if (filteredCategories.isEmpty()) {
+                return;
+            }
+            final List<DashboardCategory> categories = new ArrayList<>(snapshot.mCategories.size());
+            for (DashboardCategory category : snapshot.mCategories) {
+                final DashboardCategory newCategory = filteredCategories.get(category);
+                categories.add(newCategory != null ? newCategory : category);
+            }
+            mSnapshot.set(new Snapshot(categories, categoryByKeyMap));
         }
-        for (int i = 0; i < mCategories.size(); i++) {
-            DashboardCategory category = mCategories.get(i);
-            for (int j = 0; j < category.getTilesCount(); j++) {
-                Tile tile = category.getTile(j);
-                if (tileDenylist.contains(tile.getIntent().getComponent())) {
-                    category.removeTile(j--);
+    }
+
+    /**
+     * @return a copy of {@code category} without the denied tiles, or null if it has none.
+     */
+    @Nullable
+    private static DashboardCategory filterDeniedTiles(DashboardCategory category,
+            Set<ComponentName> tileDenylist) {
+        DashboardCategory newCategory = null;
+        for (int i = 0; i < category.getTilesCount(); i++) {
+            final Tile tile = category.getTile(i);
+            if (tileDenylist.contains(tile.getIntent().getComponent())) {
+                if (newCategory == null) {
+                    // Copy the tiles before the first denied one.
+                    newCategory = new DashboardCategory(category.key);
+                    for (int j = 0; j < i; j++) {
+                        newCategory.addTile(category.getTile(j));
+                    }
                 }
+            } else if (newCategory != null) {
+                newCategory.addTile(tile);
             }
         }
+        return newCategory;
+    }
+
+    @VisibleForTesting
+    void setCategories(List<DashboardCategory> categories) {
+        synchronized (mLoadLock) {
+            mSnapshot.set(new Snapshot(new ArrayList<>(categories)));
+        }
+    }
+
+    @VisibleForTesting
+    void setCategories(List<DashboardCategory> categories,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        synchronized (mLoadLock) {
+            mSnapshot.set(new Snapshot(new ArrayList<>(categories),
+                    new ArrayMap<>(categoryByKeyMap)));
+        }
     }
 
     /** Return the current tile map */
-    public synchronized Map<ComponentName, Tile> getTileByComponentMap() {
+    public Map<ComponentName, Tile> getTileByComponentMap() {
         final Map<ComponentName, Tile> result = new ArrayMap<>();
-        if (mCategories == null) {
+        final Snapshot snapshot = mSnapshot.get();
+        if (snapshot == null) {
             Log.w(TAG, "Category is null, no tiles");
             return result;
         }
-        mCategories.forEach(category -> {
+        snapshot.mCategories.forEach(category -> {
             for (int i = 0; i < category.getTilesCount(); i++) {
                 final Tile tile = category.getTile(i);
                 result.put(tile.getIntent().getComponent(), tile);
@@ -140,53 +207,67 @@ public class CategoryManager {
         }
     }
 
-    private synchronized void tryInitCategories(Context context) {
-        // Keep cached tiles by default. The cache is only invalidated when InterestingConfigChange
-        // happens.
-        tryInitCategories(context, false /* forceClearCache */);
+    /**
+     * Returns the current snapshot, loading the categories if there is none yet. Keeps cached
+     * tiles, the cache is only invalidated when InterestingConfigChange happens.
+     */
+    private Snapshot tryInitCategories(Context context) {
+        final Snapshot snapshot = mSnapshot.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (mLoadLock) {
+            if (mSnapshot.get() == null) {
+                loadCategories(context, false /* forceClearCache */);
+            }
+            return mSnapshot.get();
+        }
     }
 
-    private synchronized void tryInitCategories(Context context, boolean forceClearCache) {
+    @GuardedBy("mLoadLock")
+    private void loadCategories(Context context, boolean forceClearCache) {
         if (!WizardManagerHelper.isUserSetupComplete(context)) {
             // Don't init while setup wizard is still running.
             return;
         }
-        if (mCategories == null) {
-            final boolean firstLoading = mCategoryByKeyMap.isEmpty();
-            if (forceClearCache) {
-                mTileByComponentCache.clear();
-            }
-            mCategoryByKeyMap.clear();
-            mCategories = TileUtils.getCategories(context, mTileByComponentCache);
-            for (DashboardCategory category : mCategories) {
-                mCategoryByKeyMap.put(category.key, category);
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+        final Snapshot previous = mSnapshot.get();
+        if (forceClearCache) {
+            mTileByComponentCache.clear();
+        }
+        final List<DashboardCategory> categories =
+                TileUtils.getCategories(context, mTileByComponentCache);
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        for (DashboardCategory category : categories) {
+            categoryByKeyMap.put(category.key, category);
+        }
+        backwardCompatCleanupForCategory(mTileByComponentCache, categoryByKeyMap);
+        mergeSecurityPrivacyKeys(context, mTileByComponentCache, categoryByKeyMap);
+        sortCategories(context, categoryByKeyMap);
+        filterDuplicateTiles(categoryByKeyMap);
+        mSnapshot.set(new Snapshot(categories, categoryByKeyMap));
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+        if (previous == null) {
+            logTiles(context);
+
+            final DashboardCategory homepageCategory = categoryByKeyMap.get(
+                    CategoryKey.CATEGORY_HOMEPAGE);
+            if (homepageCategory == null) {
+                return;
             }
-            backwardCompatCleanupForCategory(mTileByComponentCache, mCategoryByKeyMap);
-            mergeSecurityPrivacyKeys(context, mTileByComponentCache, mCategoryByKeyMap);
-            sortCategories(context, mCategoryByKeyMap);
-            filterDuplicateTiles(mCategoryByKeyMap);
-            if (firstLoading) {
-                logTiles(context);
-
-                final DashboardCategory homepageCategory = mCategoryByKeyMap.get(
-                        CategoryKey.CATEGORY_HOMEPAGE);
-                if (homepageCategory == null) {
-                    return;
-                }
-                for (Tile tile : homepageCategory.getTiles()) {
-                    final String key = tile.getKey(context);
-                    if (TextUtils.isEmpty(key)) {
-                        Log.w(TAG, "Key hint missing for homepage tile: " + tile.getTitle(context));
-                        continue;
-                    }
-                    HighlightableMenu.addMenuKey(key);
+            for (Tile tile : homepageCategory.getTiles()) {
+                final String key = tile.getKey(context);
+                if (TextUtils.isEmpty(key)) {
+                    Log.w(TAG, "Key hint missing for homepage tile: " + tile.getTitle(context));
+                    continue;
                 }
+                HighlightableMenu.addMenuKey(key);
             }
         }
     }
 
     @VisibleForTesting
-    synchronized void backwardCompatCleanupForCategory(
+    void backwardCompatCleanupForCategory(
             Map<Pair<String, String>, Tile> tileByComponentCache,
             Map<String, DashboardCategory> categoryByKeyMap) {
         // A package can use a) CategoryKey, b) old category keys, c) both.
@@ -242,7 +323,7 @@ public class CategoryManager {
      * CategoryKey#CATEGORY_MORE_SECURITY_PRIVACY_SETTINGS}
      */
     @VisibleForTesting
-    synchronized void mergeSecurityPrivacyKeys(
+    void mergeSecurityPrivacyKeys(
             Context context,
             Map<Pair<String, String>, Tile> tileByComponentCache,
             Map<String, DashboardCategory> categoryByKeyMap) {
@@ -274,7 +355,7 @@ public class CategoryManager {
      * scan.
      */
     @VisibleForTesting
-    synchronized void sortCategories(Context context,
+    void sortCategories(Context context,
             Map<String, DashboardCategory> categoryByKeyMap) {
         for (Entry<String, DashboardCategory> categoryEntry : categoryByKeyMap.entrySet()) {
             categoryEntry.getValue().sortTiles(context.getPackageName());
@@ -286,7 +367,7 @@ public class CategoryManager {
      * same intent for ActivityTile, and also the ones having the same description for ProviderTile.
      */
     @VisibleForTesting
-    synchronized void filterDuplicateTiles(Map<String, DashboardCategory> categoryByKeyMap) {
+    void filterDuplicateTiles(Map<String, DashboardCategory> categoryByKeyMap) {
         for (Entry<String, DashboardCategory> categoryEntry : categoryByKeyMap.entrySet()) {
             final DashboardCategory category = categoryEntry.getValue();
             final int count = category.getTilesCount();
@@ -312,4 +393,29 @@ public class CategoryManager {
             }
         }
     }
+
+    /** The loaded categories, which are never modified once published. */
+    private static final class Snapshot {
+        final List<DashboardCategory> mCategories;
+        final Map<String, DashboardCategory> mCategoryByKeyMap;
+
+        Snapshot(List<DashboardCategory> categories) {
+            this(categories, toCategoryByKeyMap(categories));
+        }
+
+        Snapshot(List<DashboardCategory> categories,
+                Map<String, DashboardCategory> categoryByKeyMap) {
+            mCategories = Collections.unmodifiableList(categories);
+            mCategoryByKeyMap = Collections.unmodifiableMap(categoryByKeyMap);
+        }
+
+        private static Map<String, DashboardCategory> toCategoryByKeyMap(
+                List<DashboardCategory> categories) {
+            final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+            for (DashboardCategory category : categories) {
+                categoryByKeyMap.put(category.key, category);
+            }
+            return categoryByKeyMap;
+        }
+    }
 }
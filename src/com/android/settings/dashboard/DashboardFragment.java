@@ -21,6 +21,7 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.preference.PreferenceManager.OnActivityResultListener;
 import android.text.TextUtils;
 import android.util.ArrayMap;
@@ -45,6 +46,7 @@ import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.CategoryMixin.CategoryHandler;
 import com.android.settings.core.CategoryMixin.CategoryListener;
+import com.android.settings.core.PreferenceControllerLatency;
 import com.android.settings.core.PreferenceControllerListHelper;
 import com.android.settings.flags.Flags;
 import com.android.settings.overlay.FeatureFactory;
@@ -57,6 +59,7 @@ import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.preference.PreferenceScreenBindingHelper;
 import com.android.settingslib.preference.PreferenceScreenCreator;
 import com.android.settingslib.search.Indexable;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -68,8 +71,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Base fragment for dashboard style UI containing a list of static and dynamic setting items.
@@ -80,6 +87,19 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     public static final String CATEGORY = "category";
     private static final String TAG = "DashboardFragment";
     private static final long TIMEOUT_MILLIS = 50L;
+    private static final int MAX_AVAILABILITY_THREADS = 4;
+
+    /** Kinds of background availability checks, a newer check supersedes one of its kind. */
+    private static final int AVAILABILITY_UPDATE_STATES = 0;
+    private static final int AVAILABILITY_FORCE_UPDATE = 1;
+    private static final int AVAILABILITY_VISIBILITY = 2;
+
+    /**
+     * Evaluates the availability of {@link BasePreferenceController.BackgroundAvailability}
+     * controllers, shared by all dashboard fragments.
+     */
+    @VisibleForTesting
+    static ExecutorService sAvailabilityExecutor = createAvailabilityExecutor();
 
     @VisibleForTesting
     final ArrayMap<String, List<DynamicDataObserver>> mDashboardTilePrefKeys = new ArrayMap<>();
@@ -93,6 +113,10 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
+    @VisibleForTesting
+    boolean mBackgroundAvailabilityEnabled;
+    /** Id of the last background availability check of each kind, only used on main thread. */
+    private final int[] mAvailabilityRequestIds = new int[3];
 
     private @Nullable UserRestrictionBindingHelper mUserRestrictionBindingHelper;
 
@@ -101,6 +125,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         super.onAttach(context);
         mSuppressInjectedTileKeys = Arrays.asList(context.getResources().getStringArray(
                 R.array.config_suppress_injected_tile_keys));
+        mBackgroundAvailabilityEnabled = context.getResources().getBoolean(
+                R.bool.config_dashboard_background_availability);
         mDashboardFeatureProvider =
                 FeatureFactory.getFeatureFactory().getDashboardFeatureProvider();
 
@@ -276,7 +302,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 mPreferenceControllers.values();
         for (List<AbstractPreferenceController> controllerList : controllers) {
             for (AbstractPreferenceController controller : controllerList) {
-                if (controller.handlePreferenceTreeClick(preference)) {
+                final long beginNanos = PreferenceControllerLatency.begin();
+                final boolean handled = controller.handlePreferenceTreeClick(preference);
+                PreferenceControllerLatency.end(controller,
+                        PreferenceControllerLatency.HANDLE_PREFERENCE_TREE_CLICK, beginNanos);
+                if (handled) {
                     // log here since calling super.onPreferenceTreeClick will be skipped
                     writePreferenceClickMetric(preference);
                     return true;
@@ -458,8 +488,22 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      * on all {@link AbstractPreferenceController}s.
      */
     protected void displayResourceTilesToScreen(PreferenceScreen screen) {
-        mPreferenceControllers.values().stream().flatMap(Collection::stream).forEach(
-                controller -> controller.displayPreference(screen));
+        mPreferenceControllers.values().stream().flatMap(Collection::stream)
+                .filter(controller -> !isPreferenceControllerDeferred(controller))
+                .forEach(controller -> {
+                    final long beginNanos = PreferenceControllerLatency.begin();
+                    controller.displayPreference(screen);
+                    PreferenceControllerLatency.end(controller,
+                            PreferenceControllerLatency.DISPLAY_PREFERENCE, beginNanos);
+                });
+    }
+
+    /**
+     * Returns whether {@code controller} is skipped for now when displaying and updating the
+     * preferences. A subclass deferring controllers has to display and update them later.
+     */
+    protected boolean isPreferenceControllerDeferred(AbstractPreferenceController controller) {
+        return false;
     }
 
     /**
@@ -474,30 +518,49 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      */
     protected void updatePreferenceStates() {
         final PreferenceScreen screen = getPreferenceScreen();
+        final List<AbstractPreferenceController> backgroundControllers = new ArrayList<>();
         Collection<List<AbstractPreferenceController>> controllerLists =
                 mPreferenceControllers.values();
         for (List<AbstractPreferenceController> controllerList : controllerLists) {
             for (AbstractPreferenceController controller : controllerList) {
-                if (!controller.isAvailable()) {
+                if (isPreferenceControllerDeferred(controller)) {
                     continue;
                 }
-
-                final String key = controller.getPreferenceKey();
-                if (TextUtils.isEmpty(key)) {
-                    Log.d(TAG, String.format("Preference key is %s in Controller %s",
-                            key, controller.getClass().getSimpleName()));
+                if (isAvailabilityCheckedInBackground(controller)) {
+                    backgroundControllers.add(controller);
                     continue;
                 }
-
-                final Preference preference = screen.findPreference(key);
-                if (preference == null) {
-                    Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
-                            key, controller.getClass().getSimpleName()));
-                    continue;
+                if (controller.isAvailable()) {
+                    updatePreferenceState(screen, controller);
                 }
-                controller.updateState(preference);
             }
         }
+        if (!backgroundControllers.isEmpty()) {
+            checkAvailabilityInBackground(AVAILABILITY_UPDATE_STATES, backgroundControllers,
+                    (controller, available) -> {
+                        if (available) {
+                            updatePreferenceState(getPreferenceScreen(), controller);
+                        }
+                    });
+        }
+    }
+
+    private void updatePreferenceState(PreferenceScreen screen,
+            AbstractPreferenceController controller) {
+        final String key = controller.getPreferenceKey();
+        if (TextUtils.isEmpty(key)) {
+            Log.d(TAG, String.format("Preference key is %s in Controller %s",
+                    key, controller.getClass().getSimpleName()));
+            return;
+        }
+
+        final Preference preference = screen.findPreference(key);
+        if (preference == null) {
+            Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
+                    key, controller.getClass().getSimpleName()));
+            return;
+        }
+        updateControllerState(controller, preference);
     }
 
     /**
@@ -534,6 +597,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (screen == null || mPreferenceControllers == null) {
             return;
         }
+        final List<AbstractPreferenceController> backgroundControllers = new ArrayList<>();
         for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
                 final String key = controller.getPreferenceKey();
@@ -541,13 +605,38 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 if (preference == null) {
                     continue;
                 }
-                final boolean available = controller.isAvailable();
-                if (available) {
-                    controller.updateState(preference);
+                if (isAvailabilityCheckedInBackground(controller)) {
+                    backgroundControllers.add(controller);
+                    continue;
                 }
-                preference.setVisible(available);
+                forceUpdatePreference(controller, preference, controller.isAvailable());
             }
         }
+        if (!backgroundControllers.isEmpty()) {
+            checkAvailabilityInBackground(AVAILABILITY_FORCE_UPDATE, backgroundControllers,
+                    (controller, available) -> {
+                        final Preference preference = findPreference(controller.getPreferenceKey());
+                        if (preference != null) {
+                            forceUpdatePreference(controller, preference, available);
+                        }
+                    });
+        }
+    }
+
+    private static void forceUpdatePreference(AbstractPreferenceController controller,
+            Preference preference, boolean available) {
+        if (available) {
+            updateControllerState(controller, preference);
+        }
+        preference.setVisible(available);
+    }
+
+    private static void updateControllerState(AbstractPreferenceController controller,
+            Preference preference) {
+        final long beginNanos = PreferenceControllerLatency.begin();
+        controller.updateState(preference);
+        PreferenceControllerLatency.end(
+                controller, PreferenceControllerLatency.UPDATE_STATE, beginNanos);
     }
 
     @VisibleForTesting
@@ -558,7 +647,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             return;
         }
 
-        final boolean visible = mBlockerController.isBlockerFinished();
+        final UiBlockerController blockerController = mBlockerController;
+        final boolean visible = blockerController.isBlockerFinished();
+        final List<AbstractPreferenceController> backgroundControllers = new ArrayList<>();
         for (List<AbstractPreferenceController> controllerList :
                 preferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
@@ -567,15 +658,100 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 if (preference == null) {
                     continue;
                 }
-                if (controller instanceof BasePreferenceController.UiBlocker) {
-                    final boolean prefVisible =
-                            ((BasePreferenceController) controller).getSavedPrefVisibility();
-                    preference.setVisible(visible && controller.isAvailable() && prefVisible);
-                } else {
-                    preference.setVisible(visible && controller.isAvailable());
+                if (visible && isAvailabilityCheckedInBackground(controller)) {
+                    backgroundControllers.add(controller);
+                    continue;
                 }
+                setPreferenceVisible(controller, preference, visible && controller.isAvailable());
             }
         }
+        if (!backgroundControllers.isEmpty()) {
+            checkAvailabilityInBackground(AVAILABILITY_VISIBILITY, backgroundControllers,
+                    (controller, available) -> {
+                        final Preference preference = findPreference(controller.getPreferenceKey());
+                        if (preference != null) {
+                            setPreferenceVisible(controller, preference,
+                                    blockerController.isBlockerFinished() && available);
+                        }
+                    });
+        }
+    }
+
+    private static void setPreferenceVisible(AbstractPreferenceController controller,
+            Preference preference, boolean visible) {
+        if (controller instanceof BasePreferenceController.UiBlocker) {
+            final boolean prefVisible =
+                    ((BasePreferenceController) controller).getSavedPrefVisibility();
+            preference.setVisible(visible && prefVisible);
+        } else {
+            preference.setVisible(visible);
+        }
+    }
+
+    /**
+     * Returns whether the availability of {@code controller} is evaluated off the main thread
+     * when updating the preferences. Only done while resumed, since the results are dropped
+     * once the fragment is not resumed anymore.
+     */
+    @VisibleForTesting
+    boolean isAvailabilityCheckedInBackground(AbstractPreferenceController controller) {
+        return mBackgroundAvailabilityEnabled && isFragmentResumed()
+                && controller instanceof BasePreferenceController.BackgroundAvailability;
+    }
+
+    @VisibleForTesting
+    boolean isFragmentResumed() {
+        return isResumed();
+    }
+
+    /**
+     * Evaluates {@link AbstractPreferenceController#isAvailable()} of {@code controllers}
+     * concurrently, then passes the results to {@code callback} in a single main thread pass.
+     * A controller failing in the background is evaluated again on the main thread. Preferences
+     * keep their current state until the results arrive. The results are dropped if a newer check
+     * of the same {@code kind} was started, or if the fragment is not resumed anymore.
+     */
+    private void checkAvailabilityInBackground(int kind,
+            List<AbstractPreferenceController> controllers,
+            BiConsumer<AbstractPreferenceController, Boolean> callback) {
+        final int requestId = ++mAvailabilityRequestIds[kind];
+        final Boolean[] results = new Boolean[controllers.size()];
+        final AtomicInteger remaining = new AtomicInteger(controllers.size());
+        for (int i = 0; i < controllers.size(); i++) {
+            final int index = i;
+            final AbstractPreferenceController controller = controllers.get(i);
+            sAvailabilityExecutor.execute(() -> {
+                // The latency is recorded by PreferenceControllerLatency.
+                try {
+                    results[index] = controller.isAvailable();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Cannot check availability of "
+                            + controller.getClass().getSimpleName() + " in background", e);
+                }
+                if (remaining.decrementAndGet() > 0) {
+                    return;
+                }
+                ThreadUtils.postOnMainThread(() -> {
+                    if (requestId != mAvailabilityRequestIds[kind] || !isFragmentResumed()
+                            || getContext() == null || getPreferenceScreen() == null) {
+                        return;
+                    }
+                    for (int j = 0; j < results.length; j++) {
+                        final AbstractPreferenceController checkedController = controllers.get(j);
+                        callback.accept(checkedController, results[j] != null
+                                ? results[j] : checkedController.isAvailable());
+                    }
+                });
+            });
+        }
+    }
+
+    private static ExecutorService createAvailabilityExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_AVAILABILITY_THREADS, MAX_AVAILABILITY_THREADS,
+                10L /* keepAliveTime */, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -673,19 +849,27 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             unregisterDynamicDataObservers(entry.getValue());
         }
 
-        // Wait for pending observers to update UI.
-        if (!pendingObservers.isEmpty()) {
-            final CountDownLatch mainLatch = new CountDownLatch(1);
-            new Thread(() -> {
-                pendingObservers.forEach(observer ->
-                        awaitObserverLatch(observer.getCountDownLatch()));
-                mainLatch.countDown();
-            }).start();
+        if (pendingObservers.isEmpty()) {
+            return;
+        }
+        if (!isNonBlockingTileBindingEnabled()) {
+            // Wait for pending observers to update UI.
             Log.d(tag, "Start waiting observers");
-            awaitObserverLatch(mainLatch);
+            awaitObserverLatches(pendingObservers);
             Log.d(tag, "Stop waiting observers");
-            pendingObservers.forEach(DynamicDataObserver::updateUi);
         }
+        // Apply the data loaded so far. Observers still loading keep their placeholders and post
+        // their updates to the main thread when they complete.
+        pendingObservers.forEach(DynamicDataObserver::updateUi);
+    }
+
+    /**
+     * Returns whether injected tiles are bound without waiting for their dynamic data.
+     */
+    @VisibleForTesting
+    boolean isNonBlockingTileBindingEnabled() {
+        return getContext().getResources().getBoolean(
+                R.bool.config_dashboard_non_blocking_tile_binding);
     }
 
     @Override
@@ -758,11 +942,19 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         });
     }
 
-    private void awaitObserverLatch(CountDownLatch latch) {
-        try {
-            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            // Do nothing
+    private void awaitObserverLatches(List<DynamicDataObserver> observers) {
+        final long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        for (DynamicDataObserver observer : observers) {
+            final long timeout = deadline - SystemClock.uptimeMillis();
+            if (timeout <= 0) {
+                return;
+            }
+            try {
+                observer.getCountDownLatch().await(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 }
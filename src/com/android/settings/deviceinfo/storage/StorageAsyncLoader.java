@@ -41,12 +41,26 @@ import android.util.ArraySet;
 import android.util.Log;
 import android.util.SparseArray;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.R;
 import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.utils.AsyncLoaderCompat;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * StorageAsyncLoader is a Loader which loads categorized app information and external stats for all
@@ -56,11 +70,33 @@ public class StorageAsyncLoader
         extends AsyncLoaderCompat<SparseArray<StorageAsyncLoader.StorageResult>> {
     private UserManager mUserManager;
     private static final String TAG = "StorageAsyncLoader";
+    private static final int MAX_SCANNING_THREADS = 4;
+
+    /** Storage types reported to {@link PartialResultListener}. */
+    public static final int TYPE_IMAGES = 0;
+    public static final int TYPE_VIDEOS = 1;
+    public static final int TYPE_AUDIO = 2;
+    public static final int TYPE_DOCUMENTS = 3;
+    public static final int TYPE_OTHER = 4;
+    public static final int TYPE_TRASH = 5;
+    public static final int TYPE_APPS = 6;
+    public static final int TYPE_GAMES = 7;
+    public static final int TYPE_SYSTEM = 8;
+
+    private static final int[] MEDIA_TYPES = {
+            TYPE_IMAGES, TYPE_VIDEOS, TYPE_AUDIO, TYPE_DOCUMENTS, TYPE_OTHER, TYPE_TRASH};
+
+    /** Runs the MediaStore queries and the package stats queries of the parallel scan. */
+    @VisibleForTesting
+    static ExecutorService sScanningExecutor = createScanningExecutor();
 
     private String mUuid;
     private StorageStatsSource mStatsManager;
     private PackageManager mPackageManager;
     private ArraySet<String> mSeenPackages;
+    @Nullable
+    private PartialResultListener mPartialResultListener;
+    private final List<Future<?>> mPendingTasks = new ArrayList<>();
 
     public StorageAsyncLoader(Context context, UserManager userManager,
             String uuid, StorageStatsSource source, PackageManager pm) {
@@ -71,73 +107,335 @@ public class StorageAsyncLoader
         mPackageManager = pm;
     }
 
+    /**
+     * Sets a listener receiving the size of each storage type as soon as it is loaded, before
+     * the whole result is delivered. Only used by the parallel scan.
+     */
+    public void setPartialResultListener(@Nullable PartialResultListener listener) {
+        mPartialResultListener = listener;
+    }
+
     @Override
     public SparseArray<StorageResult> loadInBackground() {
+        if (isParallelScanningEnabled()) {
+            return getStorageResultsForUsersInParallel();
+        }
         return getStorageResultsForUsers();
     }
 
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        synchronized (mPendingTasks) {
+            for (Future<?> task : mPendingTasks) {
+                task.cancel(true /* mayInterruptIfRunning */);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    boolean isParallelScanningEnabled() {
+        return getContext().getResources().getBoolean(R.bool.config_storage_parallel_scanning);
+    }
+
     private SparseArray<StorageResult> getStorageResultsForUsers() {
         mSeenPackages = new ArraySet<>();
         final SparseArray<StorageResult> results = new SparseArray<>();
-        final List<UserInfo> infos = mUserManager.getUsers();
-
-        // Sort the users by user id ascending.
-        Collections.sort(infos,
-                (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
 
-        for (UserInfo info : infos) {
+        for (UserInfo info : getSortedUsers()) {
             final StorageResult result = getAppsAndGamesSize(info.id);
-            final Bundle media = new Bundle();
-            media.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, MediaColumns.VOLUME_NAME
-                    + "= '" + MediaStore.VOLUME_EXTERNAL_PRIMARY + "'");
-            result.imagesSize = getFilesSize(info.id, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-            result.videosSize = getFilesSize(info.id, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-            result.audioSize = getFilesSize(info.id, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
+            final MediaStoreState mediaState = getMediaStoreState(info.id);
+            final StorageResult cached = getCachedResult(info.id, mediaState);
+            boolean complete = true;
+            for (int type : MEDIA_TYPES) {
+                final Long size = cached != null
+                        ? Long.valueOf(cached.getSize(type))
+                        : getMediaSize(info.id, type);
+                complete &= size != null;
+                result.setSize(type, size != null ? size : 0L);
+            }
             result.systemSize = getSystemSize();
+            // Sizes reused from the cache keep the time they were queried at.
+            if (cached == null && complete) {
+                cacheResult(info.id, result, mediaState);
+            }
+            results.put(info.id, result);
+        }
+        return results;
+    }
 
-            final Bundle documentsQueryArgs = new Bundle();
-            documentsQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
-                    FileColumns.MEDIA_TYPE + "=" + FileColumns.MEDIA_TYPE_DOCUMENT);
-            result.documentsSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
-                    documentsQueryArgs);
-
-            final Bundle otherQueryArgs = new Bundle();
-            otherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
-                    FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
-                            + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
-                            + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
-                            + " AND " + FileColumns.MEDIA_TYPE + "!="
-                            + FileColumns.MEDIA_TYPE_DOCUMENT
-                            + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
-            result.otherSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
-                    otherQueryArgs);
-
-            final Bundle trashQueryArgs = new Bundle();
-            trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
-            result.trashSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
-                    trashQueryArgs);
+    /**
+     * Same as {@link #getStorageResultsForUsers()}, but runs the MediaStore queries and the
+     * package stats queries of all users on {@link #sScanningExecutor}. The package stats are
+     * still added up in user order, so that shared code is counted as duplicate the same way.
+     */
+    private SparseArray<StorageResult> getStorageResultsForUsersInParallel() {
+        mSeenPackages = new ArraySet<>();
+        final List<UserInfo> infos = getSortedUsers();
 
-            results.put(info.id, result);
+        final Future<Long> systemSize = submit(this::getSystemSize);
+        final SparseArray<MediaStoreState> mediaStates = new SparseArray<>();
+        final SparseArray<StorageResult> cachedResults = new SparseArray<>();
+        final SparseArray<SparseArray<Future<Long>>> mediaSizes = new SparseArray<>();
+        final SparseArray<List<Future<AppStats>>> appStats = new SparseArray<>();
+        final SparseArray<Future<StorageStatsSource.ExternalStorageStats>> externalStats =
+                new SparseArray<>();
+        for (UserInfo info : infos) {
+            final int userId = info.id;
+            final MediaStoreState mediaState = getMediaStoreState(userId);
+            mediaStates.put(userId, mediaState);
+            final StorageResult cached = getCachedResult(userId, mediaState);
+            if (cached != null) {
+                // The media of the user did not change since the cached result was loaded.
+                cachedResults.put(userId, cached);
+                for (int type : MEDIA_TYPES) {
+                    publishSize(userId, type, cached.getSize(type));
+                }
+            } else {
+                final SparseArray<Future<Long>> sizes = new SparseArray<>();
+                for (int type : MEDIA_TYPES) {
+                    sizes.put(type, submit(() -> {
+                        final Long size = getMediaSize(userId, type);
+                        publishSize(userId, type, size != null ? size : 0L);
+                        return size;
+                    }));
+                }
+                mediaSizes.put(userId, sizes);
+            }
+            appStats.put(userId, submitAppStats(userId));
+            externalStats.put(userId, submit(() ->
+                    mStatsManager.getExternalStorageStats(mUuid, UserHandle.of(userId))));
+        }
+
+        final SparseArray<StorageResult> results = new SparseArray<>();
+        try {
+            final long system = getResult(systemSize, 0L);
+            for (UserInfo info : infos) {
+                final StorageResult result = new StorageResult();
+                for (Future<AppStats> future : appStats.get(info.id)) {
+                    final AppStats stats = getResult(future, null);
+                    if (stats != null) {
+                        addAppSize(result, stats.mApp, stats.mStats, stats.mCacheQuota);
+                    }
+                }
+                publishSize(info.id, TYPE_APPS, result.allAppsExceptGamesSize);
+                publishSize(info.id, TYPE_GAMES, result.gamesSize);
+                result.externalStats = getResult(externalStats.get(info.id), null);
+
+                final StorageResult cached = cachedResults.get(info.id);
+                final SparseArray<Future<Long>> sizes = mediaSizes.get(info.id);
+                boolean complete = true;
+                for (int type : MEDIA_TYPES) {
+                    final Long size = cached != null
+                            ? Long.valueOf(cached.getSize(type))
+                            : getResult(sizes.get(type), null);
+                    complete &= size != null;
+                    result.setSize(type, size != null ? size : 0L);
+                }
+                result.systemSize = system;
+                publishSize(info.id, TYPE_SYSTEM, system);
+                // Sizes reused from the cache keep the time they were queried at.
+                if (cached == null && complete) {
+                    cacheResult(info.id, result, mediaStates.get(info.id));
+                }
+                results.put(info.id, result);
+            }
+        } finally {
+            synchronized (mPendingTasks) {
+                mPendingTasks.clear();
+            }
         }
         return results;
     }
 
-    private long getFilesSize(int userId, Uri uri, Bundle queryArgs) {
-        final Context perUserContext;
+    private List<Future<AppStats>> submitAppStats(int userId) {
+        Log.d(TAG, "Loading apps");
+        final List<ApplicationInfo> applicationInfos =
+                mPackageManager.getInstalledApplicationsAsUser(0, userId);
+        final UserHandle myUser = UserHandle.of(userId);
+        final List<Future<AppStats>> futures = new ArrayList<>(applicationInfos.size());
+        for (ApplicationInfo app : applicationInfos) {
+            futures.add(submit(() -> {
+                try {
+                    return new AppStats(app,
+                            mStatsManager.getStatsForPackage(mUuid, app.packageName, myUser),
+                            mStatsManager.getCacheQuotaBytes(mUuid, app.uid));
+                } catch (NameNotFoundException | IOException e) {
+                    // This may happen if the package was removed during our calculation.
+                    Log.w(TAG, "App unexpectedly not found", e);
+                    return null;
+                }
+            }));
+        }
+        return futures;
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        final Future<T> future = sScanningExecutor.submit(task);
+        synchronized (mPendingTasks) {
+            mPendingTasks.add(future);
+        }
+        return future;
+    }
+
+    private <T> T getResult(Future<T> future, T defaultValue) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            Log.w(TAG, "Failed to load storage stats", e.getCause());
+        } catch (CancellationException e) {
+            Log.d(TAG, "Storage stats loading cancelled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return defaultValue;
+    }
+
+    private void publishSize(int userId, int type, long size) {
+        if (mPartialResultListener == null) {
+            return;
+        }
+        ThreadUtils.postOnMainThread(() -> {
+            final PartialResultListener listener = mPartialResultListener;
+            if (listener != null && isStarted()) {
+                listener.onSizeLoaded(userId, type, size);
+            }
+        });
+    }
+
+    private List<UserInfo> getSortedUsers() {
+        final List<UserInfo> infos = mUserManager.getUsers();
+
+        // Sort the users by user id ascending.
+        Collections.sort(infos,
+                (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
+        return infos;
+    }
+
+    /** Returns the size of the media of {@code type}, or null if it could not be queried. */
+    @VisibleForTesting
+    @Nullable
+    Long getMediaSize(int userId, int type) {
+        final Uri filesUri = MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY);
+        final Bundle media = new Bundle();
+        media.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, MediaColumns.VOLUME_NAME
+                + "= '" + MediaStore.VOLUME_EXTERNAL_PRIMARY + "'");
+        switch (type) {
+            case TYPE_IMAGES:
+                return getFilesSize(userId, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                        media /* queryArgs */);
+            case TYPE_VIDEOS:
+                return getFilesSize(userId, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
+                        media /* queryArgs */);
+            case TYPE_AUDIO:
+                return getFilesSize(userId, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+                        media /* queryArgs */);
+            case TYPE_DOCUMENTS:
+                final Bundle documentsQueryArgs = new Bundle();
+                documentsQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
+                        FileColumns.MEDIA_TYPE + "=" + FileColumns.MEDIA_TYPE_DOCUMENT);
+                return getFilesSize(userId, filesUri, documentsQueryArgs);
+            case TYPE_OTHER:
+                final Bundle otherQueryArgs = new Bundle();
+                otherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
+                        FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
+                                + " AND " + FileColumns.MEDIA_TYPE + "!="
+                                + FileColumns.MEDIA_TYPE_VIDEO
+                                + " AND " + FileColumns.MEDIA_TYPE + "!="
+                                + FileColumns.MEDIA_TYPE_AUDIO
+                                + " AND " + FileColumns.MEDIA_TYPE + "!="
+                                + FileColumns.MEDIA_TYPE_DOCUMENT
+                                + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
+                return getFilesSize(userId, filesUri, otherQueryArgs);
+            case TYPE_TRASH:
+                final Bundle trashQueryArgs = new Bundle();
+                trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
+                return getFilesSize(userId, filesUri, trashQueryArgs);
+            default:
+                throw new IllegalArgumentException("Not a media type: " + type);
+        }
+    }
+
+    @Nullable
+    private Context getPerUserContext(int userId) {
         try {
-            perUserContext = getContext().createPackageContextAsUser(
+            return getContext().createPackageContextAsUser(
                 getContext().getApplicationContext().getPackageName(),
                 0 /* flags= */,
                 UserHandle.of(userId));
         } catch (NameNotFoundException e) {
             Log.e(TAG, "Not able to get Context for user ID " + userId);
-            return 0L;
+            return null;
+        }
+    }
+
+    /**
+     * Returns the current MediaStore version, generation and file count of {@code userId}, or
+     * null if they are unknown. Read before querying the media, so that changes made during the
+     * queries make the cached result stale. The generation does not advance when files are
+     * deleted or expire from the trash, so the count of all files, trashed ones included, is
+     * compared as well.
+     */
+    @VisibleForTesting
+    @Nullable
+    MediaStoreState getMediaStoreState(int userId) {
+        final Context perUserContext = getPerUserContext(userId);
+        if (perUserContext == null) {
+            return null;
+        }
+        final String version;
+        final long generation;
+        try {
+            version = MediaStore.getVersion(perUserContext, MediaStore.VOLUME_EXTERNAL_PRIMARY);
+            generation =
+                    MediaStore.getGeneration(perUserContext, MediaStore.VOLUME_EXTERNAL_PRIMARY);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Not able to get MediaStore generation for user ID " + userId, e);
+            return null;
+        }
+
+        final Bundle queryArgs = new Bundle();
+        queryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_INCLUDE);
+        try (Cursor cursor = perUserContext.getContentResolver().query(
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
+                new String[] {"count(*)"},
+                queryArgs,
+                null /* cancellationSignal */)) {
+            if (cursor == null || !cursor.moveToFirst()) {
+                Log.w(TAG, "Not able to count MediaStore files for user ID " + userId);
+                return null;
+            }
+            return new MediaStoreState(version, generation, cursor.getLong(0));
+        }
+    }
+
+    @Nullable
+    private StorageResult getCachedResult(int userId, @Nullable MediaStoreState mediaState) {
+        if (mediaState == null) {
+            return null;
+        }
+        return new StorageResultCache(getContext(), userId)
+                .getIfMediaUnchanged(mediaState.mVersion, mediaState.mGeneration,
+                        mediaState.mCount);
+    }
+
+    private void cacheResult(int userId, StorageResult result,
+            @Nullable MediaStoreState mediaState) {
+        if (mediaState == null) {
+            return;
+        }
+        new StorageResultCache(getContext(), userId)
+                .put(result, mediaState.mVersion, mediaState.mGeneration, mediaState.mCount);
+    }
+
+    @Nullable
+    private Long getFilesSize(int userId, Uri uri, Bundle queryArgs) {
+        final Context perUserContext = getPerUserContext(userId);
+        if (perUserContext == null) {
+            return null;
         }
 
         try (Cursor cursor = perUserContext.getContentResolver().query(
@@ -146,7 +444,8 @@ public class StorageAsyncLoader
                 queryArgs,
                 null /* cancellationSignal */)) {
             if (cursor == null) {
-                return 0L;
+                Log.w(TAG, "Not able to query " + uri + " for user ID " + userId);
+                return null;
             }
             return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
         }
@@ -180,44 +479,7 @@ public class StorageAsyncLoader
                 continue;
             }
 
-            final long dataSize = stats.getDataBytes();
-            final long cacheQuota = mStatsManager.getCacheQuotaBytes(mUuid, app.uid);
-            final long cacheBytes = stats.getCacheBytes();
-            long blamedSize = dataSize + stats.getCodeBytes();
-            // Technically, we could overages as freeable on the storage settings screen.
-            // If the app is using more cache than its quota, we would accidentally subtract the
-            // overage from the system size (because it shows up as unused) during our attribution.
-            // Thus, we cap the attribution at the quota size.
-            if (cacheQuota < cacheBytes) {
-                blamedSize = blamedSize - cacheBytes + cacheQuota;
-            }
-
-            // Code bytes may share between different profiles. To know all the duplicate code size
-            // and we can get a reasonable system size in StorageItemPreferenceController.
-            if (mSeenPackages.contains(app.packageName)) {
-                result.duplicateCodeSize += stats.getCodeBytes();
-            } else {
-                mSeenPackages.add(app.packageName);
-            }
-
-            switch (app.category) {
-                case CATEGORY_GAME:
-                    result.gamesSize += blamedSize;
-                    break;
-                case CATEGORY_AUDIO:
-                case CATEGORY_VIDEO:
-                case CATEGORY_IMAGE:
-                    result.allAppsExceptGamesSize += blamedSize;
-                    break;
-                default:
-                    // The deprecated game flag does not set the category.
-                    if ((app.flags & ApplicationInfo.FLAG_IS_GAME) != 0) {
-                        result.gamesSize += blamedSize;
-                        break;
-                    }
-                    result.allAppsExceptGamesSize += blamedSize;
-                    break;
-            }
+            addAppSize(result, app, stats, mStatsManager.getCacheQuotaBytes(mUuid, app.uid));
         }
 
         Log.d(TAG, "Loading external stats");
@@ -231,6 +493,55 @@ public class StorageAsyncLoader
         return result;
     }
 
+    private void addAppSize(StorageResult result, ApplicationInfo app,
+            StorageStatsSource.AppStorageStats stats, long cacheQuota) {
+        final long dataSize = stats.getDataBytes();
+        final long cacheBytes = stats.getCacheBytes();
+        long blamedSize = dataSize + stats.getCodeBytes();
+        // Technically, we could overages as freeable on the storage settings screen.
+        // If the app is using more cache than its quota, we would accidentally subtract the
+        // overage from the system size (because it shows up as unused) during our attribution.
+        // Thus, we cap the attribution at the quota size.
+        if (cacheQuota < cacheBytes) {
+            blamedSize = blamedSize - cacheBytes + cacheQuota;
+        }
+
+        // Code bytes may share between different profiles. To know all the duplicate code size
+        // and we can get a reasonable system size in StorageItemPreferenceController.
+        if (mSeenPackages.contains(app.packageName)) {
+            result.duplicateCodeSize += stats.getCodeBytes();
+        } else {
+            mSeenPackages.add(app.packageName);
+        }
+
+        switch (app.category) {
+            case CATEGORY_GAME:
+                result.gamesSize += blamedSize;
+                break;
+            case CATEGORY_AUDIO:
+            case CATEGORY_VIDEO:
+            case CATEGORY_IMAGE:
+                result.allAppsExceptGamesSize += blamedSize;
+                break;
+            default:
+                // The deprecated game flag does not set the category.
+                if ((app.flags & ApplicationInfo.FLAG_IS_GAME) != 0) {
+                    result.gamesSize += blamedSize;
+                    break;
+                }
+                result.allAppsExceptGamesSize += blamedSize;
+                break;
+        }
+    }
+
+    private static ExecutorService createScanningExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_SCANNING_THREADS, MAX_SCANNING_THREADS,
+                10L /* keepAliveTime */, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @Override
     protected void onDiscardResult(SparseArray<StorageResult> result) {
     }
@@ -253,6 +564,77 @@ public class StorageAsyncLoader
         public long cacheSize;
         public long duplicateCodeSize;
         public StorageStatsSource.ExternalStorageStats externalStats;
+
+        long getSize(int type) {
+            switch (type) {
+                case TYPE_IMAGES:
+                    return imagesSize;
+                case TYPE_VIDEOS:
+                    return videosSize;
+                case TYPE_AUDIO:
+                    return audioSize;
+                case TYPE_DOCUMENTS:
+                    return documentsSize;
+                case TYPE_OTHER:
+                    return otherSize;
+                case TYPE_TRASH:
+                    return trashSize;
+                default:
+                    throw new IllegalArgumentException("Not a media type: " + type);
+            }
+        }
+
+        void setSize(int type, long size) {
+            switch (type) {
+                case TYPE_IMAGES:
+                    imagesSize = size;
+                    break;
+                case TYPE_VIDEOS:
+                    videosSize = size;
+                    break;
+                case TYPE_AUDIO:
+                    audioSize = size;
+                    break;
+                case TYPE_DOCUMENTS:
+                    documentsSize = size;
+                    break;
+                case TYPE_OTHER:
+                    otherSize = size;
+                    break;
+                case TYPE_TRASH:
+                    trashSize = size;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Not a media type: " + type);
+            }
+        }
+    }
+
+    /** The MediaStore version, generation and file count of a user. */
+    @VisibleForTesting
+    static class MediaStoreState {
+        final String mVersion;
+        final long mGeneration;
+        final long mCount;
+
+        MediaStoreState(String version, long generation, long count) {
+            mVersion = version;
+            mGeneration = generation;
+            mCount = count;
+        }
+    }
+
+    /** The stats of a package, loaded on {@link #sScanningExecutor}. */
+    private static class AppStats {
+        final ApplicationInfo mApp;
+        final StorageStatsSource.AppStorageStats mStats;
+        final long mCacheQuota;
+
+        AppStats(ApplicationInfo app, StorageStatsSource.AppStorageStats stats, long cacheQuota) {
+            mApp = app;
+            mStats = stats;
+            mCacheQuota = cacheQuota;
+        }
     }
 
     /**
@@ -263,4 +645,13 @@ public class StorageAsyncLoader
         /** Overrides this method to get storage result once it's available. */
         void handleResult(SparseArray<StorageResult> result);
     }
+
+    /**
+     * Receives the size of each storage type from {@link StorageAsyncLoader} as soon as it is
+     * loaded.
+     */
+    public interface PartialResultListener {
+        /** Called on the main thread with the size of {@code type} for {@code userId}. */
+        void onSizeLoaded(int userId, int type, long size);
+    }
 }
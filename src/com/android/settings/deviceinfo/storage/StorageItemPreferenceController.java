@@ -478,6 +478,46 @@ public class StorageItemPreferenceController extends AbstractPreferenceControlle
         setPrivateStorageCategoryPreferencesVisibility(true);
     }
 
+    /**
+     * Updates the preference of a single storage type while {@link StorageAsyncLoader} is still
+     * loading. The final sizes are set by {@link #onLoadFinished}.
+     */
+    public void onStorageSizeLoaded(int userId, int type, long size) {
+        if (userId != mUserId || mTotalSize <= 0) {
+            return;
+        }
+        final StorageItemPreference preference = getStorageItemPreference(type);
+        if (preference != null) {
+            preference.setStorageSize(size, mTotalSize, false /* animate */);
+        }
+    }
+
+    @Nullable
+    private StorageItemPreference getStorageItemPreference(int type) {
+        switch (type) {
+            case StorageAsyncLoader.TYPE_IMAGES:
+                return mImagesPreference;
+            case StorageAsyncLoader.TYPE_VIDEOS:
+                return mVideosPreference;
+            case StorageAsyncLoader.TYPE_AUDIO:
+                return mAudioPreference;
+            case StorageAsyncLoader.TYPE_DOCUMENTS:
+                return mDocumentsPreference;
+            case StorageAsyncLoader.TYPE_OTHER:
+                return mOtherPreference;
+            case StorageAsyncLoader.TYPE_TRASH:
+                return mTrashPreference;
+            case StorageAsyncLoader.TYPE_APPS:
+                return mAppsPreference;
+            case StorageAsyncLoader.TYPE_GAMES:
+                return mGamesPreference;
+            case StorageAsyncLoader.TYPE_SYSTEM:
+                return mSystemPreference;
+            default:
+                return null;
+        }
+    }
+
     private StorageCacheHelper.StorageCache getSizeInfo(
             SparseArray<StorageAsyncLoader.StorageResult> result, int userId) {
         if (result == null) {
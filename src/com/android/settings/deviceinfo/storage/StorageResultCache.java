@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Persists the MediaStore category sizes of a user, together with the MediaStore version,
+ * generation and file count they were loaded at, so that they only have to be queried again after
+ * the media of the user changed. The other sizes of a {@link StorageAsyncLoader.StorageResult} are not cached.
+ */
+public class StorageResultCache {
+
+    private static final String SHARED_PREFERENCE_NAME = "StorageResultCache";
+    private static final String TIMESTAMP_KEY = "timestamp_key";
+    private static final String MEDIA_VERSION_KEY = "media_version_key";
+    private static final String MEDIA_GENERATION_KEY = "media_generation_key";
+    private static final String MEDIA_COUNT_KEY = "media_count_key";
+    private static final String IMAGES_SIZE_KEY = "images_size_key";
+    private static final String VIDEOS_SIZE_KEY = "videos_size_key";
+    private static final String AUDIO_SIZE_KEY = "audio_size_key";
+    private static final String DOCUMENTS_SIZE_KEY = "documents_size_key";
+    private static final String OTHER_SIZE_KEY = "other_size_key";
+    private static final String TRASH_SIZE_KEY = "trash_size_key";
+
+    /** Cached results older than this are not used, even if the media did not change. */
+    @VisibleForTesting
+    static final long MAX_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    private final SharedPreferences mSharedPreferences;
+
+    public StorageResultCache(Context context, int userId) {
+        mSharedPreferences = context.getSharedPreferences(SHARED_PREFERENCE_NAME + userId,
+                Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Caches the MediaStore category sizes of {@code result}, queried when the MediaStore of the
+     * user was at {@code mediaVersion} and {@code mediaGeneration} and held {@code mediaCount}
+     * files.
+     */
+    public void put(StorageAsyncLoader.StorageResult result, String mediaVersion,
+            long mediaGeneration, long mediaCount) {
+        mSharedPreferences
+                .edit()
+                .putLong(TIMESTAMP_KEY, System.currentTimeMillis())
+                .putString(MEDIA_VERSION_KEY, mediaVersion)
+                .putLong(MEDIA_GENERATION_KEY, mediaGeneration)
+                .putLong(MEDIA_COUNT_KEY, mediaCount)
+                .putLong(IMAGES_SIZE_KEY, result.imagesSize)
+                .putLong(VIDEOS_SIZE_KEY, result.videosSize)
+                .putLong(AUDIO_SIZE_KEY, result.audioSize)
+                .putLong(DOCUMENTS_SIZE_KEY, result.documentsSize)
+                .putLong(OTHER_SIZE_KEY, result.otherSize)
+                .putLong(TRASH_SIZE_KEY, result.trashSize)
+                .apply();
+    }
+
+    /**
+     * Returns a result holding the cached MediaStore category sizes, or null if there is none or
+     * it is older than {@link #MAX_AGE_MS}.
+     */
+    @Nullable
+    public StorageAsyncLoader.StorageResult get() {
+        final long timestamp = getTimestamp();
+        final long age = System.currentTimeMillis() - timestamp;
+        if (timestamp == 0 || age < 0 || age > MAX_AGE_MS) {
+            return null;
+        }
+        final StorageAsyncLoader.StorageResult result = new StorageAsyncLoader.StorageResult();
+        result.imagesSize = mSharedPreferences.getLong(IMAGES_SIZE_KEY, 0);
+        result.videosSize = mSharedPreferences.getLong(VIDEOS_SIZE_KEY, 0);
+        result.audioSize = mSharedPreferences.getLong(AUDIO_SIZE_KEY, 0);
+        result.documentsSize = mSharedPreferences.getLong(DOCUMENTS_SIZE_KEY, 0);
+        result.otherSize = mSharedPreferences.getLong(OTHER_SIZE_KEY, 0);
+        result.trashSize = mSharedPreferences.getLong(TRASH_SIZE_KEY, 0);
+        return result;
+    }
+
+    /**
+     * Returns the cached sizes if the MediaStore of the user is still at {@code mediaVersion}
+     * and {@code mediaGeneration} and holds {@code mediaCount} files, i.e. they are up to date.
+     * The generation only advances on inserts and updates, so deletes are caught by the count.
+     */
+    @Nullable
+    public StorageAsyncLoader.StorageResult getIfMediaUnchanged(String mediaVersion,
+            long mediaGeneration, long mediaCount) {
+        if (TextUtils.isEmpty(mediaVersion)
+                || !mediaVersion.equals(mSharedPreferences.getString(MEDIA_VERSION_KEY, null))
+                || mediaGeneration != mSharedPreferences.getLong(MEDIA_GENERATION_KEY, -1)
+                || mediaCount != mSharedPreferences.getLong(MEDIA_COUNT_KEY, -1)) {
+            return null;
+        }
+        return get();
+    }
+
+    @VisibleForTesting
+    void clear() {
+        mSharedPreferences.edit().clear().commit();
+    }
+
+    /**
+     * Returns the time the sizes were queried at, in milliseconds since the epoch, or 0 if there
+     * is none.
+     */
+    public long getTimestamp() {
+        return mSharedPreferences.getLong(TIMESTAMP_KEY, 0);
+    }
+}
@@ -24,7 +24,7 @@ import com.android.settings.core.PreferenceControllerMixin;
 import java.util.Objects;
 
 public class EnterprisePrivacyPreferenceController extends BasePreferenceController implements
-        PreferenceControllerMixin {
+        PreferenceControllerMixin, BasePreferenceController.BackgroundAvailability {
 
     private final PrivacyPreferenceControllerHelper mPrivacyPreferenceControllerHelper;
 
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of app usage periods packed into primitive arrays, which avoids allocating one
+ * {@link AppUsagePeriod} proto for each intermediate period.
+ */
+final class AppUsagePeriodBuffer {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private long[] mStartTimes;
+    private long[] mEndTimes;
+    private int mSize;
+
+    AppUsagePeriodBuffer() {
+        mStartTimes = new long[DEFAULT_CAPACITY];
+        mEndTimes = new long[DEFAULT_CAPACITY];
+    }
+
+    /** Creates the buffer from the {@code appUsagePeriodList}. */
+    static AppUsagePeriodBuffer fromAppUsagePeriodList(
+            final List<AppUsagePeriod> appUsagePeriodList) {
+        final AppUsagePeriodBuffer buffer = new AppUsagePeriodBuffer();
+        for (int index = 0; index < appUsagePeriodList.size(); index++) {
+            final AppUsagePeriod appUsagePeriod = appUsagePeriodList.get(index);
+            buffer.add(appUsagePeriod.getStartTime(), appUsagePeriod.getEndTime());
+        }
+        return buffer;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    long getStartTime(int index) {
+        return mStartTimes[index];
+    }
+
+    long getEndTime(int index) {
+        return mEndTimes[index];
+    }
+
+    void clear() {
+        mSize = 0;
+    }
+
+    void add(final long startTime, final long endTime) {
+        if (mSize == mStartTimes.length) {
+            mStartTimes = Arrays.copyOf(mStartTimes, mSize * 2);
+            mEndTimes = Arrays.copyOf(mEndTimes, mSize * 2);
+        }
+        mStartTimes[mSize] = startTime;
+        mEndTimes[mSize] = endTime;
+        mSize++;
+    }
+
+    /** Trims the period into [{@code rangeStart}, {@code rangeEnd}] and adds it if not empty. */
+    void addTrimmed(
+            final long startTime, final long endTime, final long rangeStart, final long rangeEnd) {
+        final long trimmedStartTime = Math.min(Math.max(startTime, rangeStart), rangeEnd);
+        final long trimmedEndTime = Math.min(Math.max(endTime, rangeStart), rangeEnd);
+        // Only when the period is valid, add it into the list.
+        if (trimmedStartTime < trimmedEndTime) {
+            add(trimmedStartTime, trimmedEndTime);
+        }
+    }
+
+    /**
+     * Appends the parts of the periods in {@code source} which are not in the power connected
+     * time. Both the periods and the {@code batteryEventList} should be sorted by time.
+     */
+    void addExcludingPowerConnectedTime(
+            final AppUsagePeriodBuffer source, final List<BatteryEvent> batteryEventList) {
+        int eventIndex = 0;
+        for (int index = 0; index < source.mSize; index++) {
+            final long periodStartTime = source.mStartTimes[index];
+            final long periodEndTime = source.mEndTimes[index];
+            long lastStartTime = periodStartTime;
+            while (eventIndex < batteryEventList.size()) {
+                final BatteryEvent batteryEvent = batteryEventList.get(eventIndex);
+                final long eventTime = batteryEvent.getTimestamp();
+                if (eventTime < periodStartTime) {
+                    // Because the batteryEventList has been sorted, here is to mark the power
+                    // connection state when the usage period starts. If power is connected when
+                    // the usage period starts, the starting period will be ignored; otherwise it
+                    // will be added.
+                    if (batteryEvent.getType() == BatteryEventType.POWER_CONNECTED) {
+                        lastStartTime = 0;
+                    } else if (batteryEvent.getType() == BatteryEventType.POWER_DISCONNECTED) {
+                        lastStartTime = periodStartTime;
+                    }
+                    eventIndex++;
+                    continue;
+                }
+                if (eventTime > periodEndTime) {
+                    // Because the batteryEventList has been sorted, if any event is already after
+                    // the end time, all the following events should be able to drop directly.
+                    break;
+                }
+                if (batteryEvent.getType() == BatteryEventType.POWER_CONNECTED
+                        && lastStartTime != 0) {
+                    add(lastStartTime, eventTime);
+                    lastStartTime = 0;
+                } else if (batteryEvent.getType() == BatteryEventType.POWER_DISCONNECTED) {
+                    lastStartTime = eventTime;
+                }
+                eventIndex++;
+            }
+            if (lastStartTime != 0) {
+                add(lastStartTime, periodEndTime);
+            }
+        }
+    }
+
+    /**
+     * Sorts the periods by time and merges the overlapping or adjacent periods in place.
+     *
+     * <p>The start and end times are sorted separately, which is enough to find the merged
+     * periods: a merged period ends at the i-th sorted end time when the next sorted start time is
+     * later than it.
+     */
+    void sortAndMerge() {
+        if (mSize < 2) {
+            return;
+        }
+        Arrays.sort(mStartTimes, 0, mSize);
+        Arrays.sort(mEndTimes, 0, mSize);
+        int mergedSize = 0;
+        long mergedStartTime = mStartTimes[0];
+        for (int index = 0; index < mSize; index++) {
+            final boolean isLast = index == mSize - 1;
+            if (isLast || mStartTimes[index + 1] > mEndTimes[index]) {
+                final long nextStartTime = isLast ? 0 : mStartTimes[index + 1];
+                mStartTimes[mergedSize] = mergedStartTime;
+                mEndTimes[mergedSize] = mEndTimes[index];
+                mergedSize++;
+                mergedStartTime = nextStartTime;
+            }
+        }
+        mSize = mergedSize;
+    }
+
+    /** Returns the sum of all period durations, which should be called after merging. */
+    long getTotalDuration() {
+        long totalDuration = 0;
+        for (int index = 0; index < mSize; index++) {
+            totalDuration += mEndTimes[index] - mStartTimes[index];
+        }
+        return totalDuration;
+    }
+
+    /** Converts the periods into {@link AppUsagePeriod} protos. */
+    List<AppUsagePeriod> toAppUsagePeriodList() {
+        final List<AppUsagePeriod> appUsagePeriodList = new ArrayList<>(mSize);
+        for (int index = 0; index < mSize; index++) {
+            appUsagePeriodList.add(
+                    AppUsagePeriod.newBuilder()
+                            .setStartTime(mStartTimes[index])
+                            .setEndTime(mEndTimes[index])
+                            .build());
+        }
+        return appUsagePeriodList;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.util.ArrayMap;
+import android.util.Log;
+
+import java.util.Map;
+
+/**
+ * Collects the battery history snapshots which are needed to interpolate the hourly slots.
+ *
+ * <p>{@link DataProcessor#getHistoryMapWithExpectedTimestamps} only reads the first snapshot and
+ * the nearest lower and upper snapshots of each sharp hour, so the other snapshots are dropped
+ * while reading and the result map is bounded by the number of hourly slots.
+ */
+final class BatteryHistorySlotCollector implements DatabaseUtils.BatteryHistorySnapshotConsumer {
+    private static final String TAG = "BatteryHistorySlotCollector";
+
+    private final Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap = new ArrayMap<>();
+
+    private long mPreviousTimestamp = 0L;
+    private Map<String, BatteryHistEntry> mPreviousSnapshot = null;
+    // Keeps all snapshots once the snapshots are found not in the ascending order.
+    private boolean mKeepAllSnapshots = false;
+    private int mSnapshotCount = 0;
+
+    @Override
+    public void onSnapshot(long timestamp, Map<String, BatteryHistEntry> snapshot) {
+        mSnapshotCount++;
+        if (mPreviousSnapshot == null) {
+            // The first snapshot is always the start slot.
+            keepSnapshot(timestamp, snapshot);
+        } else if (mKeepAllSnapshots || timestamp <= mPreviousTimestamp) {
+            mKeepAllSnapshots = true;
+            keepSnapshot(mPreviousTimestamp, mPreviousSnapshot);
+            keepSnapshot(timestamp, snapshot);
+        } else if (timestamp >= TimestampUtils.getNextHourTimestamp(mPreviousTimestamp)) {
+            // There is a sharp hour between the two snapshots, they are the nearest lower and
+            // upper snapshots of the hourly slot.
+            keepSnapshot(mPreviousTimestamp, mPreviousSnapshot);
+            keepSnapshot(timestamp, snapshot);
+        }
+        mPreviousTimestamp = timestamp;
+        mPreviousSnapshot = snapshot;
+    }
+
+    /** Returns the collected battery history map. */
+    Map<Long, Map<String, BatteryHistEntry>> getBatteryHistoryMap() {
+        Log.d(
+                TAG,
+                String.format(
+                        "keep %d snapshots from %d snapshots",
+                        mBatteryHistoryMap.size(), mSnapshotCount));
+        return mBatteryHistoryMap;
+    }
+
+    private void keepSnapshot(long timestamp, Map<String, BatteryHistEntry> snapshot) {
+        final Map<String, BatteryHistEntry> existingSnapshot = mBatteryHistoryMap.get(timestamp);
+        if (existingSnapshot == null) {
+            mBatteryHistoryMap.put(timestamp, snapshot);
+        } else if (existingSnapshot != snapshot) {
+            existingSnapshot.putAll(snapshot);
+        }
+    }
+}
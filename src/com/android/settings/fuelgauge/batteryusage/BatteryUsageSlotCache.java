@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * A process-wide cache of the completed {@link BatteryUsageSlot} persisted by the periodic job.
+ *
+ * <p>Completed slots never change once they are written into the database, so only the slots
+ * newer than the latest cached one are loaded from the database for each query. The cache is
+ * invalidated whenever the battery usage slot table is cleared.
+ */
+final class BatteryUsageSlotCache {
+    private static final String TAG = "BatteryUsageSlotCache";
+
+    private static final Object sLock = new Object();
+
+    // Sorted by the slot start timestamp.
+    private static final TreeMap<Long, BatteryUsageSlot> sBatteryUsageSlots = new TreeMap<>();
+
+    // The earliest timestamp which the cached slots are loaded from.
+    private static long sCachedStartTimestamp = Long.MAX_VALUE;
+
+    private BatteryUsageSlotCache() {}
+
+    /**
+     * Returns the battery usage slots after {@code rawStartTimestamp}, only loads the slots which
+     * are not cached yet from the database.
+     */
+    static List<BatteryUsageSlot> getBatteryUsageSlots(
+            Context context, final Calendar calendar, final long rawStartTimestamp) {
+        synchronized (sLock) {
+            final long queryTimestamp =
+                    Math.max(rawStartTimestamp, DatabaseUtils.getTimestampSixDaysAgo(calendar));
+            if (queryTimestamp < sCachedStartTimestamp) {
+                // The requested range is not fully covered, reload all of them.
+                sBatteryUsageSlots.clear();
+            }
+            // Drops the slots which are out of the requested range.
+            sBatteryUsageSlots.headMap(queryTimestamp).clear();
+            final long loadTimestamp =
+                    sBatteryUsageSlots.isEmpty()
+                            ? queryTimestamp
+                            : sBatteryUsageSlots.lastKey() + 1;
+            final List<BatteryUsageSlot> newBatteryUsageSlots =
+                    DatabaseUtils.getBatteryUsageSlots(context, calendar, loadTimestamp);
+            for (BatteryUsageSlot batteryUsageSlot : newBatteryUsageSlots) {
+                sBatteryUsageSlots.put(batteryUsageSlot.getStartTimestamp(), batteryUsageSlot);
+            }
+            sCachedStartTimestamp = queryTimestamp;
+            Log.d(
+                    TAG,
+                    String.format(
+                            "getBatteryUsageSlots() loaded=%d cached=%d",
+                            newBatteryUsageSlots.size(), sBatteryUsageSlots.size()));
+            return new ArrayList<>(sBatteryUsageSlots.values());
+        }
+    }
+
+    /** Clears all cached battery usage slots. */
+    static void invalidate() {
+        synchronized (sLock) {
+            sBatteryUsageSlots.clear();
+            sCachedStartTimestamp = Long.MAX_VALUE;
+        }
+    }
+
+    @VisibleForTesting
+    static int getCachedSlotCount() {
+        synchronized (sLock) {
+            return sBatteryUsageSlots.size();
+        }
+    }
+}
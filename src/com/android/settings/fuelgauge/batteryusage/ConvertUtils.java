@@ -29,7 +29,6 @@ import android.os.LocaleList;
 import android.os.UserHandle;
 import android.text.TextUtils;
 import android.text.format.DateFormat;
-import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -131,9 +130,7 @@ public final class ConvertUtils {
                         batteryStatus,
                         batteryHealth,
                         bootTimestamp);
-        values.put(
-                BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                convertBatteryInformationToString(batteryInformation));
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
         // Save the BatteryInformation unencoded string into database for debugging.
         if (Build.TYPE.equals("userdebug")) {
             values.put(
@@ -169,24 +166,16 @@ public final class ConvertUtils {
             final BatteryUsageSlot batteryUsageSlot) {
         final ContentValues values = new ContentValues(2);
         values.put(BatteryUsageSlotEntity.KEY_TIMESTAMP, batteryUsageSlot.getStartTimestamp());
-        values.put(
-                BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT,
-                Base64.encodeToString(batteryUsageSlot.toByteArray(), Base64.DEFAULT));
+        values.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, batteryUsageSlot.toByteArray());
         return values;
     }
 
-    /** Gets the encoded string from {@link BatteryInformation} instance. */
-    public static String convertBatteryInformationToString(
-            final BatteryInformation batteryInformation) {
-        return Base64.encodeToString(batteryInformation.toByteArray(), Base64.DEFAULT);
-    }
-
     /** Gets the {@link BatteryInformation} instance from {@link ContentValues}. */
     public static BatteryInformation getBatteryInformation(
             final ContentValues values, final String key) {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
         if (values != null && values.containsKey(key)) {
-            return BatteryUtils.parseProtoFromString(values.getAsString(key), defaultInstance);
+            return BatteryUtils.parseProtoFromBytes(values.getAsByteArray(key), defaultInstance);
         }
         return defaultInstance;
     }
@@ -196,23 +185,22 @@ public final class ConvertUtils {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
         final int columnIndex = cursor.getColumnIndex(key);
         if (columnIndex >= 0) {
-            return BatteryUtils.parseProtoFromString(
-                    cursor.getString(columnIndex), defaultInstance);
+            return BatteryUtils.parseProtoFromBytes(cursor.getBlob(columnIndex), defaultInstance);
         }
         return defaultInstance;
     }
 
-    /** Gets the encoded string from {@link BatteryReattribute} instance. */
+    /** Gets the encoded bytes from {@link BatteryReattribute} instance. */
     @NonNull
-    public static String encodeBatteryReattribute(
+    public static byte[] encodeBatteryReattribute(
             @NonNull BatteryReattribute batteryReattribute) {
-        return Base64.encodeToString(batteryReattribute.toByteArray(), Base64.DEFAULT);
+        return batteryReattribute.toByteArray();
     }
 
-    /** Gets the decoded {@link BatteryReattribute} instance from string. */
+    /** Gets the decoded {@link BatteryReattribute} instance from bytes. */
     @NonNull
-    public static BatteryReattribute decodeBatteryReattribute(@NonNull String content) {
-        return BatteryUtils.parseProtoFromString(
+    public static BatteryReattribute decodeBatteryReattribute(@NonNull byte[] content) {
+        return BatteryUtils.parseProtoFromBytes(
                 content, BatteryReattribute.getDefaultInstance());
     }
 
@@ -364,7 +352,7 @@ public final class ConvertUtils {
                 cursor.getColumnIndex(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT);
         return columnIndex < 0
                 ? defaultInstance
-                : BatteryUtils.parseProtoFromString(cursor.getString(columnIndex), defaultInstance);
+                : BatteryUtils.parseProtoFromBytes(cursor.getBlob(columnIndex), defaultInstance);
     }
 
     /** Converts from {@link Map<Long, BatteryDiffData>} to {@link List<BatteryUsageSlot>} */
@@ -18,7 +18,10 @@ package com.android.settings.fuelgauge.batteryusage;
 
 import android.app.usage.UsageEvents;
 import android.content.Context;
-import android.os.AsyncTask;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.ArrayMap;
 import android.util.Log;
 
@@ -35,11 +38,20 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
- * Manages the async tasks to process battery and app usage data.
+ * Manages the loader stages to process battery and app usage data.
  *
- * <p>For now, there exist 4 async tasks in this manager:
+ * <p>All the stages are executed in a dedicated bounded executor and their results are delivered
+ * in the main thread. For now, there exist 6 loading stages in this manager:
  *
  * <ul>
  *   <li>loadCurrentBatteryHistoryMap: load the latest battery history data from battery stats
@@ -48,33 +60,45 @@ import java.util.Set;
  *       from usage stats service.
  *   <li>loadDatabaseAppUsageList: load the necessary app usage data (after last full charge) from
  *       database
+ *   <li>loadPowerConnectionBatteryEventList: load the power connection events from database.
+ *   <li>loadBatteryUsageSlotList: load the completed battery usage slots from database.
  *   <li>loadAndApplyBatteryMapFromServiceOnly: load all the battery history data (should be after
  *       last full charge) from battery stats service and apply the callback function directly
  * </ul>
  *
- * If there is battery level data, the first 3 async tasks will be started at the same time.
+ * If there is battery level data, the first 5 stages will be started at the same time.
  *
  * <ul>
- *   <li>After loadCurrentAppUsageList and loadDatabaseAppUsageList complete, which means all app
- *       usage data has been loaded, the intermediate usage result will be generated.
- *   <li>Then after all 3 async tasks complete, the battery history data and app usage data will be
+ *   <li>After the app usage and battery event stages complete, which means all app usage data has
+ *       been loaded, the intermediate usage result will be generated.
+ *   <li>Then after all 5 stages complete, the battery history data and app usage data will be
  *       combined to generate final data used for UI rendering. And the callback function will be
  *       applied.
  *   <li>If current user is locked, which means we couldn't get the latest app usage data, screen-on
  *       time will not be shown in the UI and empty screen-on time data will be returned.
  * </ul>
  *
- * If there is no battery level data, the 4th async task will be started only and the usage map
+ * If there is no battery level data, the last stage will be started only and the usage map
  * callback function will be applied directly to show the app list on the UI.
+ *
+ * <p>All the pending stages could be cancelled by {@link #cancel()}, and the latency of each stage
+ * is logged when the callback function is applied.
  */
 public class DataProcessManager {
     private static final String TAG = "DataProcessManager";
     private static final List<BatteryEventType> POWER_CONNECTION_EVENTS =
             List.of(BatteryEventType.POWER_CONNECTED, BatteryEventType.POWER_DISCONNECTED);
 
+    private static final int MAX_CONCURRENT_STAGES = 3;
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 10L;
+
     // For testing only.
     @VisibleForTesting static Map<Long, Map<String, BatteryHistEntry>> sFakeBatteryHistoryMap;
 
+    // A dedicated bounded executor shared by all the stages, so the independent queries could run
+    // concurrently without queueing behind the other AsyncTask in the process.
+    @VisibleForTesting static ExecutorService sExecutor = createExecutor();
+
     // Raw start timestamp with round to the nearest hour.
     private final long mRawStartTimestamp;
     private final long mLastFullChargeTimestamp;
@@ -97,6 +121,12 @@ public class DataProcessManager {
     private boolean mShowScreenOnTime = true;
     private Set<String> mSystemAppsPackageNames = null;
     private Set<Integer> mSystemAppsUids = null;
+    private volatile boolean mIsCancelled = false;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<Future<?>> mPendingStages = new ArrayList<>();
+    // The latency of each executed stage in milliseconds.
+    private final Map<String, Long> mStageLatencies = new ConcurrentHashMap<>();
 
     /**
      * The indexed {@link AppUsagePeriod} list data for each corresponding time slot.
@@ -109,7 +139,7 @@ public class DataProcessManager {
             mAppUsagePeriodMap;
 
     /**
-     * A callback listener when all the data is processed. This happens when all the async tasks
+     * A callback listener when all the data is processed. This happens when all the stages
      * complete and generate the final callback.
      */
     public interface OnBatteryDiffDataMapLoadedListener {
@@ -155,7 +185,7 @@ public class DataProcessManager {
         mShowScreenOnTime = false;
     }
 
-    /** Starts the async tasks to load battery history data and app usage data. */
+    /** Starts the stages to load battery history data and app usage data. */
     public void start() {
         // If we have battery level data, load the battery history map and app usage simultaneously.
         if (mHourlyBatteryLevelsPerDay != null) {
@@ -186,6 +216,32 @@ public class DataProcessManager {
         }
     }
 
+    /**
+     * Cancels all the pending stages. The callback function will not be applied once this method
+     * is called.
+     */
+    public void cancel() {
+        mIsCancelled = true;
+        synchronized (mPendingStages) {
+            for (Future<?> future : mPendingStages) {
+                future.cancel(/* mayInterruptIfRunning= */ false);
+            }
+            mPendingStages.clear();
+        }
+        mMainHandler.removeCallbacksAndMessages(/* token= */ null);
+        Log.d(TAG, "cancel() with stage latencies in ms: " + mStageLatencies);
+    }
+
+    @VisibleForTesting
+    Map<String, Long> getStageLatencies() {
+        return mStageLatencies;
+    }
+
+    @VisibleForTesting
+    boolean isCancelled() {
+        return mIsCancelled;
+    }
+
     @VisibleForTesting
     List<AppUsageEvent> getAppUsageEventList() {
         return mAppUsageEventList;
@@ -223,225 +279,145 @@ public class DataProcessManager {
     }
 
     private void loadCurrentBatteryHistoryMap() {
-        new AsyncTask<Void, Void, Map<String, BatteryHistEntry>>() {
-            @Override
-            protected Map<String, BatteryHistEntry> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
+        executeStage(
+                "loadCurrentBatteryHistoryMap",
                 // Loads the current battery usage data from the battery stats service.
-                final Map<String, BatteryHistEntry> currentBatteryHistoryMap =
-                        DataProcessor.getCurrentBatteryHistoryMapFromStatsService(mContext);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadCurrentBatteryHistoryMap size=%d in %d/ms",
-                                currentBatteryHistoryMap.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return currentBatteryHistoryMap;
-            }
-
-            @Override
-            protected void onPostExecute(
-                    final Map<String, BatteryHistEntry> currentBatteryHistoryMap) {
-                if (mBatteryHistoryMap != null) {
-                    // Replaces the placeholder in mBatteryHistoryMap.
-                    for (Map.Entry<Long, Map<String, BatteryHistEntry>> mapEntry :
-                            mBatteryHistoryMap.entrySet()) {
-                        if (mapEntry.getValue()
-                                .containsKey(
-                                        DataProcessor.CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)) {
-                            mapEntry.setValue(currentBatteryHistoryMap);
+                () -> DataProcessor.getCurrentBatteryHistoryMapFromStatsService(mContext),
+                currentBatteryHistoryMap -> {
+                    if (mBatteryHistoryMap != null) {
+                        // Replaces the placeholder in mBatteryHistoryMap.
+                        for (Map.Entry<Long, Map<String, BatteryHistEntry>> mapEntry :
+                                mBatteryHistoryMap.entrySet()) {
+                            if (mapEntry.getValue()
+                                    .containsKey(
+                                            DataProcessor
+                                                    .CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)) {
+                                mapEntry.setValue(currentBatteryHistoryMap);
+                            }
                         }
                     }
-                }
-                mIsCurrentBatteryHistoryLoaded = true;
-                tryToGenerateFinalDataAndApplyCallback();
-            }
-        }.execute();
+                    mIsCurrentBatteryHistoryLoaded = true;
+                    tryToGenerateFinalDataAndApplyCallback();
+                });
     }
 
     private void loadCurrentAppUsageList() {
-        new AsyncTask<Void, Void, List<AppUsageEvent>>() {
-            @Override
-            @Nullable
-            protected List<AppUsageEvent> doInBackground(Void... voids) {
-                if (!shouldLoadAppUsageData()) {
-                    Log.d(TAG, "not loadCurrentAppUsageList");
-                    return null;
-                }
-                final long startTime = System.currentTimeMillis();
-                // Loads the current battery usage data from the battery stats service.
-                final Map<Long, UsageEvents> usageEventsMap = new ArrayMap<>();
-                for (int userId : mUserIdsSeries.getVisibleUserIds()) {
-                    final UsageEvents usageEventsForCurrentUser =
-                            DataProcessor.getCurrentAppUsageEventsForUser(
-                                    mContext, mUserIdsSeries, userId, mRawStartTimestamp);
-                    if (usageEventsForCurrentUser == null) {
-                        // If fail to load usage events for any user, return null directly and
-                        // screen-on time will not be shown in the UI.
-                        if (userId == mUserIdsSeries.getCurrentUserId()) {
-                            return null;
+        executeStage(
+                "loadCurrentAppUsageList",
+                () -> {
+                    if (!shouldLoadAppUsageData()) {
+                        Log.d(TAG, "not loadCurrentAppUsageList");
+                        return null;
+                    }
+                    // Loads the current battery usage data from the battery stats service.
+                    final Map<Long, UsageEvents> usageEventsMap = new ArrayMap<>();
+                    for (int userId : mUserIdsSeries.getVisibleUserIds()) {
+                        final UsageEvents usageEventsForCurrentUser =
+                                DataProcessor.getCurrentAppUsageEventsForUser(
+                                        mContext, mUserIdsSeries, userId, mRawStartTimestamp);
+                        if (usageEventsForCurrentUser == null) {
+                            // If fail to load usage events for any user, return null directly
+                            // and screen-on time will not be shown in the UI.
+                            if (userId == mUserIdsSeries.getCurrentUserId()) {
+                                return null;
+                            }
+                        } else {
+                            usageEventsMap.put(Long.valueOf(userId), usageEventsForCurrentUser);
                         }
+                    }
+                    return DataProcessor.generateAppUsageEventListFromUsageEvents(
+                            mContext, usageEventsMap);
+                },
+                currentAppUsageList -> {
+                    if (currentAppUsageList == null || currentAppUsageList.isEmpty()) {
+                        Log.d(TAG, "currentAppUsageList is null or empty");
                     } else {
-                        usageEventsMap.put(Long.valueOf(userId), usageEventsForCurrentUser);
+                        mAppUsageEventList.addAll(currentAppUsageList);
                     }
-                }
-                final List<AppUsageEvent> appUsageEventList =
-                        DataProcessor.generateAppUsageEventListFromUsageEvents(
-                                mContext, usageEventsMap);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadCurrentAppUsageList size=%d in %d/ms",
-                                appUsageEventList.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return appUsageEventList;
-            }
-
-            @Override
-            protected void onPostExecute(final List<AppUsageEvent> currentAppUsageList) {
-                if (currentAppUsageList == null || currentAppUsageList.isEmpty()) {
-                    Log.d(TAG, "currentAppUsageList is null or empty");
-                } else {
-                    mAppUsageEventList.addAll(currentAppUsageList);
-                }
-                mIsCurrentAppUsageLoaded = true;
-                tryToProcessAppUsageData();
-            }
-        }.execute();
+                    mIsCurrentAppUsageLoaded = true;
+                    tryToProcessAppUsageData();
+                });
     }
 
     private void loadDatabaseAppUsageList() {
-        new AsyncTask<Void, Void, List<AppUsageEvent>>() {
-            @Override
-            protected List<AppUsageEvent> doInBackground(Void... voids) {
-                if (!shouldLoadAppUsageData()) {
-                    Log.d(TAG, "not loadDatabaseAppUsageList");
-                    return null;
-                }
-                final long startTime = System.currentTimeMillis();
-                // Loads the app usage data from the database.
-                final List<AppUsageEvent> appUsageEventList =
-                        DatabaseUtils.getAppUsageEventForUsers(
-                                mContext,
-                                Calendar.getInstance(),
-                                mUserIdsSeries.getVisibleUserIds(),
-                                mRawStartTimestamp);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadDatabaseAppUsageList size=%d in %d/ms",
-                                appUsageEventList.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return appUsageEventList;
-            }
-
-            @Override
-            protected void onPostExecute(final List<AppUsageEvent> databaseAppUsageList) {
-                if (databaseAppUsageList == null || databaseAppUsageList.isEmpty()) {
-                    Log.d(TAG, "databaseAppUsageList is null or empty");
-                } else {
-                    mAppUsageEventList.addAll(databaseAppUsageList);
-                }
-                mIsDatabaseAppUsageLoaded = true;
-                tryToProcessAppUsageData();
-            }
-        }.execute();
+        executeStage(
+                "loadDatabaseAppUsageList",
+                () -> {
+                    if (!shouldLoadAppUsageData()) {
+                        Log.d(TAG, "not loadDatabaseAppUsageList");
+                        return null;
+                    }
+                    // Loads the app usage data from the database.
+                    return DatabaseUtils.getAppUsageEventForUsers(
+                            mContext,
+                            Calendar.getInstance(),
+                            mUserIdsSeries.getVisibleUserIds(),
+                            mRawStartTimestamp);
+                },
+                databaseAppUsageList -> {
+                    if (databaseAppUsageList == null || databaseAppUsageList.isEmpty()) {
+                        Log.d(TAG, "databaseAppUsageList is null or empty");
+                    } else {
+                        mAppUsageEventList.addAll(databaseAppUsageList);
+                    }
+                    mIsDatabaseAppUsageLoaded = true;
+                    tryToProcessAppUsageData();
+                });
     }
 
     private void loadPowerConnectionBatteryEventList() {
-        new AsyncTask<Void, Void, List<BatteryEvent>>() {
-            @Override
-            protected List<BatteryEvent> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
+        executeStage(
+                "loadPowerConnectionBatteryEventList",
                 // Loads the battery event data from the database.
-                final List<BatteryEvent> batteryEventList =
+                () ->
                         DatabaseUtils.getBatteryEvents(
                                 mContext,
                                 Calendar.getInstance(),
                                 mRawStartTimestamp,
-                                POWER_CONNECTION_EVENTS);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadPowerConnectionBatteryEventList size=%d in %d/ms",
-                                batteryEventList.size(), (System.currentTimeMillis() - startTime)));
-                return batteryEventList;
-            }
-
-            @Override
-            protected void onPostExecute(final List<BatteryEvent> batteryEventList) {
-                if (batteryEventList == null || batteryEventList.isEmpty()) {
-                    Log.d(TAG, "batteryEventList is null or empty");
-                } else {
-                    mBatteryEventList.clear();
-                    mBatteryEventList.addAll(batteryEventList);
-                }
-                mIsBatteryEventLoaded = true;
-                tryToProcessAppUsageData();
-            }
-        }.execute();
+                                POWER_CONNECTION_EVENTS),
+                batteryEventList -> {
+                    if (batteryEventList == null || batteryEventList.isEmpty()) {
+                        Log.d(TAG, "batteryEventList is null or empty");
+                    } else {
+                        mBatteryEventList.clear();
+                        mBatteryEventList.addAll(batteryEventList);
+                    }
+                    mIsBatteryEventLoaded = true;
+                    tryToProcessAppUsageData();
+                });
     }
 
     private void loadBatteryUsageSlotList() {
-        new AsyncTask<Void, Void, List<BatteryUsageSlot>>() {
-            @Override
-            protected List<BatteryUsageSlot> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                // Loads the battery usage slot data from the database.
-                final List<BatteryUsageSlot> batteryUsageSlotList =
-                        DatabaseUtils.getBatteryUsageSlots(
-                                mContext, Calendar.getInstance(), mLastFullChargeTimestamp);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadBatteryUsageSlotList size=%d in %d/ms",
-                                batteryUsageSlotList.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return batteryUsageSlotList;
-            }
-
-            @Override
-            protected void onPostExecute(final List<BatteryUsageSlot> batteryUsageSlotList) {
-                if (batteryUsageSlotList == null || batteryUsageSlotList.isEmpty()) {
-                    Log.d(TAG, "batteryUsageSlotList is null or empty");
-                } else {
-                    mBatteryUsageSlotList.clear();
-                    mBatteryUsageSlotList.addAll(batteryUsageSlotList);
-                }
-                mIsBatteryUsageSlotLoaded = true;
-                tryToGenerateFinalDataAndApplyCallback();
-            }
-        }.execute();
+        executeStage(
+                "loadBatteryUsageSlotList",
+                // Loads the battery usage slot data from the cache, only the slots which are
+                // completed since the last loading are read from the database.
+                () ->
+                        BatteryUsageSlotCache.getBatteryUsageSlots(
+                                mContext, Calendar.getInstance(), mLastFullChargeTimestamp),
+                batteryUsageSlotList -> {
+                    if (batteryUsageSlotList == null || batteryUsageSlotList.isEmpty()) {
+                        Log.d(TAG, "batteryUsageSlotList is null or empty");
+                    } else {
+                        mBatteryUsageSlotList.clear();
+                        mBatteryUsageSlotList.addAll(batteryUsageSlotList);
+                    }
+                    mIsBatteryUsageSlotLoaded = true;
+                    tryToGenerateFinalDataAndApplyCallback();
+                });
     }
 
     private void loadAndApplyBatteryMapFromServiceOnly() {
-        new AsyncTask<Void, Void, Map<Long, BatteryDiffData>>() {
-            @Override
-            protected Map<Long, BatteryDiffData> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                final Map<Long, BatteryDiffData> batteryDiffDataMap =
+        executeStage(
+                "loadAndApplyBatteryMapFromServiceOnly",
+                () ->
                         DataProcessor.getBatteryDiffDataMapFromStatsService(
                                 mContext,
                                 mUserIdsSeries,
                                 mRawStartTimestamp,
                                 getSystemAppsPackageNames(),
-                                getSystemAppsUids());
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadAndApplyBatteryMapFromServiceOnly size=%d in %d/ms",
-                                batteryDiffDataMap.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return batteryDiffDataMap;
-            }
-
-            @Override
-            protected void onPostExecute(final Map<Long, BatteryDiffData> batteryDiffDataMap) {
-                if (mCallbackFunction != null) {
-                    mCallbackFunction.onBatteryDiffDataMapLoaded(batteryDiffDataMap);
-                }
-            }
-        }.execute();
+                                getSystemAppsUids()),
+                this::applyCallback);
     }
 
     private void tryToProcessAppUsageData() {
@@ -460,12 +436,14 @@ public class DataProcessManager {
         }
         // Generates the indexed AppUsagePeriod list data for each corresponding time slot for
         // further use.
+        final long startTime = SystemClock.elapsedRealtime();
         mAppUsagePeriodMap =
                 DataProcessor.generateAppUsagePeriodMap(
                         mContext,
                         mHourlyBatteryLevelsPerDay,
                         mAppUsageEventList,
                         mBatteryEventList);
+        mStageLatencies.put("processAppUsageData", SystemClock.elapsedRealtime() - startTime);
     }
 
     private void tryToGenerateFinalDataAndApplyCallback() {
@@ -480,54 +458,79 @@ public class DataProcessManager {
         generateFinalDataAndApplyCallback();
     }
 
-    private synchronized void generateFinalDataAndApplyCallback() {
-        new AsyncTask<Void, Void, Map<Long, BatteryDiffData>>() {
-            @Override
-            protected Map<Long, BatteryDiffData> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                final Map<Long, BatteryDiffData> batteryDiffDataMap = new ArrayMap<>();
-                for (BatteryUsageSlot batteryUsageSlot : mBatteryUsageSlotList) {
-                    batteryDiffDataMap.put(
-                            batteryUsageSlot.getStartTimestamp(),
-                            ConvertUtils.convertToBatteryDiffData(
+    private void generateFinalDataAndApplyCallback() {
+        executeStage(
+                "generateFinalDataAndApplyCallback",
+                () -> {
+                    final Map<Long, BatteryDiffData> batteryDiffDataMap = new ArrayMap<>();
+                    for (BatteryUsageSlot batteryUsageSlot : mBatteryUsageSlotList) {
+                        batteryDiffDataMap.put(
+                                batteryUsageSlot.getStartTimestamp(),
+                                ConvertUtils.convertToBatteryDiffData(
+                                        mContext,
+                                        batteryUsageSlot,
+                                        getSystemAppsPackageNames(),
+                                        getSystemAppsUids()));
+                    }
+                    batteryDiffDataMap.putAll(
+                            DataProcessor.getBatteryDiffDataMap(
                                     mContext,
-                                    batteryUsageSlot,
+                                    mUserIdsSeries,
+                                    mHourlyBatteryLevelsPerDay,
+                                    mBatteryHistoryMap,
+                                    mAppUsagePeriodMap,
                                     getSystemAppsPackageNames(),
                                     getSystemAppsUids()));
-                }
-                batteryDiffDataMap.putAll(
-                        DataProcessor.getBatteryDiffDataMap(
-                                mContext,
-                                mUserIdsSeries,
-                                mHourlyBatteryLevelsPerDay,
-                                mBatteryHistoryMap,
-                                mAppUsagePeriodMap,
-                                getSystemAppsPackageNames(),
-                                getSystemAppsUids()));
-                // Process the reattributate data for the following two cases:
-                // 1) the latest slot for the timestamp "until now"
-                // 2) walkthrough all BatteryDiffData again to handle "re-compute" case
-                final PowerUsageFeatureProvider featureProvider =
-                        FeatureFactory.getFeatureFactory()
-                                .getPowerUsageFeatureProvider();
-                featureProvider.processBatteryReattributeData(
-                        mContext, batteryDiffDataMap, mBatteryEventList, mIsFromPeriodJob);
-
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute generateFinalDataAndApplyCallback size=%d in %d/ms",
-                                batteryDiffDataMap.size(), System.currentTimeMillis() - startTime));
-                return batteryDiffDataMap;
-            }
+                    // Process the reattributate data for the following two cases:
+                    // 1) the latest slot for the timestamp "until now"
+                    // 2) walkthrough all BatteryDiffData again to handle "re-compute" case
+                    final PowerUsageFeatureProvider featureProvider =
+                            FeatureFactory.getFeatureFactory().getPowerUsageFeatureProvider();
+                    featureProvider.processBatteryReattributeData(
+                            mContext, batteryDiffDataMap, mBatteryEventList, mIsFromPeriodJob);
+                    return batteryDiffDataMap;
+                },
+                this::applyCallback);
+    }
 
-            @Override
-            protected void onPostExecute(final Map<Long, BatteryDiffData> batteryDiffDataMap) {
-                if (mCallbackFunction != null) {
-                    mCallbackFunction.onBatteryDiffDataMapLoaded(batteryDiffDataMap);
-                }
-            }
-        }.execute();
+    private void applyCallback(final Map<Long, BatteryDiffData> batteryDiffDataMap) {
+        Log.d(TAG, "stage latencies in ms: " + mStageLatencies);
+        if (mCallbackFunction != null) {
+            mCallbackFunction.onBatteryDiffDataMapLoaded(batteryDiffDataMap);
+        }
+    }
+
+    /**
+     * Runs {@code loader} on the shared executor and delivers the result to {@code onLoaded} in
+     * the main thread, unless this manager is cancelled in between.
+     */
+    private <T> void executeStage(
+            final String stageName, final Supplier<T> loader, final Consumer<T> onLoaded) {
+        if (mIsCancelled) {
+            return;
+        }
+        final Future<?> future =
+                sExecutor.submit(
+                        () -> {
+                            if (mIsCancelled) {
+                                return;
+                            }
+                            final long startTime = SystemClock.elapsedRealtime();
+                            final T result = loader.get();
+                            final long latency = SystemClock.elapsedRealtime() - startTime;
+                            mStageLatencies.put(stageName, latency);
+                            Log.d(TAG, String.format("execute %s in %d/ms", stageName, latency));
+                            mMainHandler.post(
+                                    () -> {
+                                        if (!mIsCancelled) {
+                                            onLoaded.accept(result);
+                                        }
+                                    });
+                        });
+        synchronized (mPendingStages) {
+            mPendingStages.removeIf(Future::isDone);
+            mPendingStages.add(future);
+        }
     }
 
     // Whether we should load app usage data from service or database.
@@ -558,10 +561,27 @@ public class DataProcessManager {
         return mSystemAppsUids;
     }
 
+    private static ExecutorService createExecutor() {
+        final ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        MAX_CONCURRENT_STAGES,
+                        MAX_CONCURRENT_STAGES,
+                        IDLE_THREAD_KEEP_ALIVE_SECONDS,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        runnable -> {
+                            final Thread thread = new Thread(runnable, TAG);
+                            thread.setPriority(Thread.NORM_PRIORITY - 1);
+                            return thread;
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
-     * @return Returns battery level data and start async task to compute battery diff usage data
-     *     and load app labels + icons. Returns null if the input is invalid or not having at least
-     *     2 hours data.
+     * @return Returns battery level data and start the loader stages to compute battery diff usage
+     *     data and load app labels + icons. Returns null if the input is invalid or not having at
+     *     least 2 hours data.
      */
     @Nullable
     public static BatteryLevelData getBatteryLevelData(
@@ -569,6 +589,26 @@ public class DataProcessManager {
             final UserIdsSeries userIdsSeries,
             final boolean isFromPeriodJob,
             final OnBatteryDiffDataMapLoadedListener onBatteryUsageMapLoadedListener) {
+        return getBatteryLevelData(
+                context,
+                userIdsSeries,
+                isFromPeriodJob,
+                onBatteryUsageMapLoadedListener,
+                /* cancellationSignal= */ null);
+    }
+
+    /**
+     * Same as {@link #getBatteryLevelData(Context, UserIdsSeries, boolean,
+     * OnBatteryDiffDataMapLoadedListener)}, but the started stages are cancelled once the {@code
+     * cancellationSignal} is cancelled.
+     */
+    @Nullable
+    public static BatteryLevelData getBatteryLevelData(
+            Context context,
+            final UserIdsSeries userIdsSeries,
+            final boolean isFromPeriodJob,
+            final OnBatteryDiffDataMapLoadedListener onBatteryUsageMapLoadedListener,
+            @Nullable final CancellationSignal cancellationSignal) {
         final long start = System.currentTimeMillis();
         final long lastFullChargeTime = DatabaseUtils.getLastFullChargeTime(context);
         final List<BatteryEvent> batteryLevelRecordEvents =
@@ -589,7 +629,8 @@ public class DataProcessManager {
                         startTimestamp,
                         lastFullChargeTime,
                         isFromPeriodJob,
-                        onBatteryUsageMapLoadedListener);
+                        onBatteryUsageMapLoadedListener,
+                        cancellationSignal);
         Log.d(
                 TAG,
                 String.format(
@@ -608,7 +649,8 @@ public class DataProcessManager {
             final long startTimestamp,
             final long lastFullChargeTime,
             final boolean isFromPeriodJob,
-            final OnBatteryDiffDataMapLoadedListener onBatteryDiffDataMapLoadedListener) {
+            final OnBatteryDiffDataMapLoadedListener onBatteryDiffDataMapLoadedListener,
+            @Nullable final CancellationSignal cancellationSignal) {
         final long currentTime = System.currentTimeMillis();
         Log.d(
                 TAG,
@@ -631,8 +673,10 @@ public class DataProcessManager {
                                 lastFullChargeTime);
         if (batteryHistoryMap == null || batteryHistoryMap.isEmpty()) {
             Log.d(TAG, "batteryHistoryMap is null in getPeriodBatteryLevelData()");
-            new DataProcessManager(context, userIdsSeries, onBatteryDiffDataMapLoadedListener)
-                    .start();
+            startDataProcessManager(
+                    new DataProcessManager(
+                            context, userIdsSeries, onBatteryDiffDataMapLoadedListener),
+                    cancellationSignal);
             return null;
         }
 
@@ -660,14 +704,17 @@ public class DataProcessManager {
                 DataProcessor.getLevelDataThroughProcessedHistoryMap(
                         context, processedBatteryHistoryMap);
         if (batteryLevelData == null) {
-            new DataProcessManager(context, userIdsSeries, onBatteryDiffDataMapLoadedListener)
-                    .start();
+            startDataProcessManager(
+                    new DataProcessManager(
+                            context, userIdsSeries, onBatteryDiffDataMapLoadedListener),
+                    cancellationSignal);
             Log.d(TAG, "getBatteryLevelData() returns null");
             return null;
         }
 
-        // Start the async task to compute diff usage data and load labels and icons.
-        new DataProcessManager(
+        // Start the stages to compute diff usage data and load labels and icons.
+        startDataProcessManager(
+                new DataProcessManager(
                         context,
                         userIdsSeries,
                         isFromPeriodJob,
@@ -675,9 +722,22 @@ public class DataProcessManager {
                         lastFullChargeTime,
                         onBatteryDiffDataMapLoadedListener,
                         batteryLevelData.getHourlyBatteryLevelsPerDay(),
-                        processedBatteryHistoryMap)
-                .start();
+                        processedBatteryHistoryMap),
+                cancellationSignal);
 
         return batteryLevelData;
     }
+
+    private static void startDataProcessManager(
+            final DataProcessManager dataProcessManager,
+            @Nullable final CancellationSignal cancellationSignal) {
+        if (cancellationSignal != null) {
+            if (cancellationSignal.isCanceled()) {
+                Log.d(TAG, "cancellationSignal is canceled, skip starting DataProcessManager");
+                return;
+            }
+            cancellationSignal.setOnCancelListener(dataProcessManager::cancel);
+        }
+        dataProcessManager.start();
+    }
 }
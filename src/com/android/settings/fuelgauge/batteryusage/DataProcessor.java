@@ -68,7 +68,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * A utility class to process data loaded from database and make the data easy to use for battery
@@ -737,8 +736,10 @@ public final class DataProcessor {
             return null;
         }
 
-        final Map<Long, Map<String, List<AppUsagePeriod>>> allUsagePeriods = new ArrayMap<>();
-
+        // Collects the usage periods of all instances into one buffer for each user-package pair
+        // and converts them into protos only after merging.
+        final Map<Long, Map<String, AppUsagePeriodBuffer>> usagePeriodBuffers = new ArrayMap<>();
+        final AppUsagePeriodBuffer instanceUsagePeriods = new AppUsagePeriodBuffer();
         for (int i = 0; i < usageEventsByInstanceId.size(); i++) {
             // The usage periods for an instance are determined by the usage events with its
             // instance id and any device-wide events such as device shutdown.
@@ -761,25 +762,32 @@ public final class DataProcessor {
             Collections.sort(usageEvents, APP_USAGE_EVENT_TIMESTAMP_COMPARATOR);
 
             // A package might have multiple instances. Computes the usage period per instance id
-            // and then merges them into the same user-package map.
-            final List<AppUsagePeriod> usagePeriodList =
-                    excludePowerConnectedTimeFromAppUsagePeriodList(
-                            buildAppUsagePeriodListPerInstance(usageEvents, startTime, endTime),
-                            batteryEventList);
-            if (!usagePeriodList.isEmpty()) {
-                addToUsagePeriodMap(allUsagePeriods, usagePeriodList, eventUserId, packageName);
+            // and then merges them into the same user-package buffer.
+            instanceUsagePeriods.clear();
+            buildAppUsagePeriodsPerInstance(usageEvents, startTime, endTime, instanceUsagePeriods);
+            if (instanceUsagePeriods.size() == 0) {
+                continue;
             }
+            usagePeriodBuffers
+                    .computeIfAbsent(eventUserId, key -> new ArrayMap<>())
+                    .computeIfAbsent(packageName, key -> new AppUsagePeriodBuffer())
+                    .addExcludingPowerConnectedTime(instanceUsagePeriods, batteryEventList);
         }
 
-        // Sorts all usage periods by start time.
-        for (final long userId : allUsagePeriods.keySet()) {
-            if (allUsagePeriods.get(userId) == null) {
-                continue;
-            }
-            for (final String packageName : allUsagePeriods.get(userId).keySet()) {
-                Collections.sort(
-                        allUsagePeriods.get(userId).get(packageName),
-                        Comparator.comparing(AppUsagePeriod::getStartTime));
+        // Sorts and merges all usage periods by start time.
+        final Map<Long, Map<String, List<AppUsagePeriod>>> allUsagePeriods = new ArrayMap<>();
+        for (Map.Entry<Long, Map<String, AppUsagePeriodBuffer>> userEntry :
+                usagePeriodBuffers.entrySet()) {
+            for (Map.Entry<String, AppUsagePeriodBuffer> packageEntry :
+                    userEntry.getValue().entrySet()) {
+                final AppUsagePeriodBuffer usagePeriods = packageEntry.getValue();
+                if (usagePeriods.size() == 0) {
+                    continue;
+                }
+                usagePeriods.sortAndMerge();
+                allUsagePeriods
+                        .computeIfAbsent(userEntry.getKey(), key -> new ArrayMap<>())
+                        .put(packageEntry.getKey(), usagePeriods.toAppUsagePeriodList());
             }
         }
         return allUsagePeriods.isEmpty() ? null : allUsagePeriods;
@@ -788,101 +796,64 @@ public final class DataProcessor {
     @VisibleForTesting
     static List<AppUsagePeriod> buildAppUsagePeriodListPerInstance(
             final List<AppUsageEvent> usageEvents, final long startTime, final long endTime) {
-        final List<AppUsagePeriod> usagePeriodList = new ArrayList<>();
-        AppUsagePeriod.Builder pendingUsagePeriod = AppUsagePeriod.newBuilder();
+        final AppUsagePeriodBuffer usagePeriods = new AppUsagePeriodBuffer();
+        buildAppUsagePeriodsPerInstance(usageEvents, startTime, endTime, usagePeriods);
+        return usagePeriods.toAppUsagePeriodList();
+    }
 
-        for (final AppUsageEvent event : usageEvents) {
+    @VisibleForTesting
+    static List<AppUsagePeriod> excludePowerConnectedTimeFromAppUsagePeriodList(
+            final List<AppUsagePeriod> usagePeriodList, final List<BatteryEvent> batteryEventList) {
+        final AppUsagePeriodBuffer resultPeriods = new AppUsagePeriodBuffer();
+        resultPeriods.addExcludingPowerConnectedTime(
+                AppUsagePeriodBuffer.fromAppUsagePeriodList(usagePeriodList), batteryEventList);
+        return resultPeriods.toAppUsagePeriodList();
+    }
+
+    private static void buildAppUsagePeriodsPerInstance(
+            final List<AppUsageEvent> usageEvents,
+            final long startTime,
+            final long endTime,
+            final AppUsagePeriodBuffer usagePeriods) {
+        boolean hasPendingStartTime = false;
+        long pendingStartTime = 0;
+
+        for (int index = 0; index < usageEvents.size(); index++) {
+            final AppUsageEvent event = usageEvents.get(index);
             final long eventTime = event.getTimestamp();
 
             if (event.getType() == AppUsageEventType.ACTIVITY_RESUMED) {
                 // If there is an existing start time, simply ignore this start event.
                 // If there was no start time, then start a new period.
-                if (!pendingUsagePeriod.hasStartTime()) {
-                    pendingUsagePeriod.setStartTime(eventTime);
+                if (!hasPendingStartTime) {
+                    pendingStartTime = eventTime;
+                    hasPendingStartTime = true;
                 }
             } else if (event.getType() == AppUsageEventType.ACTIVITY_STOPPED) {
-                pendingUsagePeriod.setEndTime(eventTime);
-                if (!pendingUsagePeriod.hasStartTime()) {
-                    pendingUsagePeriod.setStartTime(
-                            getStartTimeForIncompleteUsagePeriod(pendingUsagePeriod));
+                if (!hasPendingStartTime) {
+                    pendingStartTime = getStartTimeForIncompleteUsagePeriod(eventTime);
                 }
                 // If we already have start time, add it directly.
-                validateAndAddToPeriodList(
-                        usagePeriodList, pendingUsagePeriod.build(), startTime, endTime);
-                pendingUsagePeriod.clear();
+                usagePeriods.addTrimmed(pendingStartTime, eventTime, startTime, endTime);
+                hasPendingStartTime = false;
             } else if (event.getType() == AppUsageEventType.DEVICE_SHUTDOWN) {
                 // The end event might be lost when device is shutdown. Use the estimated end
                 // time for the period.
-                if (pendingUsagePeriod.hasStartTime()) {
-                    pendingUsagePeriod.setEndTime(
-                            getEndTimeForIncompleteUsagePeriod(pendingUsagePeriod, eventTime));
-                    validateAndAddToPeriodList(
-                            usagePeriodList, pendingUsagePeriod.build(), startTime, endTime);
-                    pendingUsagePeriod.clear();
+                if (hasPendingStartTime) {
+                    usagePeriods.addTrimmed(
+                            pendingStartTime,
+                            getEndTimeForIncompleteUsagePeriod(pendingStartTime, eventTime),
+                            startTime,
+                            endTime);
+                    hasPendingStartTime = false;
                 }
             }
         }
         // If there exists unclosed period, the stop event might happen in the next time
         // slot. Use the endTime for the period.
-        if (pendingUsagePeriod.hasStartTime() && pendingUsagePeriod.getStartTime() < endTime) {
-            pendingUsagePeriod.setEndTime(endTime);
-            validateAndAddToPeriodList(
-                    usagePeriodList, pendingUsagePeriod.build(), startTime, endTime);
-            pendingUsagePeriod.clear();
-        }
-        return usagePeriodList;
-    }
-
-    @VisibleForTesting
-    static List<AppUsagePeriod> excludePowerConnectedTimeFromAppUsagePeriodList(
-            final List<AppUsagePeriod> usagePeriodList, final List<BatteryEvent> batteryEventList) {
-        final List<AppUsagePeriod> resultList = new ArrayList<>();
-        int index = 0;
-        for (AppUsagePeriod inputPeriod : usagePeriodList) {
-            long lastStartTime = inputPeriod.getStartTime();
-            while (index < batteryEventList.size()) {
-                BatteryEvent batteryEvent = batteryEventList.get(index);
-                if (batteryEvent.getTimestamp() < inputPeriod.getStartTime()) {
-                    // Because the batteryEventList has been sorted, here is to mark the power
-                    // connection state when the usage period starts. If power is connected when
-                    // the usage period starts, the starting period will be ignored; otherwise it
-                    // will be added.
-                    if (batteryEvent.getType() == BatteryEventType.POWER_CONNECTED) {
-                        lastStartTime = 0;
-                    } else if (batteryEvent.getType() == BatteryEventType.POWER_DISCONNECTED) {
-                        lastStartTime = inputPeriod.getStartTime();
-                    }
-                    index++;
-                    continue;
-                }
-                if (batteryEvent.getTimestamp() > inputPeriod.getEndTime()) {
-                    // Because the batteryEventList has been sorted, if any event is already after
-                    // the end time, all the following events should be able to drop directly.
-                    break;
-                }
-
-                if (batteryEvent.getType() == BatteryEventType.POWER_CONNECTED
-                        && lastStartTime != 0) {
-                    resultList.add(
-                            AppUsagePeriod.newBuilder()
-                                    .setStartTime(lastStartTime)
-                                    .setEndTime(batteryEvent.getTimestamp())
-                                    .build());
-                    lastStartTime = 0;
-                } else if (batteryEvent.getType() == BatteryEventType.POWER_DISCONNECTED) {
-                    lastStartTime = batteryEvent.getTimestamp();
-                }
-                index++;
-            }
-            if (lastStartTime != 0) {
-                resultList.add(
-                        AppUsagePeriod.newBuilder()
-                                .setStartTime(lastStartTime)
-                                .setEndTime(inputPeriod.getEndTime())
-                                .build());
-            }
+        if (hasPendingStartTime && pendingStartTime < endTime) {
+            usagePeriods.addTrimmed(pendingStartTime, endTime, startTime, endTime);
         }
-        return resultList;
     }
 
     @VisibleForTesting
@@ -976,55 +947,15 @@ public final class DataProcessor {
         return resultList;
     }
 
-    private static void validateAndAddToPeriodList(
-            final List<AppUsagePeriod> appUsagePeriodList,
-            final AppUsagePeriod appUsagePeriod,
-            final long startTime,
-            final long endTime) {
-        final long periodStartTime =
-                trimPeriodTime(appUsagePeriod.getStartTime(), startTime, endTime);
-        final long periodEndTime = trimPeriodTime(appUsagePeriod.getEndTime(), startTime, endTime);
-        // Only when the period is valid, add it into the list.
-        if (periodStartTime < periodEndTime) {
-            final AppUsagePeriod period =
-                    AppUsagePeriod.newBuilder()
-                            .setStartTime(periodStartTime)
-                            .setEndTime(periodEndTime)
-                            .build();
-            appUsagePeriodList.add(period);
-        }
+    /** Returns the start time that gives the period ended at {@code endTime} default duration. */
+    private static long getStartTimeForIncompleteUsagePeriod(final long endTime) {
+        return endTime - DEFAULT_USAGE_DURATION_FOR_INCOMPLETE_INTERVAL;
     }
 
-    private static long trimPeriodTime(
-            final long originalTime, final long startTime, final long endTime) {
-        long finalTime = Math.max(originalTime, startTime);
-        finalTime = Math.min(finalTime, endTime);
-        return finalTime;
-    }
-
-    private static void addToUsagePeriodMap(
-            final Map<Long, Map<String, List<AppUsagePeriod>>> usagePeriodMap,
-            final List<AppUsagePeriod> usagePeriodList,
-            final long userId,
-            final String packageName) {
-        usagePeriodMap.computeIfAbsent(userId, key -> new ArrayMap<>());
-        final Map<String, List<AppUsagePeriod>> packageNameMap = usagePeriodMap.get(userId);
-        packageNameMap.computeIfAbsent(packageName, key -> new ArrayList<>());
-        packageNameMap.get(packageName).addAll(usagePeriodList);
-    }
-
-    /** Returns the start time that gives {@code usagePeriod} the default usage duration. */
-    private static long getStartTimeForIncompleteUsagePeriod(
-            final AppUsagePeriodOrBuilder usagePeriod) {
-        return usagePeriod.getEndTime() - DEFAULT_USAGE_DURATION_FOR_INCOMPLETE_INTERVAL;
-    }
-
-    /** Returns the end time that gives {@code usagePeriod} the default usage duration. */
+    /** Returns the end time that gives the period started at {@code startTime} default duration. */
     private static long getEndTimeForIncompleteUsagePeriod(
-            final AppUsagePeriodOrBuilder usagePeriod, final long eventTime) {
-        return Math.min(
-                usagePeriod.getStartTime() + DEFAULT_USAGE_DURATION_FOR_INCOMPLETE_INTERVAL,
-                eventTime);
+            final long startTime, final long eventTime) {
+        return Math.min(startTime + DEFAULT_USAGE_DURATION_FOR_INCOMPLETE_INTERVAL, eventTime);
     }
 
     @Nullable
@@ -1546,43 +1477,11 @@ public final class DataProcessor {
         if (appUsagePeriodList == null || appUsagePeriodList.isEmpty()) {
             return 0;
         }
-        // Create a list of endpoints (the beginning or the end) of usage periods and order the list
-        // chronologically.
-        final List<AppUsageEndPoint> endPoints =
-                appUsagePeriodList.stream()
-                        .flatMap(
-                                foregroundUsage ->
-                                        Stream.of(
-                                                AppUsageEndPoint.newBuilder()
-                                                        .setTimestamp(
-                                                                foregroundUsage.getStartTime())
-                                                        .setType(AppUsageEndPointType.START)
-                                                        .build(),
-                                                AppUsageEndPoint.newBuilder()
-                                                        .setTimestamp(foregroundUsage.getEndTime())
-                                                        .setType(AppUsageEndPointType.END)
-                                                        .build()))
-                        .sorted((x, y) -> (int) (x.getTimestamp() - y.getTimestamp()))
-                        .collect(Collectors.toList());
-
-        // Traverse the list of endpoints in order to determine the non-overlapping usage duration.
-        int numberOfActiveAppUsagePeriods = 0;
-        long startOfCurrentContiguousAppUsagePeriod = 0;
-        long totalScreenOnTime = 0;
-        for (final AppUsageEndPoint endPoint : endPoints) {
-            if (endPoint.getType() == AppUsageEndPointType.START) {
-                if (numberOfActiveAppUsagePeriods++ == 0) {
-                    startOfCurrentContiguousAppUsagePeriod = endPoint.getTimestamp();
-                }
-            } else {
-                if (--numberOfActiveAppUsagePeriods == 0) {
-                    totalScreenOnTime +=
-                            (endPoint.getTimestamp() - startOfCurrentContiguousAppUsagePeriod);
-                }
-            }
-        }
-
-        return totalScreenOnTime;
+        // Merges the overlapping usage periods to determine the non-overlapping usage duration.
+        final AppUsagePeriodBuffer usagePeriods =
+                AppUsagePeriodBuffer.fromAppUsagePeriodList(appUsagePeriodList);
+        usagePeriods.sortAndMerge();
+        return usagePeriods.getTotalDuration();
     }
 
     private static boolean isConsumedFromOtherUsers(
@@ -154,6 +154,12 @@ public final class DatabaseUtils {
 
     private DatabaseUtils() {}
 
+    /** A consumer to receive the battery history snapshots in the ascending order of time. */
+    interface BatteryHistorySnapshotConsumer {
+        /** Receives all the {@link BatteryHistEntry} recorded at the same {@code timestamp}. */
+        void onSnapshot(long timestamp, Map<String, BatteryHistEntry> snapshot);
+    }
+
     /** Returns the latest timestamp current user data in app usage event table. */
     public static long getAppUsageStartTimestampOfUser(
             Context context, final long userId, final long earliestTimestamp) {
@@ -340,6 +346,32 @@ public final class DatabaseUtils {
     @VisibleForTesting
     static Map<Long, Map<String, BatteryHistEntry>> getHistoryMapSinceQueryTimestamp(
             Context context, final long queryTimestamp) {
+        final Map<Long, Map<String, BatteryHistEntry>> resultMap = new ArrayMap<>();
+        streamHistorySinceQueryTimestamp(
+                context,
+                queryTimestamp,
+                (timestamp, snapshot) -> {
+                    final Map<String, BatteryHistEntry> batteryHistEntryMap =
+                            resultMap.get(timestamp);
+                    // Creates new one if there is no corresponding map.
+                    if (batteryHistEntryMap == null) {
+                        resultMap.put(timestamp, snapshot);
+                    } else {
+                        batteryHistEntryMap.putAll(snapshot);
+                    }
+                });
+        return resultMap;
+    }
+
+    /**
+     * Reads the battery history after the given timestamp and folds it into {@code consumer}
+     * snapshot by snapshot, so the caller could drop the snapshots it doesn't need while reading.
+     */
+    @VisibleForTesting
+    static void streamHistorySinceQueryTimestamp(
+            Context context,
+            final long queryTimestamp,
+            final BatteryHistorySnapshotConsumer consumer) {
         final long startTime = System.currentTimeMillis();
         // Builds the content uri everytime to avoid cache.
         final Uri batteryStateUri =
@@ -350,38 +382,54 @@ public final class DatabaseUtils {
                         .appendQueryParameter(QUERY_KEY_TIMESTAMP, Long.toString(queryTimestamp))
                         .build();
 
-        final List<BatteryHistEntry> batteryHistEntryList =
-                loadListFromContentProvider(
-                        context, batteryStateUri, cursor -> new BatteryHistEntry(cursor));
-        final Map<Long, Map<String, BatteryHistEntry>> resultMap = new ArrayMap();
-        for (final BatteryHistEntry entry : batteryHistEntryList) {
-            final long timestamp = entry.mTimestamp;
-            final String key = entry.getKey();
-            Map batteryHistEntryMap = resultMap.get(timestamp);
-            // Creates new one if there is no corresponding map.
-            if (batteryHistEntryMap == null) {
-                batteryHistEntryMap = new ArrayMap();
-                resultMap.put(timestamp, batteryHistEntryMap);
-            }
-            batteryHistEntryMap.put(key, entry);
-        }
-
-        if (resultMap == null || resultMap.isEmpty()) {
+        final int snapshotCount =
+                loadFromContentProvider(
+                        context,
+                        batteryStateUri,
+                        /* defaultValue= */ 0,
+                        cursor -> {
+                            // The rows are sorted by timestamp, groups the rows with the same
+                            // timestamp into one snapshot.
+                            int count = 0;
+                            long snapshotTimestamp = 0L;
+                            Map<String, BatteryHistEntry> snapshot = null;
+                            while (cursor.moveToNext()) {
+                                final BatteryHistEntry entry = new BatteryHistEntry(cursor);
+                                if (snapshot == null || entry.mTimestamp != snapshotTimestamp) {
+                                    if (snapshot != null) {
+                                        consumer.onSnapshot(snapshotTimestamp, snapshot);
+                                        count++;
+                                    }
+                                    snapshotTimestamp = entry.mTimestamp;
+                                    snapshot = new ArrayMap<>();
+                                }
+                                snapshot.put(entry.getKey(), entry);
+                            }
+                            if (snapshot != null) {
+                                consumer.onSnapshot(snapshotTimestamp, snapshot);
+                                count++;
+                            }
+                            return count;
+                        });
+
+        if (snapshotCount == 0) {
             Log.d(TAG, "getBatteryHistoryMap() returns empty or null");
         } else {
             Log.d(
                     TAG,
                     String.format(
                             "getBatteryHistoryMap() size=%d in %d/ms",
-                            resultMap.size(), (System.currentTimeMillis() - startTime)));
+                            snapshotCount, (System.currentTimeMillis() - startTime)));
         }
-        return resultMap;
     }
 
     /**
      * Returns the battery history map since the latest record no later than the given timestamp. If
      * there is no record before the given timestamp or the given timestamp is before last full
      * charge time, returns the history map since last full charge time.
+     *
+     * <p>Only the snapshots needed to interpolate the hourly slots are kept, please see {@link
+     * BatteryHistorySlotCollector}.
      */
     public static Map<Long, Map<String, BatteryHistEntry>>
             getHistoryMapSinceLatestRecordBeforeQueryTimestamp(
@@ -400,7 +448,9 @@ public final class DatabaseUtils {
                 Math.max(
                         Math.max(sixDaysAgoTimestamp, lastFullChargeTime),
                         batteryStateLatestTimestamp);
-        return getHistoryMapSinceQueryTimestamp(context, maxTimestamp);
+        final BatteryHistorySlotCollector collector = new BatteryHistorySlotCollector();
+        streamHistorySinceQueryTimestamp(context, maxTimestamp, collector);
+        return collector.getBatteryHistoryMap();
     }
 
     /** Returns the history map since last full charge time. */
@@ -423,6 +473,7 @@ public final class DatabaseUtils {
                         database.batteryStateDao().clearAll();
                         database.batteryUsageSlotDao().clearAll();
                         database.batteryReattributeDao().clearAll();
+                        BatteryUsageSlotCache.invalidate();
                     } catch (RuntimeException e) {
                         Log.e(TAG, "clearAll() failed", e);
                     }
@@ -441,6 +492,7 @@ public final class DatabaseUtils {
                         database.batteryStateDao().clearAllAfter(startTimestamp);
                         database.batteryUsageSlotDao().clearAllAfter(startTimestamp);
                         database.batteryReattributeDao().clearAllAfter(startTimestamp);
+                        BatteryUsageSlotCache.invalidate();
                     } catch (RuntimeException e) {
                         Log.e(TAG, "clearAllAfter() failed", e);
                     }
@@ -456,6 +508,7 @@ public final class DatabaseUtils {
                                 BatteryStateDatabase.getInstance(context.getApplicationContext());
                         database.batteryEventDao().clearEvenHourEvent();
                         database.batteryUsageSlotDao().clearAll();
+                        BatteryUsageSlotCache.invalidate();
                     } catch (RuntimeException e) {
                         Log.e(TAG, "clearEvenHourCacheData() failed", e);
                     }
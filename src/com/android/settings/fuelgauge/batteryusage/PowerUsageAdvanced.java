@@ -23,6 +23,7 @@ import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.os.Handler;
 import android.os.Looper;
 import android.provider.SearchIndexableResource;
@@ -70,6 +71,8 @@ public class PowerUsageAdvanced extends PowerUsageBase {
     private boolean mIsChartDataLoaded = false;
     private long mResumeTimestamp;
     private Map<Integer, Map<Integer, BatteryDiffData>> mBatteryUsageMap;
+    // Cancels the pending loader stages of the previous battery usage data loading.
+    private CancellationSignal mCancellationSignal;
 
     private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
     private final Handler mHandler = new Handler(Looper.getMainLooper());
@@ -137,6 +140,12 @@ public class PowerUsageAdvanced extends PowerUsageBase {
         }
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        cancelBatteryDiffDataLoading();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
@@ -195,6 +204,19 @@ public class PowerUsageAdvanced extends PowerUsageBase {
         }
     }
 
+    private synchronized CancellationSignal renewCancellationSignal() {
+        cancelBatteryDiffDataLoading();
+        mCancellationSignal = new CancellationSignal();
+        return mCancellationSignal;
+    }
+
+    private synchronized void cancelBatteryDiffDataLoading() {
+        if (mCancellationSignal != null) {
+            mCancellationSignal.cancel();
+            mCancellationSignal = null;
+        }
+    }
+
     private void onBatteryLevelDataUpdate(BatteryLevelData batteryLevelData) {
         if (!isResumed()) {
             return;
@@ -507,7 +529,8 @@ public class PowerUsageAdvanced extends PowerUsageBase {
                             getContext(),
                             new UserIdsSeries(getContext(), /* isNonUIRequest= */ false),
                             /* isFromPeriodJob= */ false,
-                            PowerUsageAdvanced.this::onBatteryDiffDataMapUpdate);
+                            PowerUsageAdvanced.this::onBatteryDiffDataMapUpdate,
+                            renewCancellationSignal());
                 }
             };
         }
@@ -120,7 +120,7 @@ public final class LogUtils {
                 writer,
                 entities,
                 entity ->
-                        BatteryUtils.parseProtoFromString(
+                        BatteryUtils.parseProtoFromBytes(
                                 entity.batteryUsageSlot, BatteryUsageSlot.getDefaultInstance()));
     }
 
@@ -38,7 +38,7 @@ public class BatteryReattributeEntity {
     public final long timestampEnd;
 
     /** The battery usage reattribution data for corresponding  uids. */
-    @NonNull public final String reattributeData;
+    @NonNull public final byte[] reattributeData;
 
     public BatteryReattributeEntity(@NonNull BatteryReattribute batteryReattribute) {
         this(
@@ -49,7 +49,7 @@ public class BatteryReattributeEntity {
 
     @VisibleForTesting
     BatteryReattributeEntity(
-            long timestampStart, long timestampEnd, @NonNull String reattributeData) {
+            long timestampStart, long timestampEnd, @NonNull byte[] reattributeData) {
         this.timestampStart = timestampStart;
         this.timestampEnd = timestampEnd;
         this.reattributeData = reattributeData;
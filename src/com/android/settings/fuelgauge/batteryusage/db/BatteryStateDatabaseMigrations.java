@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/** Schema migrations for the {@link BatteryStateDatabase}. */
+public final class BatteryStateDatabaseMigrations {
+    private static final String TAG = "BatteryStateDatabaseMigrations";
+    private static final String LEGACY_TABLE_SUFFIX = "_legacy";
+
+    /**
+     * Migrates the serialized proto columns from Base64 encoded TEXT into raw BLOB, so reading
+     * the history does not need to decode every row again.
+     */
+    public static final Migration MIGRATION_3_4 =
+            new Migration(3, 4) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase database) {
+                    migrateTable(
+                            database,
+                            "BatteryState",
+                            "CREATE TABLE IF NOT EXISTS `BatteryState` ("
+                                    + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                                    + "`uid` INTEGER NOT NULL, "
+                                    + "`userId` INTEGER NOT NULL, "
+                                    + "`packageName` TEXT, "
+                                    + "`timestamp` INTEGER NOT NULL, "
+                                    + "`consumerType` INTEGER NOT NULL, "
+                                    + "`isFullChargeCycleStart` INTEGER NOT NULL, "
+                                    + "`batteryInformation` BLOB, "
+                                    + "`batteryInformationDebug` TEXT)",
+                            "batteryInformation");
+                    migrateTable(
+                            database,
+                            "BatteryUsageSlotEntity",
+                            "CREATE TABLE IF NOT EXISTS `BatteryUsageSlotEntity` ("
+                                    + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                                    + "`timestamp` INTEGER NOT NULL, "
+                                    + "`batteryUsageSlot` BLOB)",
+                            BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT);
+                    migrateTable(
+                            database,
+                            "BatteryReattributeEntity",
+                            "CREATE TABLE IF NOT EXISTS `BatteryReattributeEntity` ("
+                                    + "`timestampStart` INTEGER NOT NULL, "
+                                    + "`timestampEnd` INTEGER NOT NULL, "
+                                    + "`reattributeData` BLOB NOT NULL, "
+                                    + "PRIMARY KEY(`timestampStart`))",
+                            "reattributeData");
+                }
+            };
+
+    /** All migrations supported by the {@link BatteryStateDatabase}. */
+    public static final Migration[] ALL_MIGRATIONS = {MIGRATION_3_4};
+
+    private BatteryStateDatabaseMigrations() {}
+
+    /**
+     * Recreates {@code tableName} with {@code createTableSql} and copies all rows into it, while
+     * decoding the Base64 encoded {@code protoColumn} into raw bytes.
+     */
+    @VisibleForTesting
+    static void migrateTable(
+            SupportSQLiteDatabase database,
+            String tableName,
+            String createTableSql,
+            String protoColumn) {
+        final String legacyTableName = tableName + LEGACY_TABLE_SUFFIX;
+        database.execSQL("ALTER TABLE `" + tableName + "` RENAME TO `" + legacyTableName + "`");
+        database.execSQL(createTableSql);
+        int migratedCount = 0;
+        try (Cursor cursor = database.query("SELECT * FROM `" + legacyTableName + "`")) {
+            final String[] columnNames = cursor.getColumnNames();
+            while (cursor.moveToNext()) {
+                final ContentValues values = new ContentValues(columnNames.length);
+                for (int index = 0; index < columnNames.length; index++) {
+                    final String columnName = columnNames[index];
+                    if (columnName.equals(protoColumn)) {
+                        values.put(columnName, decodeLegacyProto(cursor, index));
+                        continue;
+                    }
+                    switch (cursor.getType(index)) {
+                        case Cursor.FIELD_TYPE_INTEGER:
+                            values.put(columnName, cursor.getLong(index));
+                            break;
+                        case Cursor.FIELD_TYPE_FLOAT:
+                            values.put(columnName, cursor.getDouble(index));
+                            break;
+                        case Cursor.FIELD_TYPE_BLOB:
+                            values.put(columnName, cursor.getBlob(index));
+                            break;
+                        case Cursor.FIELD_TYPE_NULL:
+                            values.putNull(columnName);
+                            break;
+                        default:
+                            values.put(columnName, cursor.getString(index));
+                            break;
+                    }
+                }
+                database.insert(tableName, SQLiteDatabase.CONFLICT_REPLACE, values);
+                migratedCount++;
+            }
+        }
+        database.execSQL("DROP TABLE `" + legacyTableName + "`");
+        Log.d(TAG, "migrate " + migratedCount + " rows into BLOB for table " + tableName);
+    }
+
+    private static byte[] decodeLegacyProto(Cursor cursor, int columnIndex) {
+        if (cursor.getType(columnIndex) == Cursor.FIELD_TYPE_BLOB) {
+            return cursor.getBlob(columnIndex);
+        }
+        final String encodedProto = cursor.getString(columnIndex);
+        if (encodedProto == null || encodedProto.isEmpty()) {
+            return new byte[0];
+        }
+        try {
+            return Base64.decode(encodedProto, Base64.DEFAULT);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "failed to decode legacy proto: " + cursor.getColumnName(columnIndex), e);
+            return new byte[0];
+        }
+    }
+}
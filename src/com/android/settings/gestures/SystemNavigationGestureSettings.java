@@ -190,7 +190,7 @@ public class SystemNavigationGestureSettings extends RadioButtonPickerFragment i
                 || KEY_SYSTEM_NAV_3BUTTONS.equals(info.getKey()))
                 // Don't add the settings button if that page will be blank.
                 && !PreferenceControllerListHelper.areAllPreferencesUnavailable(
-                        getContext(), getPreferenceManager(), R.xml.button_navigation_settings)) {
+                        getContext(), R.xml.button_navigation_settings)) {
             pref.setExtraWidgetOnClickListener((v) ->
                     new SubSettingLauncher(getContext())
                             .setDestination(ButtonNavigationSettingsFragment.class.getName())
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the phases of the last {@link SettingsHomepageActivity} startup with
+ * {@link SystemClock#elapsedRealtime()} timestamps, for dumpsys.
+ *
+ * A trace is started in {@link SettingsHomepageActivity#onCreate}. Only the first occurrence of
+ * each phase after that is recorded, so later reloads do not overwrite the startup numbers.
+ * Phases may nest, e.g. {@link #PHASE_DISPLAY_PREFERENCE} runs inside
+ * {@link #PHASE_TOP_LEVEL_INFLATION}.
+ */
+public final class HomepageStartupTrace {
+
+    public static final String PHASE_ACTIVITY_CREATE = "activity_create";
+    public static final String PHASE_CATEGORY_LOAD = "category_load";
+    public static final String PHASE_TOP_LEVEL_INFLATION = "top_level_inflation";
+    public static final String PHASE_DISPLAY_PREFERENCE = "display_preference";
+    public static final String PHASE_CARD_LOAD = "card_load";
+    public static final String PHASE_FIRST_DRAW = "first_draw";
+
+    @VisibleForTesting
+    static final String KEY_START_ELAPSED_MS = "start_elapsed_ms";
+    @VisibleForTesting
+    static final String KEY_PROCESS_START_ELAPSED_MS = "process_start_elapsed_ms";
+    @VisibleForTesting
+    static final String KEY_PHASES = "phases";
+    @VisibleForTesting
+    static final String KEY_BEGIN_MS = "begin_ms";
+    @VisibleForTesting
+    static final String KEY_END_MS = "end_ms";
+
+    private static final Map<String, Phase> sPhases = new LinkedHashMap<>();
+    private static long sStartTime;
+    private static boolean sStarted;
+
+    private HomepageStartupTrace() {
+    }
+
+    /**
+     * Starts a new trace, dropping the phases of the previous one.
+     */
+    public static synchronized void start() {
+        sPhases.clear();
+        sStartTime = SystemClock.elapsedRealtime();
+        sStarted = true;
+    }
+
+    /**
+     * Marks the beginning of {@code phase}, unless it was already recorded in this trace.
+     */
+    public static synchronized void begin(String phase) {
+        if (!sStarted || sPhases.containsKey(phase)) {
+            return;
+        }
+        sPhases.put(phase, new Phase(SystemClock.elapsedRealtime()));
+    }
+
+    /**
+     * Marks the end of {@code phase}, if it was begun and not yet ended in this trace.
+     */
+    public static synchronized void end(String phase) {
+        final Phase entry = sPhases.get(phase);
+        if (entry == null || entry.mEnd >= 0) {
+            return;
+        }
+        entry.mEnd = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Records {@code phase} as a single point in time.
+     */
+    public static synchronized void mark(String phase) {
+        begin(phase);
+        end(phase);
+    }
+
+    /**
+     * @return the phases of the last trace, with times relative to the start of the trace. A
+     * phase which has not ended yet has no {@link #KEY_END_MS}.
+     */
+    public static synchronized JSONObject toJson() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        if (!sStarted) {
+            return obj;
+        }
+        obj.put(KEY_START_ELAPSED_MS, sStartTime);
+        obj.put(KEY_PROCESS_START_ELAPSED_MS, Process.getStartElapsedRealtime());
+        final JSONObject phases = new JSONObject();
+        for (Map.Entry<String, Phase> entry : sPhases.entrySet()) {
+            final Phase phase = entry.getValue();
+            final JSONObject phaseObj = new JSONObject();
+            phaseObj.put(KEY_BEGIN_MS, phase.mBegin - sStartTime);
+            if (phase.mEnd >= 0) {
+                phaseObj.put(KEY_END_MS, phase.mEnd - sStartTime);
+            }
+            phases.put(entry.getKey(), phaseObj);
+        }
+        obj.put(KEY_PHASES, phases);
+        return obj;
+    }
+
+    @VisibleForTesting
+    static synchronized void clear() {
+        sPhases.clear();
+        sStartTime = 0;
+        sStarted = false;
+    }
+
+    private static final class Phase {
+        final long mBegin;
+        long mEnd = -1;
+
+        Phase(long begin) {
+            mBegin = begin;
+        }
+    }
+}
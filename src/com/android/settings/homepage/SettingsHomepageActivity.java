@@ -42,6 +42,7 @@ import android.util.ArraySet;
 import android.util.FeatureFlagUtils;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.FrameLayout;
@@ -83,6 +84,7 @@ import com.android.settingslib.core.lifecycle.HideNonSystemOverlayMixin;
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -122,6 +124,7 @@ public class SettingsHomepageActivity extends FragmentActivity implements
     private SplitControllerCallbackAdapter mSplitControllerAdapter;
     private SplitInfoCallback mCallback;
     private boolean mAllowUpdateSuggestion = true;
+    private List<Runnable> mFirstFrameCallbacks = new ArrayList<>();
 
     /** A listener receiving homepage loaded events. */
     public interface HomepageLoadedListener {
@@ -179,6 +182,20 @@ public class SettingsHomepageActivity extends FragmentActivity implements
         homepageView.setVisibility(View.VISIBLE);
     }
 
+    /**
+     * Try to add a callback to run after the homepage draws its first frame. If the first frame
+     * is already drawn, the callback will not be run.
+     *
+     * @return Whether the callback is added.
+     */
+    public boolean addFirstFrameCallback(Runnable callback) {
+        if (mFirstFrameCallbacks == null) {
+            return false;
+        }
+        mFirstFrameCallbacks.add(callback);
+        return true;
+    }
+
     /** Returns the main content fragment */
     public TopLevelSettings getMainFragment() {
         return mMainFragment;
@@ -191,6 +208,8 @@ public class SettingsHomepageActivity extends FragmentActivity implements
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        HomepageStartupTrace.start();
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_ACTIVITY_CREATE);
         super.onCreate(savedInstanceState);
 
         // Ensure device is provisioned in order to access Settings home
@@ -254,6 +273,7 @@ public class SettingsHomepageActivity extends FragmentActivity implements
                 Flags.homepageRevamp()
                         ? R.layout.settings_homepage_container_v2
                         : R.layout.settings_homepage_container);
+        registerFirstDrawListener();
 
         mIsTwoPane = ActivityEmbeddingUtils.isAlreadyEmbedded(this);
 
@@ -306,6 +326,7 @@ public class SettingsHomepageActivity extends FragmentActivity implements
         updateSplitLayout();
 
         enableTaskLocaleOverride();
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_ACTIVITY_CREATE);
     }
 
     @VisibleForTesting
@@ -762,6 +783,30 @@ public class SettingsHomepageActivity extends FragmentActivity implements
         mMainFragment.reloadHighlightMenuKey();
     }
 
+    private void registerFirstDrawListener() {
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean mDrawn;
+
+            @Override
+            public void onDraw() {
+                if (mDrawn) {
+                    return;
+                }
+                mDrawn = true;
+                HomepageStartupTrace.mark(HomepageStartupTrace.PHASE_FIRST_DRAW);
+                // Listeners can't be removed during a draw pass, and the callbacks should not
+                // delay the frame.
+                decorView.post(() -> {
+                    decorView.getViewTreeObserver().removeOnDrawListener(this);
+                    final List<Runnable> callbacks = mFirstFrameCallbacks;
+                    mFirstFrameCallbacks = null;
+                    callbacks.forEach(Runnable::run);
+                });
+            }
+        });
+    }
+
     private void initHomepageContainer() {
         final View view = findViewById(R.id.homepage_container);
         // Prevent inner RecyclerView gets focus and invokes scrolling.
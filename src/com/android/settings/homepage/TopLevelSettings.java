@@ -26,12 +26,14 @@ import android.content.res.Configuration;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.text.TextUtils;
+import android.util.ArraySet;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LifecycleObserver;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceCategory;
 import androidx.preference.PreferenceFragmentCompat;
@@ -53,10 +55,18 @@ import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settings.support.SupportPreferenceController;
 import com.android.settings.widget.HomepagePreference;
 import com.android.settings.widget.HomepagePreferenceLayoutHelper.HomepagePreferenceLayout;
+import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.instrumentation.Instrumentable;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.search.SearchIndexable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
 @SearchIndexable(forTarget = MOBILE)
 public class TopLevelSettings extends DashboardFragment implements SplitLayoutListener,
         PreferenceFragmentCompat.OnPreferenceStartFragmentCallback {
@@ -71,6 +81,7 @@ public class TopLevelSettings extends DashboardFragment implements SplitLayoutLi
     private boolean mScrollNeeded = true;
     private boolean mFirstStarted = true;
     private ActivityEmbeddingController mActivityEmbeddingController;
+    private Set<AbstractPreferenceController> mDeferredControllers = Collections.emptySet();
 
     public TopLevelSettings() {
         final Bundle args = new Bundle();
@@ -211,17 +222,86 @@ public class TopLevelSettings extends DashboardFragment implements SplitLayoutLi
 
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_TOP_LEVEL_INFLATION);
         super.onCreatePreferences(savedInstanceState, rootKey);
-        if (Flags.homepageRevamp()) {
+        if (!Flags.homepageRevamp()) {
+            int tintColor = Utils.getHomepageIconColor(getContext());
+            iteratePreferences(preference -> {
+                Drawable icon = preference.getIcon();
+                if (icon != null) {
+                    icon.setTint(tintColor);
+                }
+            });
+        }
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_TOP_LEVEL_INFLATION);
+    }
+
+    @Override
+    protected void displayResourceTilesToScreen(PreferenceScreen screen) {
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_DISPLAY_PREFERENCE);
+        if (mDeferredControllers.isEmpty() && shouldDeferOffscreenControllers()) {
+            final Set<AbstractPreferenceController> controllers = getOffscreenControllers(screen);
+            if (!controllers.isEmpty() && ((SettingsHomepageActivity) getActivity())
+                    .addFirstFrameCallback(this::displayDeferredControllers)) {
+                Log.d(TAG, "Defer " + controllers.size() + " controllers to after first frame");
+                mDeferredControllers = controllers;
+            }
+        }
+        super.displayResourceTilesToScreen(screen);
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_DISPLAY_PREFERENCE);
+    }
+
+    @Override
+    protected boolean isPreferenceControllerDeferred(AbstractPreferenceController controller) {
+        return mDeferredControllers.contains(controller);
+    }
+
+    @VisibleForTesting
+    boolean shouldDeferOffscreenControllers() {
+        return getActivity() instanceof SettingsHomepageActivity && getResources().getBoolean(
+                R.bool.config_homepage_defer_offscreen_controllers);
+    }
+
+    /**
+     * Returns the controllers of the preferences below the first screen. Controllers observing
+     * the lifecycle are excluded, since their callbacks may expect a displayed preference.
+     */
+    @VisibleForTesting
+    Set<AbstractPreferenceController> getOffscreenControllers(PreferenceScreen screen) {
+        final int visibleCount = (int) Math.ceil(
+                (double) getResources().getDisplayMetrics().heightPixels
+                        / getResources().getDimensionPixelSize(
+                                R.dimen.homepage_preference_min_height));
+        final List<String> keys = new ArrayList<>();
+        iteratePreferencesInOrder(screen, preference -> keys.add(preference.getKey()));
+        final List<String> offscreenKeys = keys.subList(Math.min(visibleCount, keys.size()),
+                keys.size());
+
+        final Set<AbstractPreferenceController> controllers = new ArraySet<>();
+        getPreferenceControllers().stream().flatMap(Collection::stream)
+                .filter(controller -> !(controller instanceof LifecycleObserver))
+                .filter(controller -> offscreenKeys.contains(controller.getPreferenceKey()))
+                .forEach(controllers::add);
+        return controllers;
+    }
+
+    private void displayDeferredControllers() {
+        final Set<AbstractPreferenceController> controllers = mDeferredControllers;
+        mDeferredControllers = Collections.emptySet();
+        final PreferenceScreen screen = getPreferenceScreen();
+        if (screen == null || !isAdded()) {
             return;
         }
-        int tintColor = Utils.getHomepageIconColor(getContext());
-        iteratePreferences(preference -> {
-            Drawable icon = preference.getIcon();
-            if (icon != null) {
-                icon.setTint(tintColor);
+        for (AbstractPreferenceController controller : controllers) {
+            controller.displayPreference(screen);
+            if (!controller.isAvailable()) {
+                continue;
             }
-        });
+            final Preference preference = screen.findPreference(controller.getPreferenceKey());
+            if (preference != null) {
+                controller.updateState(preference);
+            }
+        }
     }
 
     @Override
@@ -385,6 +465,20 @@ public class TopLevelSettings extends DashboardFragment implements SplitLayoutLi
         }
     }
 
+    private void iteratePreferencesInOrder(PreferenceGroup group, PreferenceJob job) {
+        final List<Preference> preferences = new ArrayList<>();
+        for (int i = 0; i < group.getPreferenceCount(); i++) {
+            preferences.add(group.getPreference(i));
+        }
+        preferences.sort(Comparator.comparingInt(Preference::getOrder));
+        for (Preference preference : preferences) {
+            job.doForEach(preference);
+            if (preference instanceof PreferenceCategory) {
+                iteratePreferencesInOrder((PreferenceCategory) preference, job);
+            }
+        }
+    }
+
     private interface PreferenceJob {
         default void init() {
         }
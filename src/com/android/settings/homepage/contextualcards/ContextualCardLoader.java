@@ -26,6 +26,7 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.util.Log;
 
@@ -33,6 +34,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
+import com.android.settings.homepage.HomepageStartupTrace;
 import com.android.settings.homepage.contextualcards.logging.ContextualCardLogUtils;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -40,11 +42,12 @@ import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
 
 public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>> {
 
@@ -56,6 +59,22 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     private static final String TAG = "ContextualCardLoader";
     private static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    /**
+     * Enough threads to check a usual candidate list at once, since a check still queued at the
+     * deadline is dropped. Above this, the lowest priority cards are the ones left queued.
+     */
+    private static final int MAX_ELIGIBILITY_CHECK_THREADS = 8;
+
+    /**
+     * Runs the eligibility checks of all loaders, ordered by {@link EligibleCardCheckTask}
+     * priority. Only {@link EligibleCardCheckTask}s may be submitted.
+     */
+    @VisibleForTesting
+    static ExecutorService sEligibilityExecutor = createEligibilityExecutor();
+
+    /** Eligibility results shared by all loaders, to skip binding slices on repeat visits. */
+    @VisibleForTesting
+    static final EligibleCardCache sEligibleCardCache = new EligibleCardCache();
 
     private final ContentObserver mObserver = new ContentObserver(
             new Handler(Looper.getMainLooper())) {
@@ -72,6 +91,7 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
     Uri mNotifyUri;
 
     private final Context mContext;
+    private final List<EligibleCardCheckTask> mPendingChecks = new ArrayList<>();
 
     ContextualCardLoader(Context context) {
         super(context);
@@ -107,6 +127,7 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             Log.d(TAG, "Skipping - in legacy suggestion mode");
             return result;
         }
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_CARD_LOAD);
         try (Cursor cursor = getContextualCardsFromProvider()) {
             if (cursor.getCount() > 0) {
                 for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
@@ -119,7 +140,9 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
                 }
             }
         }
-        return getDisplayableCards(result);
+        final List<ContextualCard> displayableCards = getDisplayableCards(result);
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_CARD_LOAD);
+        return displayableCards;
     }
 
     // Get final displayed cards and log what cards will be displayed/hidden
@@ -187,42 +210,109 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             return candidates;
         }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(candidates.size());
-        final List<ContextualCard> cards = new ArrayList<>();
-        List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
-
-        final List<EligibleCardChecker> checkers = candidates.stream()
-                .map(card -> new EligibleCardChecker(mContext, card))
-                .collect(Collectors.toList());
-        try {
-            eligibleCards = executor.invokeAll(checkers, ELIGIBILITY_CHECKER_TIMEOUT_MS,
-                    TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.w(TAG, "Failed to get eligible states for all cards", e);
-        }
-        executor.shutdown();
-
-        // Collect future and eligible cards
-        for (int i = 0; i < eligibleCards.size(); i++) {
-            final Future<ContextualCard> cardFuture = eligibleCards.get(i);
-            if (cardFuture.isCancelled()) {
-                Log.w(TAG, "Timeout getting eligible state for card: "
-                        + candidates.get(i).getSliceUri());
+        final long deadline = SystemClock.elapsedRealtime() + ELIGIBILITY_CHECKER_TIMEOUT_MS;
+        final ContextualCard[] results = new ContextualCard[candidates.size()];
+        final long[] invalidationSequences = new long[candidates.size()];
+        final List<EligibleCardCheckTask> tasks = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            final ContextualCard candidate = candidates.get(i);
+            final long startTime = System.currentTimeMillis();
+            final EligibleCardCache.Entry entry =
+                    sEligibleCardCache.get(candidate.getSliceUri());
+            if (entry != null) {
+                results[i] = entry.apply(candidate);
+                EligibleCardChecker.logEligibility(candidate, results[i] != null,
+                        System.currentTimeMillis() - startTime);
                 continue;
             }
+            invalidationSequences[i] =
+                    sEligibleCardCache.startCheck(mContext, candidate.getSliceUri());
+            tasks.add(new EligibleCardCheckTask(createEligibleCardChecker(candidate), candidate,
+                    i /* sequence */));
+        }
+        synchronized (mPendingChecks) {
+            mPendingChecks.addAll(tasks);
+        }
+        tasks.forEach(sEligibilityExecutor::execute);
 
-            try {
-                final ContextualCard card = cardFuture.get();
-                if (card != null) {
-                    cards.add(card);
+        try {
+            for (EligibleCardCheckTask task : tasks) {
+                final Uri sliceUri = task.getCard().getSliceUri();
+                try {
+                    final long timeout = Math.max(0, deadline - SystemClock.elapsedRealtime());
+                    final ContextualCard card = task.get(timeout, TimeUnit.MILLISECONDS);
+                    results[task.getSequence()] = card;
+                    sEligibleCardCache.put(task.getCard(), card,
+                            invalidationSequences[task.getSequence()]);
+                } catch (TimeoutException e) {
+                    task.cancel(true /* mayInterruptIfRunning */);
+                    Log.w(TAG, "Timeout getting eligible state for card: " + sliceUri
+                            + (task.isStarted() ? ", checking" : ", still queued")
+                            + " after queue wait " + task.getQueueWaitMs()
+                            + " ms, check " + task.getCheckMs() + " ms");
+                    continue;
+                } catch (CancellationException e) {
+                    Log.d(TAG, "Eligibility check cancelled for card: " + sliceUri);
+                    continue;
+                } catch (InterruptedException e) {
+                    Log.w(TAG, "Failed to get eligible states for all cards", e);
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to get eligible state for card", e);
+                    continue;
+                }
+                if (Log.isLoggable(TAG, Log.DEBUG)) {
+                    Log.d(TAG, "Eligibility of " + sliceUri + ": queue wait "
+                            + task.getQueueWaitMs() + " ms, check " + task.getCheckMs() + " ms");
                 }
-            } catch (Exception e) {
-                Log.w(TAG, "Failed to get eligible state for card", e);
+            }
+        } finally {
+            for (EligibleCardCheckTask task : tasks) {
+                task.cancel(true /* mayInterruptIfRunning */);
+            }
+            synchronized (mPendingChecks) {
+                mPendingChecks.removeAll(tasks);
+            }
+        }
+
+        // Collect eligible cards in the candidate order
+        final List<ContextualCard> cards = new ArrayList<>();
+        for (ContextualCard card : results) {
+            if (card != null) {
+                cards.add(card);
             }
         }
         return cards;
     }
 
+    /**
+     * Cancels the pending eligibility checks, which is called when the loader is stopped, reset
+     * or abandoned.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        synchronized (mPendingChecks) {
+            for (EligibleCardCheckTask task : mPendingChecks) {
+                task.cancel(true /* mayInterruptIfRunning */);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    EligibleCardChecker createEligibleCardChecker(ContextualCard card) {
+        return new EligibleCardChecker(mContext, card);
+    }
+
+    private static ExecutorService createEligibilityExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_ELIGIBILITY_CHECK_THREADS, MAX_ELIGIBILITY_CHECK_THREADS,
+                10L /* keepAliveTime */, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private boolean isLargeCard(ContextualCard card) {
         return card.getSliceUri().equals(BLUETOOTH_DEVICES_SLICE_URI);
     }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.slice.Slice;
+
+import java.util.Map;
+
+/**
+ * Short-lived cache of {@link EligibleCardChecker} results keyed by slice {@link Uri}, so that
+ * reopening the homepage shortly after leaving it does not bind every card slice again.
+ *
+ * An entry is dropped once it is older than {@link #TTL_MS}, or as soon as a change is notified
+ * on its slice {@link Uri}, e.g. by {@link com.android.settings.slices.SliceBackgroundWorker}.
+ */
+class EligibleCardCache {
+
+    @VisibleForTesting
+    static final long TTL_MS = 10000;
+
+    private final Map<Uri, Entry> mEntries = new ArrayMap<>();
+    private final Map<Uri, ContentObserver> mObservers = new ArrayMap<>();
+    private final Map<Uri, Long> mInvalidationSequences = new ArrayMap<>();
+
+    /**
+     * @return the cached result for {@code sliceUri}, or {@code null} if there is none or it has
+     * expired.
+     */
+    @Nullable
+    synchronized Entry get(Uri sliceUri) {
+        final Entry entry = mEntries.get(sliceUri);
+        if (entry == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - entry.mTimestamp >= TTL_MS) {
+            mEntries.remove(sliceUri);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Starts observing changes on {@code sliceUri}. Must be called before checking a card, and
+     * the returned sequence passed to {@link #put} with the result, so that a change notified
+     * while the check runs is not lost.
+     */
+    long startCheck(Context context, Uri sliceUri) {
+        ContentObserver observer = null;
+        final long sequence;
+        synchronized (this) {
+            if (!mObservers.containsKey(sliceUri)) {
+                observer = new ContentObserver(null /* handler */) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        invalidate(sliceUri);
+                    }
+                };
+                mObservers.put(sliceUri, observer);
+            }
+            sequence = getInvalidationSequence(sliceUri);
+        }
+        if (observer != null) {
+            context.getApplicationContext().getContentResolver().registerContentObserver(
+                    sliceUri, false /* notifyForDescendants */, observer);
+        }
+        return sequence;
+    }
+
+    /**
+     * Caches the result of checking {@code candidate}, {@code null} if it is not eligible. The
+     * result is dropped if the slice changed since {@code sequence} was returned by
+     * {@link #startCheck}.
+     */
+    synchronized void put(ContextualCard candidate, @Nullable ContextualCard result,
+            long sequence) {
+        final Uri sliceUri = candidate.getSliceUri();
+        if (getInvalidationSequence(sliceUri) != sequence) {
+            return;
+        }
+        mEntries.put(sliceUri, new Entry(result));
+    }
+
+    /**
+     * Drops the cached result for {@code sliceUri}, and any result of a check in progress.
+     */
+    synchronized void invalidate(Uri sliceUri) {
+        mEntries.remove(sliceUri);
+        mInvalidationSequences.put(sliceUri, getInvalidationSequence(sliceUri) + 1);
+    }
+
+    private long getInvalidationSequence(Uri sliceUri) {
+        final Long sequence = mInvalidationSequences.get(sliceUri);
+        return sequence == null ? 0 : sequence;
+    }
+
+    @VisibleForTesting
+    void clear(Context context) {
+        synchronized (this) {
+            mEntries.clear();
+            mInvalidationSequences.clear();
+        }
+        for (ContentObserver observer : mObservers.values()) {
+            context.getApplicationContext().getContentResolver()
+                    .unregisterContentObserver(observer);
+        }
+        synchronized (this) {
+            mObservers.clear();
+        }
+    }
+
+    /**
+     * A cached eligibility result. Only the bound slice state is kept, so that the ranking of the
+     * current candidate is not replaced by a stale one.
+     */
+    static class Entry {
+        private final long mTimestamp;
+        private final boolean mEligible;
+        @Nullable
+        private final Slice mSlice;
+        private final boolean mHasInlineAction;
+
+        private Entry(@Nullable ContextualCard result) {
+            mTimestamp = SystemClock.elapsedRealtime();
+            mEligible = result != null;
+            mSlice = result != null ? result.getSlice() : null;
+            mHasInlineAction = result != null && result.hasInlineAction();
+        }
+
+        /**
+         * @return {@code candidate} with the cached slice state, or {@code null} if it is not
+         * eligible.
+         */
+        @Nullable
+        ContextualCard apply(ContextualCard candidate) {
+            if (!mEligible) {
+                return null;
+            }
+            final ContextualCard.Builder builder = candidate.mutate();
+            if (mSlice != null) {
+                builder.setSlice(mSlice);
+            }
+            if (mHasInlineAction) {
+                builder.setHasInlineAction(true);
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.android.settings.intelligence.ContextualCardProto.ContextualCard.Category.STICKY_VALUE;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.FutureTask;
+
+/**
+ * An {@link EligibleCardChecker} queued on the shared eligibility executor. Sticky cards run
+ * first, then cards with a higher ranking score, then in submission order. Records how long the
+ * check waited in the queue and how long the check itself took.
+ */
+class EligibleCardCheckTask extends FutureTask<ContextualCard>
+        implements Comparable<EligibleCardCheckTask> {
+
+    private final ContextualCard mCard;
+    private final int mSequence;
+    private final long mEnqueueTime;
+    private volatile long mStartTime;
+    private volatile long mEndTime;
+    private volatile boolean mStarted;
+    private volatile boolean mFinished;
+
+    EligibleCardCheckTask(EligibleCardChecker checker, ContextualCard card, int sequence) {
+        super(checker);
+        mCard = card;
+        mSequence = sequence;
+        mEnqueueTime = SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    public void run() {
+        mStartTime = SystemClock.elapsedRealtime();
+        mStarted = true;
+        try {
+            super.run();
+        } finally {
+            mEndTime = SystemClock.elapsedRealtime();
+            mFinished = true;
+        }
+    }
+
+    @Override
+    public int compareTo(@NonNull EligibleCardCheckTask other) {
+        final boolean sticky = mCard.getCategory() == STICKY_VALUE;
+        final boolean otherSticky = other.mCard.getCategory() == STICKY_VALUE;
+        if (sticky != otherSticky) {
+            return sticky ? -1 : 1;
+        }
+        final int scoreCompare =
+                Double.compare(other.mCard.getRankingScore(), mCard.getRankingScore());
+        if (scoreCompare != 0) {
+            return scoreCompare;
+        }
+        return Integer.compare(mSequence, other.mSequence);
+    }
+
+    ContextualCard getCard() {
+        return mCard;
+    }
+
+    /** Returns the position of the card in the candidate list. */
+    int getSequence() {
+        return mSequence;
+    }
+
+    /** Returns whether the check has started running. */
+    boolean isStarted() {
+        return mStarted;
+    }
+
+    /** Returns the time spent in the queue so far, or before the check started. */
+    long getQueueWaitMs() {
+        return (mStarted ? mStartTime : SystemClock.elapsedRealtime()) - mEnqueueTime;
+    }
+
+    /** Returns the time spent in the check so far, or 0 if it has not started. */
+    long getCheckMs() {
+        if (!mStarted) {
+            return 0;
+        }
+        return (mFinished ? mEndTime : SystemClock.elapsedRealtime()) - mStartTime;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency of the last {@code getNonIndexableKeys} call of each search index provider in this
+ * process, for dumpsys.
+ */
+public final class NonIndexableKeysStats {
+
+    @VisibleForTesting
+    static final String KEY_LATENCY_MS = "latency_ms";
+    @VisibleForTesting
+    static final String KEY_TIMED_OUT = "timed_out";
+
+    private static final Map<String, Entry> sEntries = new ConcurrentHashMap<>();
+
+    private NonIndexableKeysStats() {
+    }
+
+    /**
+     * Records the latency of a provider, keyed by the class name of its fragment. A call still
+     * running past its budget is recorded as timed out with the time waited so far, and again
+     * with its full latency once it finishes.
+     */
+    static void record(String className, long latencyMs, boolean timedOut) {
+        sEntries.put(className, new Entry(latencyMs, timedOut));
+    }
+
+    /**
+     * @return the recorded latency of each provider.
+     */
+    public static JSONObject toJson() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (Map.Entry<String, Entry> entry : sEntries.entrySet()) {
+            final JSONObject providerObj = new JSONObject();
+            providerObj.put(KEY_LATENCY_MS, entry.getValue().mLatencyMs);
+            providerObj.put(KEY_TIMED_OUT, entry.getValue().mTimedOut);
+            obj.put(entry.getKey(), providerObj);
+        }
+        return obj;
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sEntries.clear();
+    }
+
+    private static final class Entry {
+        final long mLatencyMs;
+        final boolean mTimedOut;
+
+        Entry(long latencyMs, boolean timedOut) {
+            mLatencyMs = latencyMs;
+            mTimedOut = timedOut;
+        }
+    }
+}
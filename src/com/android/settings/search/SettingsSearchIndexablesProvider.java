@@ -51,6 +51,7 @@ import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.net.Uri;
 import android.os.Build;
+import android.os.SystemClock;
 import android.provider.SearchIndexableResource;
 import android.provider.SearchIndexablesContract;
 import android.provider.SearchIndexablesProvider;
@@ -82,6 +83,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
 
@@ -98,6 +108,19 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
 
     private static final Collection<String> INVALID_KEYS;
 
+    /** The max number of providers evaluated at the same time for non-indexable keys. */
+    private static final int MAX_NON_INDEXABLE_KEYS_THREADS = 4;
+
+    /**
+     * Budget of a single provider for its non-indexable keys. A provider running longer is
+     * recorded as timed out in {@link NonIndexableKeysStats}, but its keys are still waited for.
+     */
+    @VisibleForTesting
+    static long sNonIndexableKeysTimeoutMs = 2000L;
+
+    @VisibleForTesting
+    static ExecutorService sNonIndexableKeysExecutor = createNonIndexableKeysExecutor();
+
     // Search enabled states for injection (key: category key, value: search enabled)
     private Map<String, Boolean> mSearchEnabledByCategoryKeyMap;
 
@@ -272,53 +295,156 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     }
 
     private List<String> getNonIndexableKeysFromProvider(Context context) {
-        final Collection<SearchIndexableData> bundles = FeatureFactory.getFeatureFactory()
-                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+        final List<SearchIndexableData> bundles = new ArrayList<>(FeatureFactory.getFeatureFactory()
+                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues());
 
-        final List<String> nonIndexableKeys = new ArrayList<>();
+        if (bundles.size() > 1 && context.getResources()
+                .getBoolean(R.bool.config_search_parallel_non_indexable_keys)) {
+            return getNonIndexableKeysInParallel(context, bundles);
+        }
 
+        final List<String> nonIndexableKeys = new ArrayList<>();
         for (SearchIndexableData bundle : bundles) {
-            final long startTime = System.currentTimeMillis();
-            Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-            List<String> providerNonIndexableKeys;
-            try {
-                providerNonIndexableKeys = provider.getNonIndexableKeys(context);
-            } catch (Exception e) {
-                String msg = "Error trying to get non-indexable keys from: "
-                        + bundle.getTargetClass().getName();
-                // Catch a generic crash. In the absence of the catch, the background thread will
-                // silently fail anyway, so we aren't losing information by catching the exception.
-                // We crash on debuggable build or when the system property exists, so that we can
-                // test if crashes need to be fixed.
-                if (Build.IS_DEBUGGABLE || System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
-                    throw new RuntimeException(msg, e);
+            nonIndexableKeys.addAll(getNonIndexableKeysWithStats(context, bundle,
+                    SystemClock.elapsedRealtime()));
+        }
+        return nonIndexableKeys;
+    }
+
+    /**
+     * Evaluates the providers on {@link #sNonIndexableKeysExecutor} and merges the keys in the
+     * provider order. Each provider is evaluated exactly once: a provider which has not started on
+     * the pool when its keys are needed is evaluated on the calling thread instead, and a running
+     * provider is waited for even past {@link #sNonIndexableKeysTimeoutMs}, so that its keys are
+     * never dropped. The overrun is logged and recorded in {@link NonIndexableKeysStats}.
+     */
+    private List<String> getNonIndexableKeysInParallel(Context context,
+            List<SearchIndexableData> bundles) {
+        final int size = bundles.size();
+        final List<Future<List<String>>> futures = new ArrayList<>(size);
+        // Whoever claims a provider first, a worker or the calling thread, evaluates it.
+        final AtomicIntegerArray claimed = new AtomicIntegerArray(size);
+        final AtomicLongArray startTimes = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            final SearchIndexableData bundle = bundles.get(i);
+            final int index = i;
+            futures.add(sNonIndexableKeysExecutor.submit(() -> {
+                final long startTime = SystemClock.elapsedRealtime();
+                if (!claimed.compareAndSet(index, 0, 1)) {
+                    return null;
                 }
-                Log.e(TAG, msg, e);
+                startTimes.set(index, startTime);
+                return getNonIndexableKeysWithStats(context, bundle, startTime);
+            }));
+        }
+
+        final List<String> nonIndexableKeys = new ArrayList<>();
+        boolean interrupted = false;
+        for (int i = 0; i < size; i++) {
+            final SearchIndexableData bundle = bundles.get(i);
+            final Future<List<String>> future = futures.get(i);
+            if (interrupted || claimed.compareAndSet(i, 0, 1)) {
+                // Not started on the pool yet, or this thread can't wait anymore.
+                future.cancel(false /* mayInterruptIfRunning */);
+                nonIndexableKeys.addAll(getNonIndexableKeysWithStats(context, bundle,
+                        SystemClock.elapsedRealtime()));
                 continue;
             }
-
-            if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
-                if (DEBUG) {
-                    final long totalTime = System.currentTimeMillis() - startTime;
-                    Log.d(TAG, "No indexable, total time " + totalTime);
+            try {
+                nonIndexableKeys.addAll(awaitNonIndexableKeys(future, bundle, startTimes.get(i)));
+            } catch (ExecutionException e) {
+                // Only the crash on debuggable builds escapes getNonIndexableKeys().
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
                 }
-                continue;
+                Log.e(TAG, "Error trying to get non-indexable keys from: "
+                        + bundle.getTargetClass().getName(), e);
+            } catch (InterruptedException e) {
+                // Keep the keys complete by evaluating the rest on this thread, even the providers
+                // still running on the pool.
+                Log.w(TAG, "Interrupted getting non-indexable keys", e);
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                nonIndexableKeys.addAll(getNonIndexableKeysWithStats(context, bundle,
+                        SystemClock.elapsedRealtime()));
             }
+        }
+        return nonIndexableKeys;
+    }
 
-            if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
-                Log.v(TAG, provider + " tried to add an empty non-indexable key");
+    /**
+     * Waits for the keys of a provider running on the pool. Once it runs past its budget, the
+     * overrun is recorded and the wait goes on without a limit.
+     */
+    private List<String> awaitNonIndexableKeys(Future<List<String>> future,
+            SearchIndexableData bundle, long startTime)
+            throws ExecutionException, InterruptedException {
+        // The start time may not be stored yet right after the worker claimed the provider.
+        final long start = startTime == 0 ? SystemClock.elapsedRealtime() : startTime;
+        final long remainingMs = start + sNonIndexableKeysTimeoutMs - SystemClock.elapsedRealtime();
+        try {
+            return future.get(Math.max(0L, remainingMs), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            final String className = bundle.getTargetClass().getName();
+            Log.w(TAG, "Non-indexable keys of " + className + " took longer than "
+                    + sNonIndexableKeysTimeoutMs + "ms, still waiting");
+            NonIndexableKeysStats.record(className, SystemClock.elapsedRealtime() - start,
+                    true /* timedOut */);
+            return future.get();
+        }
+    }
+
+    /**
+     * Same as {@link #getNonIndexableKeys(Context, SearchIndexableData)}, and records the latency
+     * since {@code startTime} in {@link NonIndexableKeysStats}.
+     */
+    private List<String> getNonIndexableKeysWithStats(Context context, SearchIndexableData bundle,
+            long startTime) {
+        final List<String> keys = getNonIndexableKeys(context, bundle);
+        final long latencyMs = SystemClock.elapsedRealtime() - startTime;
+        NonIndexableKeysStats.record(bundle.getTargetClass().getName(), latencyMs,
+                latencyMs > sNonIndexableKeysTimeoutMs /* timedOut */);
+        return keys;
+    }
+
+    private List<String> getNonIndexableKeys(Context context, SearchIndexableData bundle) {
+        final long startTime = System.currentTimeMillis();
+        Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        List<String> providerNonIndexableKeys;
+        try {
+            providerNonIndexableKeys = provider.getNonIndexableKeys(context);
+        } catch (Exception e) {
+            String msg = "Error trying to get non-indexable keys from: "
+                    + bundle.getTargetClass().getName();
+            // Catch a generic crash. In the absence of the catch, the background thread will
+            // silently fail anyway, so we aren't losing information by catching the exception.
+            // We crash on debuggable build or when the system property exists, so that we can
+            // test if crashes need to be fixed.
+            if (Build.IS_DEBUGGABLE || System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
+                throw new RuntimeException(msg, e);
             }
+            Log.e(TAG, msg, e);
+            return new ArrayList<>();
+        }
 
+        if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
             if (DEBUG) {
                 final long totalTime = System.currentTimeMillis() - startTime;
-                Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
-                        + totalTime);
+                Log.d(TAG, "No indexable, total time " + totalTime);
             }
+            return new ArrayList<>();
+        }
 
-            nonIndexableKeys.addAll(providerNonIndexableKeys);
+        if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
+            Log.v(TAG, provider + " tried to add an empty non-indexable key");
         }
 
-        return nonIndexableKeys;
+        if (DEBUG) {
+            final long totalTime = System.currentTimeMillis() - startTime;
+            Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
+                    + totalTime);
+        }
+        return providerNonIndexableKeys;
     }
 
     private List<SearchIndexableResource> getSearchIndexableResourcesFromProvider(Context context) {
@@ -389,6 +515,14 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return providerRaws;
     }
 
+    private static ExecutorService createNonIndexableKeysExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_NON_INDEXABLE_KEYS_THREADS, MAX_NON_INDEXABLE_KEYS_THREADS,
+                10L /* keepAliveTime */, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @VisibleForTesting
     List<SearchIndexableRaw> getInjectionIndexableRawData(Context context) {
         final DashboardFeatureProvider dashboardFeatureProvider =
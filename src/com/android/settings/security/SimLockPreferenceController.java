@@ -32,7 +32,8 @@ import com.android.settings.network.SubscriptionUtil;
 
 import java.util.List;
 
-public class SimLockPreferenceController extends BasePreferenceController {
+public class SimLockPreferenceController extends BasePreferenceController
+        implements BasePreferenceController.BackgroundAvailability {
 
     private final CarrierConfigManager mCarrierConfigManager;
     private final UserManager mUserManager;
@@ -41,12 +41,12 @@ import android.provider.SearchIndexableResource;
 import android.provider.SettingsSlicesContract;
 import android.text.TextUtils;
 import android.util.Log;
-import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
+import com.android.settings.accessibility.AccessibilityServiceListRepository;
 import com.android.settings.accessibility.AccessibilitySettings;
 import com.android.settings.accessibility.AccessibilitySlicePreferenceController;
 import com.android.settings.core.BasePreferenceController;
@@ -63,11 +63,16 @@ import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Converts all Slice sources into {@link SliceData}.
@@ -79,6 +84,13 @@ class SliceDataConverter {
 
     private static final String TAG = "SliceDataConverter";
 
+    /** The max number of providers converted at the same time. */
+    @VisibleForTesting
+    static final int MAX_CONVERSION_THREADS = 4;
+
+    @VisibleForTesting
+    static ExecutorService sConversionExecutor = createConversionExecutor();
+
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private Context mContext;
 
@@ -98,34 +110,107 @@ class SliceDataConverter {
      * {@link com.android.settings.core.BasePreferenceController}.
      */
     public List<SliceData> getSliceData() {
-        List<SliceData> sliceData = new ArrayList<>();
+        final List<SearchIndexableData> bundles = new ArrayList<>();
+        for (SearchIndexableData bundle : FeatureFactory.getFeatureFactory()
+                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues()) {
+            // CodeInspection test guards against the null check. Keep check in case of bad actors.
+            if (bundle.getSearchIndexProvider() == null) {
+                Log.e(TAG, bundle.getTargetClass().getName()
+                        + " dose not implement Search Index Provider");
+                continue;
+            }
+            bundles.add(bundle);
+        }
+
+        final List<SliceData> sliceData = isParallelConversionEnabled() && bundles.size() > 1
+                ? getSliceDataInParallel(bundles)
+                : getSliceDataSequentially(bundles);
+
+        final List<SliceData> a11ySliceData = getAccessibilitySliceData();
+        sliceData.addAll(a11ySliceData);
+        return sliceData;
+    }
 
-        final Collection<SearchIndexableData> bundles = FeatureFactory.getFeatureFactory()
-                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+    @VisibleForTesting
+    boolean isParallelConversionEnabled() {
+        return mContext.getResources()
+                .getBoolean(R.bool.config_settings_slices_parallel_conversion);
+    }
 
+    private List<SliceData> getSliceDataSequentially(List<SearchIndexableData> bundles) {
+        final List<SliceData> sliceData = new ArrayList<>();
         for (SearchIndexableData bundle : bundles) {
-            final String fragmentName = bundle.getTargetClass().getName();
+            sliceData.addAll(getSliceDataFromBundle(bundle, false /* reportFailures */));
+        }
+        return sliceData;
+    }
 
-            final SearchIndexProvider provider = bundle.getSearchIndexProvider();
+    /**
+     * Converts the providers on {@link #sConversionExecutor}. Providers listed in
+     * {@code config_settings_slices_sequential_index_providers} are converted on the calling
+     * thread instead, and so is any provider whose conversion failed on the pool. The results are
+     * merged in the order of {@code bundles}, which is the same order as
+     * {@link #getSliceDataSequentially(List)}.
+     */
+    private List<SliceData> getSliceDataInParallel(List<SearchIndexableData> bundles) {
+        final Set<String> sequentialProviders = new HashSet<>();
+        Collections.addAll(sequentialProviders, mContext.getResources()
+                .getStringArray(R.array.config_settings_slices_sequential_index_providers));
 
-            // CodeInspection test guards against the null check. Keep check in case of bad actors.
-            if (provider == null) {
-                Log.e(TAG, fragmentName + " dose not implement Search Index Provider");
-                continue;
+        final int size = bundles.size();
+        final List<Future<List<SliceData>>> futures = new ArrayList<>(size);
+        for (SearchIndexableData bundle : bundles) {
+            if (sequentialProviders.contains(bundle.getTargetClass().getName())) {
+                futures.add(null);
+            } else {
+                futures.add(sConversionExecutor.submit(
+                        () -> getSliceDataFromBundle(bundle, true /* reportFailures */)));
             }
-
-            final List<SliceData> providerSliceData = getSliceDataFromProvider(provider,
-                    fragmentName);
-            sliceData.addAll(providerSliceData);
         }
 
-        final List<SliceData> a11ySliceData = getAccessibilitySliceData();
-        sliceData.addAll(a11ySliceData);
+        final List<SliceData> sliceData = new ArrayList<>();
+        boolean interrupted = false;
+        for (int i = 0; i < size; i++) {
+            final SearchIndexableData bundle = bundles.get(i);
+            final Future<List<SliceData>> future = futures.get(i);
+            if (future == null || interrupted) {
+                sliceData.addAll(getSliceDataFromBundle(bundle, false /* reportFailures */));
+                continue;
+            }
+            try {
+                sliceData.addAll(future.get());
+            } catch (ExecutionException e) {
+                Log.w(TAG, "Parallel conversion failed for "
+                        + bundle.getTargetClass().getName() + ", retrying sequentially", e);
+                sliceData.addAll(getSliceDataFromBundle(bundle, false /* reportFailures */));
+            } catch (InterruptedException e) {
+                // Keep the index complete by converting the rest on this thread.
+                Log.w(TAG, "Interrupted while converting slice data in parallel", e);
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                for (int j = i + 1; j < size; j++) {
+                    if (futures.get(j) != null) {
+                        futures.get(j).cancel(false /* mayInterruptIfRunning */);
+                    }
+                }
+                sliceData.addAll(getSliceDataFromBundle(bundle, false /* reportFailures */));
+            }
+        }
         return sliceData;
     }
 
+    /**
+     * @param reportFailures whether to throw when a preference fails to convert, rather than to
+     *                       log it and skip the rest of its XML, so that the caller can retry
+     */
+    private List<SliceData> getSliceDataFromBundle(SearchIndexableData bundle,
+            boolean reportFailures) {
+        return getSliceDataFromProvider(bundle.getSearchIndexProvider(),
+                bundle.getTargetClass().getName(), reportFailures);
+    }
+
     private List<SliceData> getSliceDataFromProvider(SearchIndexProvider provider,
-            String fragmentName) {
+            String fragmentName, boolean reportFailures) {
         final List<SliceData> sliceData = new ArrayList<>();
 
         final List<SearchIndexableResource> resList =
@@ -144,14 +229,16 @@ class SliceDataConverter {
                 continue;
             }
 
-            List<SliceData> xmlSliceData = getSliceDataFromXML(xmlResId, fragmentName);
+            List<SliceData> xmlSliceData =
+                    getSliceDataFromXML(xmlResId, fragmentName, reportFailures);
             sliceData.addAll(xmlSliceData);
         }
 
         return sliceData;
     }
 
-    private List<SliceData> getSliceDataFromXML(int xmlResId, String fragmentName) {
+    private List<SliceData> getSliceDataFromXML(int xmlResId, String fragmentName,
+            boolean reportFailures) {
         final List<SliceData> xmlSliceData = new ArrayList<>();
         String controllerClassName = "";
         @NonNull String screenTitle = "";
@@ -240,6 +327,9 @@ class SliceDataConverter {
                     fragmentName,
                     1);
         } catch (Exception e) {
+            if (reportFailures) {
+                throw new RuntimeException("Get slice data from XML failed for " + fragmentName, e);
+            }
             Log.w(TAG, "Get slice data from XML failed ", e);
             mMetricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
                     SettingsEnums.ACTION_VERIFY_SLICE_OTHER_EXCEPTION,
@@ -315,8 +405,14 @@ class SliceDataConverter {
 
     @VisibleForTesting
     List<AccessibilityServiceInfo> getAccessibilityServiceInfoList() {
-        final AccessibilityManager accessibilityManager = AccessibilityManager.getInstance(
-                mContext);
-        return accessibilityManager.getInstalledAccessibilityServiceList();
+        return AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+    }
+
+    private static ExecutorService createConversionExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_CONVERSION_THREADS, MAX_CONVERSION_THREADS,
+                10L /* keepAliveTime */, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 }
\ No newline at end of file
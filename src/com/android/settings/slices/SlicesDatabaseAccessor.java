@@ -24,8 +24,11 @@ import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Binder;
 import android.text.TextUtils;
+import android.util.LruCache;
 import android.util.Pair;
 
+import androidx.annotation.GuardedBy;
+import androidx.annotation.VisibleForTesting;
 import androidx.slice.Slice;
 
 import com.android.settings.overlay.FeatureFactory;
@@ -54,6 +57,24 @@ public class SlicesDatabaseAccessor {
             IndexColumns.USER_RESTRICTION,
     };
 
+    /**
+     * The max number of cached {@link SliceData}. Launcher and SystemUI panels bind the same few
+     * slices repeatedly, each of them by both its uri and its key.
+     */
+    @VisibleForTesting
+    static final int MAX_CACHED_SLICE_DATA = 64;
+
+    private static final String CACHE_KEY_PREFIX_URI = "uri:";
+    private static final String CACHE_KEY_PREFIX_KEY = "key:";
+
+    // Shared by all the accessors, since they are created per request.
+    private static final LruCache<String, SliceData> sSliceDataCache =
+            new LruCache<>(MAX_CACHED_SLICE_DATA);
+    // Guards the generation check and the put against clearing the cache in between.
+    private static final Object sCacheLock = new Object();
+    @GuardedBy("sCacheLock")
+    private static int sCacheGeneration;
+
     private final Context mContext;
     private final SlicesDatabaseHelper mHelper;
 
@@ -73,8 +94,17 @@ public class SlicesDatabaseAccessor {
         if (pathData == null) {
             throw new IllegalStateException("Invalid Slices uri: " + uri);
         }
+        verifyIndexing();
+        final String cacheKey = CACHE_KEY_PREFIX_URI + uri;
+        final SliceData cachedData = sSliceDataCache.get(cacheKey);
+        if (cachedData != null) {
+            return cachedData;
+        }
+        final int generation = getCacheGeneration();
         try (Cursor cursor = getIndexedSliceData(pathData.second /* key */)) {
-            return buildSliceData(cursor, uri, pathData.first /* isIntentOnly */);
+            final SliceData data = buildSliceData(cursor, uri, pathData.first /* isIntentOnly */);
+            putInCache(cacheKey, data, generation);
+            return data;
         }
     }
 
@@ -84,8 +114,58 @@ public class SlicesDatabaseAccessor {
      * Used when handling the action of the {@link Slice}.
      */
     public SliceData getSliceDataFromKey(String key) {
+        verifyIndexing();
+        final String cacheKey = CACHE_KEY_PREFIX_KEY + key;
+        final SliceData cachedData = sSliceDataCache.get(cacheKey);
+        if (cachedData != null) {
+            return cachedData;
+        }
+        final int generation = getCacheGeneration();
         try (Cursor cursor = getIndexedSliceData(key)) {
-            return buildSliceData(cursor, null /* uri */, false /* isIntentOnly */);
+            final SliceData data = buildSliceData(cursor, null /* uri */,
+                    false /* isIntentOnly */);
+            putInCache(cacheKey, data, generation);
+            return data;
+        }
+    }
+
+    /**
+     * Drops all the cached {@link SliceData}. Should be called whenever the slices database is
+     * modified, e.g. after {@link SlicesIndexer} re-indexes.
+     */
+    public static void clearSliceDataCache() {
+        synchronized (sCacheLock) {
+            sCacheGeneration++;
+            sSliceDataCache.evictAll();
+        }
+    }
+
+    /**
+     * @return the number of {@link SliceData} lookups served from the cache.
+     */
+    public static int getCacheHitCount() {
+        return sSliceDataCache.hitCount();
+    }
+
+    /**
+     * @return the number of {@link SliceData} lookups which had to query the database.
+     */
+    public static int getCacheMissCount() {
+        return sSliceDataCache.missCount();
+    }
+
+    private static int getCacheGeneration() {
+        synchronized (sCacheLock) {
+            return sCacheGeneration;
+        }
+    }
+
+    private static void putInCache(String cacheKey, SliceData data, int generation) {
+        synchronized (sCacheLock) {
+            // Skip the result if the cache was cleared while querying, since it may be stale.
+            if (generation == sCacheGeneration) {
+                sSliceDataCache.put(cacheKey, data);
+            }
         }
     }
 
@@ -117,9 +197,8 @@ public class SlicesDatabaseAccessor {
         return uris;
     }
 
-    private Cursor getIndexedSliceData(String path) {
-        verifyIndexing();
-
+    @VisibleForTesting
+    Cursor getIndexedSliceData(String path) {
         final String whereClause = buildKeyMatchWhereClause();
         final SQLiteDatabase database = mHelper.getReadableDatabase();
         final String[] selection = new String[]{path};
@@ -16,9 +16,10 @@
 
 package com.android.settings.slices;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -39,6 +40,41 @@ class SlicesIndexer implements Runnable {
 
     private static final String TAG = "SlicesIndexer";
 
+    // Bind indexes of INSERT_SLICE_SQL, starting from 1.
+    private static final int COLUMN_INDEX_KEY = 1;
+    private static final int COLUMN_INDEX_SLICE_URI = 2;
+    private static final int COLUMN_INDEX_TITLE = 3;
+    private static final int COLUMN_INDEX_SUMMARY = 4;
+    private static final int COLUMN_INDEX_SCREENTITLE = 5;
+    private static final int COLUMN_INDEX_KEYWORDS = 6;
+    private static final int COLUMN_INDEX_ICON_RESOURCE = 7;
+    private static final int COLUMN_INDEX_FRAGMENT = 8;
+    private static final int COLUMN_INDEX_CONTROLLER = 9;
+    private static final int COLUMN_INDEX_SLICE_TYPE = 10;
+    private static final int COLUMN_INDEX_UNAVAILABLE_SLICE_SUBTITLE = 11;
+    private static final int COLUMN_INDEX_PUBLIC_SLICE = 12;
+    private static final int COLUMN_INDEX_HIGHLIGHT_MENU_RESOURCE = 13;
+    private static final int COLUMN_INDEX_USER_RESTRICTION = 14;
+
+    private static final String INSERT_SLICE_SQL =
+            "INSERT OR REPLACE INTO " + Tables.TABLE_SLICES_INDEX
+                    + " ("
+                    + IndexColumns.KEY + ", "
+                    + IndexColumns.SLICE_URI + ", "
+                    + IndexColumns.TITLE + ", "
+                    + IndexColumns.SUMMARY + ", "
+                    + IndexColumns.SCREENTITLE + ", "
+                    + IndexColumns.KEYWORDS + ", "
+                    + IndexColumns.ICON_RESOURCE + ", "
+                    + IndexColumns.FRAGMENT + ", "
+                    + IndexColumns.CONTROLLER + ", "
+                    + IndexColumns.SLICE_TYPE + ", "
+                    + IndexColumns.UNAVAILABLE_SLICE_SUBTITLE + ", "
+                    + IndexColumns.PUBLIC_SLICE + ", "
+                    + IndexColumns.HIGHLIGHT_MENU_RESOURCE + ", "
+                    + IndexColumns.USER_RESTRICTION
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private Context mContext;
 
     private SlicesDatabaseHelper mHelper;
@@ -68,22 +104,34 @@ class SlicesIndexer implements Runnable {
 
         final SQLiteDatabase database = mHelper.getWritableDatabase();
 
-        long startTime = System.currentTimeMillis();
+        final long startTime = SystemClock.elapsedRealtime();
         database.beginTransaction();
         try {
             mHelper.reconstruct(database);
+            final long reconstructedTime = SystemClock.elapsedRealtime();
             List<SliceData> indexData = getSliceData();
+            final long convertedTime = SystemClock.elapsedRealtime();
             insertSliceData(database, indexData);
-
-            mHelper.setIndexedState();
-
-            // TODO (b/71503044) Log indexing time.
-            Log.d(TAG,
-                    "Indexing slices database took: " + (System.currentTimeMillis() - startTime));
+            final long insertedTime = SystemClock.elapsedRealtime();
+
+            final long totalTime = insertedTime - startTime;
+            SlicesIndexingStats.save(mContext, indexData.size(),
+                    reconstructedTime - startTime /* reconstructMs */,
+                    convertedTime - reconstructedTime /* convertMs */,
+                    insertedTime - convertedTime /* insertMs */,
+                    totalTime);
+            Log.d(TAG, "Indexing " + indexData.size() + " slices took: " + totalTime
+                    + " (convert: " + (convertedTime - reconstructedTime)
+                    + ", insert: " + (insertedTime - convertedTime) + ")");
             database.setTransactionSuccessful();
         } finally {
             database.endTransaction();
+            SlicesDatabaseAccessor.clearSliceDataCache();
         }
+
+        // The indexed state is not rolled back with the database, so only store it once the rows
+        // are committed.
+        mHelper.setIndexedState();
     }
 
     @VisibleForTesting
@@ -94,33 +142,49 @@ class SlicesIndexer implements Runnable {
                 .getSliceData();
     }
 
+    /**
+     * Inserts all rows through a single compiled statement, which avoids building a
+     * {@link android.content.ContentValues} and compiling the SQL for every row. Should be called
+     * inside a transaction so the rows are committed as one batch.
+     */
     @VisibleForTesting
     void insertSliceData(SQLiteDatabase database, List<SliceData> indexData) {
-        ContentValues values;
-
-        for (SliceData dataRow : indexData) {
-            values = new ContentValues();
-            values.put(IndexColumns.KEY, dataRow.getKey());
-            values.put(IndexColumns.SLICE_URI, dataRow.getUri().toString());
-            values.put(IndexColumns.TITLE, dataRow.getTitle());
-            values.put(IndexColumns.SUMMARY, dataRow.getSummary());
-            final CharSequence screenTitle = dataRow.getScreenTitle();
-            if (screenTitle != null) {
-                values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
+        final SQLiteStatement statement = database.compileStatement(INSERT_SLICE_SQL);
+        try {
+            for (SliceData dataRow : indexData) {
+                statement.clearBindings();
+                bindString(statement, COLUMN_INDEX_KEY, dataRow.getKey());
+                bindString(statement, COLUMN_INDEX_SLICE_URI, dataRow.getUri().toString());
+                bindString(statement, COLUMN_INDEX_TITLE, dataRow.getTitle());
+                bindString(statement, COLUMN_INDEX_SUMMARY, dataRow.getSummary());
+                final CharSequence screenTitle = dataRow.getScreenTitle();
+                bindString(statement, COLUMN_INDEX_SCREENTITLE,
+                        screenTitle != null ? screenTitle.toString() : null);
+                bindString(statement, COLUMN_INDEX_KEYWORDS, dataRow.getKeywords());
+                statement.bindLong(COLUMN_INDEX_ICON_RESOURCE, dataRow.getIconResource());
+                bindString(statement, COLUMN_INDEX_FRAGMENT, dataRow.getFragmentClassName());
+                bindString(statement, COLUMN_INDEX_CONTROLLER, dataRow.getPreferenceController());
+                statement.bindLong(COLUMN_INDEX_SLICE_TYPE, dataRow.getSliceType());
+                bindString(statement, COLUMN_INDEX_UNAVAILABLE_SLICE_SUBTITLE,
+                        dataRow.getUnavailableSliceSubtitle());
+                statement.bindLong(COLUMN_INDEX_PUBLIC_SLICE, dataRow.isPublicSlice() ? 1 : 0);
+                statement.bindLong(COLUMN_INDEX_HIGHLIGHT_MENU_RESOURCE,
+                        dataRow.getHighlightMenuRes());
+                bindString(statement, COLUMN_INDEX_USER_RESTRICTION,
+                        dataRow.getUserRestriction());
+
+                statement.executeInsert();
             }
-            values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
-            values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
-            values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
-            values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
-            values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
-            values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                    dataRow.getUnavailableSliceSubtitle());
-            values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
-            values.put(IndexColumns.HIGHLIGHT_MENU_RESOURCE, dataRow.getHighlightMenuRes());
-            values.put(IndexColumns.USER_RESTRICTION, dataRow.getUserRestriction());
-
-            database.replaceOrThrow(Tables.TABLE_SLICES_INDEX, null /* nullColumnHack */,
-                    values);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
         }
     }
 }
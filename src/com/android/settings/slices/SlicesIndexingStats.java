@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Timings of the last full index of the slices database, kept across process restarts so they
+ * can be read from dumpsys.
+ *
+ * <p>Stored separately from the indexed state in {@link SlicesDatabaseHelper}, which is cleared
+ * whenever the database is reconstructed.
+ */
+public final class SlicesIndexingStats {
+
+    @VisibleForTesting
+    static final String SHARED_PREFS_TAG = "slices_indexing_stats";
+    @VisibleForTesting
+    static final String KEY_TIMESTAMP = "timestamp";
+    @VisibleForTesting
+    static final String KEY_ROW_COUNT = "row_count";
+    @VisibleForTesting
+    static final String KEY_RECONSTRUCT_MS = "reconstruct_ms";
+    @VisibleForTesting
+    static final String KEY_CONVERT_MS = "convert_ms";
+    @VisibleForTesting
+    static final String KEY_INSERT_MS = "insert_ms";
+    @VisibleForTesting
+    static final String KEY_TOTAL_MS = "total_ms";
+
+    private static final String[] DURATION_KEYS = new String[]{
+            KEY_RECONSTRUCT_MS, KEY_CONVERT_MS, KEY_INSERT_MS, KEY_TOTAL_MS};
+
+    private SlicesIndexingStats() {
+    }
+
+    /**
+     * Records the phase timings of an index pass, in milliseconds.
+     */
+    static void save(Context context, int rowCount, long reconstructMs, long convertMs,
+            long insertMs, long totalMs) {
+        getSharedPreferences(context).edit()
+                .putLong(KEY_TIMESTAMP, System.currentTimeMillis())
+                .putInt(KEY_ROW_COUNT, rowCount)
+                .putLong(KEY_RECONSTRUCT_MS, reconstructMs)
+                .putLong(KEY_CONVERT_MS, convertMs)
+                .putLong(KEY_INSERT_MS, insertMs)
+                .putLong(KEY_TOTAL_MS, totalMs)
+                .apply();
+    }
+
+    /**
+     * @return the timings of the last index pass, or an empty object if the slices have not been
+     * indexed since the stats were introduced.
+     */
+    public static JSONObject toJson(Context context) throws JSONException {
+        final JSONObject obj = new JSONObject();
+        final SharedPreferences prefs = getSharedPreferences(context);
+        if (!prefs.contains(KEY_TIMESTAMP)) {
+            return obj;
+        }
+        obj.put(KEY_TIMESTAMP, prefs.getLong(KEY_TIMESTAMP, 0L));
+        obj.put(KEY_ROW_COUNT, prefs.getInt(KEY_ROW_COUNT, 0));
+        for (String key : DURATION_KEYS) {
+            obj.put(key, prefs.getLong(key, 0L));
+        }
+        return obj;
+    }
+
+    private static SharedPreferences getSharedPreferences(Context context) {
+        return context.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE);
+    }
+}
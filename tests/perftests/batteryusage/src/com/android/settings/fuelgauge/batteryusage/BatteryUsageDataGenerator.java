@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.os.BatteryConsumer;
+import android.os.BatteryUsageStats;
+import android.os.Process;
+import android.util.ArrayMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates synthetic but deterministic battery usage data for the benchmarks, which is shaped
+ * like six days of data collected by the periodic job.
+ */
+final class BatteryUsageDataGenerator {
+    static final long HOUR_IN_MS = TimeUnit.HOURS.toMillis(1);
+    static final long DAY_IN_MS = TimeUnit.DAYS.toMillis(1);
+    static final int DAYS = 6;
+
+    private static final long RANDOM_SEED = 20260101L;
+    private static final int FIRST_APP_UID = Process.FIRST_APPLICATION_UID;
+    // Most apps are not used in every hour, only a part of them get new usage events.
+    private static final int ACTIVE_APP_PERCENTAGE = 20;
+    private static final int LAUNCHES_PER_ACTIVE_APP_PER_HOUR = 3;
+
+    private final Random mRandom = new Random(RANDOM_SEED);
+    private final int mAppCount;
+    private final long mStartTimestamp;
+    private final long mEndTimestamp;
+    private final long mUserId;
+
+    BatteryUsageDataGenerator(int appCount, long endTimestamp, long userId) {
+        mAppCount = appCount;
+        mEndTimestamp = endTimestamp;
+        mStartTimestamp = endTimestamp - DAYS * DAY_IN_MS;
+        mUserId = userId;
+    }
+
+    long getStartTimestamp() {
+        return mStartTimestamp;
+    }
+
+    long getEndTimestamp() {
+        return mEndTimestamp;
+    }
+
+    static String getPackageName(int appIndex) {
+        return "com.android.benchmark.app" + appIndex;
+    }
+
+    /**
+     * Generates the raw battery history map, the snapshots are recorded roughly every hour with a
+     * random offset like the periodic job does.
+     */
+    Map<Long, Map<String, BatteryHistEntry>> generateBatteryHistoryMap() {
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new ArrayMap<>();
+        final double[] consumePowers = new double[mAppCount];
+        int batteryLevel = 100;
+        for (long timestamp = mStartTimestamp;
+                timestamp < mEndTimestamp;
+                timestamp += HOUR_IN_MS) {
+            final long recordTimestamp =
+                    timestamp == mStartTimestamp
+                            ? timestamp
+                            : timestamp + mRandom.nextInt((int) TimeUnit.MINUTES.toMillis(5));
+            batteryLevel = batteryLevel <= 10 ? 100 : batteryLevel - 1;
+            final Map<String, BatteryHistEntry> entryMap = new ArrayMap<>(mAppCount);
+            for (int appIndex = 0; appIndex < mAppCount; appIndex++) {
+                consumePowers[appIndex] += mRandom.nextDouble();
+                final BatteryHistEntry entry =
+                        createBatteryHistEntry(
+                                appIndex, recordTimestamp, batteryLevel, consumePowers[appIndex]);
+                entryMap.put(entry.getKey(), entry);
+            }
+            batteryHistoryMap.put(recordTimestamp, entryMap);
+        }
+        return batteryHistoryMap;
+    }
+
+    /** Generates the battery history list of one snapshot for all the apps. */
+    List<BatteryHistEntry> generateBatteryHistEntryList() {
+        final List<BatteryHistEntry> batteryHistEntryList = new ArrayList<>(mAppCount);
+        for (int appIndex = 0; appIndex < mAppCount; appIndex++) {
+            batteryHistEntryList.add(
+                    createBatteryHistEntry(
+                            appIndex, mEndTimestamp, /* batteryLevel= */ 50, mRandom.nextDouble()));
+        }
+        return batteryHistEntryList;
+    }
+
+    /** Generates the app usage events sorted by the timestamp. */
+    List<AppUsageEvent> generateAppUsageEventList() {
+        final List<AppUsageEvent> appUsageEventList = new ArrayList<>();
+        int instanceId = 0;
+        for (long hourStart = mStartTimestamp;
+                hourStart < mEndTimestamp;
+                hourStart += HOUR_IN_MS) {
+            final long slotSize = HOUR_IN_MS / LAUNCHES_PER_ACTIVE_APP_PER_HOUR;
+            for (int appIndex = 0; appIndex < mAppCount; appIndex++) {
+                if (mRandom.nextInt(100) >= ACTIVE_APP_PERCENTAGE) {
+                    continue;
+                }
+                for (int launch = 0; launch < LAUNCHES_PER_ACTIVE_APP_PER_HOUR; launch++) {
+                    final long resumeTimestamp =
+                            hourStart + launch * slotSize + mRandom.nextInt((int) slotSize / 2);
+                    final long stopTimestamp =
+                            resumeTimestamp + mRandom.nextInt((int) slotSize / 2);
+                    appUsageEventList.add(
+                            createAppUsageEvent(
+                                    AppUsageEventType.ACTIVITY_RESUMED,
+                                    resumeTimestamp,
+                                    appIndex,
+                                    instanceId));
+                    appUsageEventList.add(
+                            createAppUsageEvent(
+                                    AppUsageEventType.ACTIVITY_STOPPED,
+                                    stopTimestamp,
+                                    appIndex,
+                                    instanceId));
+                    instanceId++;
+                }
+            }
+        }
+        appUsageEventList.sort(DataProcessor.APP_USAGE_EVENT_TIMESTAMP_COMPARATOR);
+        return appUsageEventList;
+    }
+
+    /** Generates the power connected and disconnected events, which happen twice a day. */
+    List<BatteryEvent> generateBatteryEventList() {
+        final List<BatteryEvent> batteryEventList = new ArrayList<>();
+        for (long dayStart = mStartTimestamp; dayStart < mEndTimestamp; dayStart += DAY_IN_MS) {
+            for (long chargeStart : new long[] {2 * HOUR_IN_MS, 14 * HOUR_IN_MS}) {
+                final long connectedTimestamp = dayStart + chargeStart;
+                batteryEventList.add(
+                        createBatteryEvent(
+                                BatteryEventType.POWER_CONNECTED, connectedTimestamp, 20));
+                batteryEventList.add(
+                        createBatteryEvent(
+                                BatteryEventType.POWER_DISCONNECTED,
+                                connectedTimestamp + HOUR_IN_MS,
+                                100));
+            }
+        }
+        return batteryEventList;
+    }
+
+    /**
+     * Generates the {@link BatteryUsageStats} with one {@code UidBatteryConsumer} for each app.
+     * The caller should close the returned {@link BatteryUsageStats}.
+     */
+    BatteryUsageStats generateBatteryUsageStats() {
+        final BatteryUsageStats.Builder builder =
+                new BatteryUsageStats.Builder(/* customPowerComponentNames= */ new String[0]);
+        for (int appIndex = 0; appIndex < mAppCount; appIndex++) {
+            builder.getOrCreateUidBatteryConsumerBuilder(FIRST_APP_UID + appIndex)
+                    .setConsumedPower(BatteryConsumer.POWER_COMPONENT_CPU, mRandom.nextDouble())
+                    .setConsumedPower(BatteryConsumer.POWER_COMPONENT_SCREEN, mRandom.nextDouble());
+        }
+        return builder.build();
+    }
+
+    private BatteryHistEntry createBatteryHistEntry(
+            int appIndex, long timestamp, int batteryLevel, double consumePower) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setAppLabel("App " + appIndex)
+                        .setTotalPower(mAppCount)
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageConsumePower(consumePower / 2)
+                        .setBackgroundUsageConsumePower(consumePower / 2)
+                        .setForegroundUsageTimeInMs((long) (consumePower * 1000))
+                        .setBackgroundUsageTimeInMs((long) (consumePower * 500))
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder()
+                                        .setBatteryLevel(batteryLevel)
+                                        .build())
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, getPackageName(appIndex));
+        values.put(BatteryHistEntry.KEY_UID, (long) FIRST_APP_UID + appIndex);
+        values.put(BatteryHistEntry.KEY_USER_ID, mUserId);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
+        return new BatteryHistEntry(values);
+    }
+
+    private AppUsageEvent createAppUsageEvent(
+            AppUsageEventType type, long timestamp, int appIndex, int instanceId) {
+        return AppUsageEvent.newBuilder()
+                .setType(type)
+                .setTimestamp(timestamp)
+                .setUserId(mUserId)
+                .setUid(FIRST_APP_UID + appIndex)
+                .setPackageName(getPackageName(appIndex))
+                .setInstanceId(instanceId)
+                .build();
+    }
+
+    private static BatteryEvent createBatteryEvent(
+            BatteryEventType type, long timestamp, int batteryLevel) {
+        return BatteryEvent.newBuilder()
+                .setType(type)
+                .setTimestamp(timestamp)
+                .setBatteryLevel(batteryLevel)
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.os.BatteryUsageStats;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Benchmarks the battery usage processing in {@link DataProcessor} with six days of synthetic
+ * data. The benchmark library reports both the time and the allocation count of each method.
+ */
+@RunWith(Parameterized.class)
+public class DataProcessorBenchmark {
+    @Rule public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Parameterized.Parameter public int mAppCount;
+
+    private Context mContext;
+    private UserIdsSeries mUserIdsSeries;
+    private BatteryUsageDataGenerator mGenerator;
+
+    @Parameterized.Parameters(name = "apps={0}")
+    public static Collection<Object[]> getParameters() {
+        return Arrays.asList(new Object[][] {{200}, {1000}, {2000}});
+    }
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mUserIdsSeries = new UserIdsSeries(mContext, /* isNonUIRequest= */ true);
+        final long endTimestamp =
+                TimestampUtils.getLastEvenHourTimestamp(System.currentTimeMillis());
+        mGenerator =
+                new BatteryUsageDataGenerator(mAppCount, endTimestamp, mContext.getUserId());
+        DataProcessor.sTestCurrentTimeMillis = endTimestamp;
+        DataProcessor.sTestSystemAppsPackageNames = Set.of();
+    }
+
+    @After
+    public void tearDown() {
+        DataProcessor.sTestCurrentTimeMillis = 0;
+        DataProcessor.sTestSystemAppsPackageNames = null;
+    }
+
+    @Test
+    public void generateBatteryDiffData() {
+        final List<BatteryHistEntry> batteryHistEntryList =
+                mGenerator.generateBatteryHistEntryList();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            DataProcessor.generateBatteryDiffData(
+                    mContext,
+                    mUserIdsSeries,
+                    mGenerator.getStartTimestamp(),
+                    batteryHistEntryList,
+                    /* systemAppsPackageNames= */ Set.of(),
+                    /* systemAppsUids= */ Set.of());
+        }
+    }
+
+    @Test
+    public void buildAppUsagePeriodList() {
+        final List<AppUsageEvent> appUsageEventList = mGenerator.generateAppUsageEventList();
+        final List<BatteryEvent> batteryEventList = mGenerator.generateBatteryEventList();
+        final List<List<AppUsageEvent>> hourlyAppUsageEventLists =
+                splitIntoHourlySlots(appUsageEventList);
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (int index = 0; index < hourlyAppUsageEventLists.size(); index++) {
+                final long startTimestamp =
+                        mGenerator.getStartTimestamp()
+                                + index * BatteryUsageDataGenerator.HOUR_IN_MS;
+                DataProcessor.buildAppUsagePeriodList(
+                        mContext,
+                        hourlyAppUsageEventLists.get(index),
+                        batteryEventList,
+                        startTimestamp,
+                        startTimestamp + BatteryUsageDataGenerator.HOUR_IN_MS);
+            }
+        }
+    }
+
+    /** Measures {@code interpolateHistory} through its only caller. */
+    @Test
+    public void interpolateHistory() {
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+                mGenerator.generateBatteryHistoryMap();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, batteryHistoryMap);
+        }
+    }
+
+    /** Measures {@code getCoalescedUsageList} through its only caller. */
+    @Test
+    public void getCoalescedUsageList() {
+        try (BatteryUsageStats batteryUsageStats = mGenerator.generateBatteryUsageStats()) {
+            final BenchmarkState state = mBenchmarkRule.getState();
+            while (state.keepRunning()) {
+                DataProcessor.generateBatteryEntryListFromBatteryUsageStats(
+                        mContext, batteryUsageStats);
+            }
+        }
+    }
+
+    private List<List<AppUsageEvent>> splitIntoHourlySlots(List<AppUsageEvent> appUsageEvents) {
+        final int slotCount = BatteryUsageDataGenerator.DAYS * 24;
+        final List<List<AppUsageEvent>> hourlyAppUsageEventLists = new ArrayList<>(slotCount);
+        for (int index = 0; index < slotCount; index++) {
+            hourlyAppUsageEventLists.add(new ArrayList<>());
+        }
+        for (AppUsageEvent event : appUsageEvents) {
+            final int index =
+                    (int)
+                            ((event.getTimestamp() - mGenerator.getStartTimestamp())
+                                    / BatteryUsageDataGenerator.HOUR_IN_MS);
+            if (index >= 0 && index < slotCount) {
+                hourlyAppUsageEventLists.get(index).add(event);
+            }
+        }
+        return hourlyAppUsageEventLists;
+    }
+}
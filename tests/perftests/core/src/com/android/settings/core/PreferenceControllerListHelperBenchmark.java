@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.settings.R;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks creating the controllers declared in preference XMLs, as done by
+ * {@code DashboardFragment#onAttach}, with the generated controller factories and with the
+ * reflective fallback alone.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PreferenceControllerListHelperBenchmark {
+    @Rule public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @After
+    public void tearDown() {
+        PreferenceControllerFactory.sGeneratedFactoriesEnabled = true;
+    }
+
+    @Test
+    @UiThreadTest
+    public void topLevelSettings_generatedFactories() {
+        measure(R.xml.top_level_settings, true /* generatedFactoriesEnabled */);
+    }
+
+    @Test
+    @UiThreadTest
+    public void topLevelSettings_reflection() {
+        measure(R.xml.top_level_settings, false /* generatedFactoriesEnabled */);
+    }
+
+    @Test
+    @UiThreadTest
+    public void mobileNetworkSettings_generatedFactories() {
+        measure(R.xml.mobile_network_settings, true /* generatedFactoriesEnabled */);
+    }
+
+    @Test
+    @UiThreadTest
+    public void mobileNetworkSettings_reflection() {
+        measure(R.xml.mobile_network_settings, false /* generatedFactoriesEnabled */);
+    }
+
+    private void measure(int xmlResId, boolean generatedFactoriesEnabled) {
+        PreferenceControllerFactory.sGeneratedFactoriesEnabled = generatedFactoriesEnabled;
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            PreferenceControllerListHelper.getPreferenceControllersFromXml(mContext, xmlResId);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.UserHandle;
+import android.view.accessibility.AccessibilityManager;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.internal.accessibility.util.AccessibilityUtils;
+import com.android.settings.testutils.AccessibilityTestUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class AccessibilityServiceListRepositoryTest {
+
+    private static final ComponentName COMPONENT_NAME =
+            new ComponentName("com.example.a11y", "com.example.a11y.Service");
+
+    private Context mContext;
+    private AccessibilityManager mAccessibilityManager;
+
+    @Before
+    public void setUp() {
+        AccessibilityServiceListRepository.clear();
+        mContext = spy(ApplicationProvider.getApplicationContext());
+        doReturn(mContext).when(mContext).getApplicationContext();
+        mAccessibilityManager = AccessibilityTestUtils.setupMockAccessibilityManager(mContext);
+        final List<AccessibilityServiceInfo> services = new ArrayList<>();
+        services.add(AccessibilityTestUtils.createAccessibilityServiceInfo(
+                mContext, COMPONENT_NAME, /* isAlwaysOnService= */ false));
+        when(mAccessibilityManager.getInstalledAccessibilityServiceList()).thenReturn(services);
+    }
+
+    @After
+    public void tearDown() {
+        AccessibilityServiceListRepository.clear();
+    }
+
+    @Test
+    public void getInstalledServiceList_calledTwice_shouldQueryOnce() {
+        AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+        final List<AccessibilityServiceInfo> services =
+                AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+
+        assertThat(services).hasSize(1);
+        verify(mAccessibilityManager).getInstalledAccessibilityServiceList();
+    }
+
+    @Test
+    public void getInstalledServiceList_returnedListModified_shouldNotChangeCache() {
+        AccessibilityServiceListRepository.getInstalledServiceList(mContext).clear();
+
+        assertThat(AccessibilityServiceListRepository.getInstalledServiceList(mContext))
+                .hasSize(1);
+    }
+
+    @Test
+    public void getInstalledServiceList_packageChanged_shouldQueryAgain() {
+        AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+        final ArgumentCaptor<BroadcastReceiver> receiver =
+                ArgumentCaptor.forClass(BroadcastReceiver.class);
+        verify(mContext).registerReceiverAsUser(receiver.capture(),
+                eq(UserHandle.of(mContext.getUserId())), any(IntentFilter.class), isNull(),
+                any(Handler.class));
+
+        receiver.getValue().onReceive(mContext,
+                new Intent(Intent.ACTION_PACKAGE_ADDED, Uri.parse("package:com.example")));
+        AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+        ShadowLooper.idleMainLooper(2, TimeUnit.SECONDS);
+        AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+
+        verify(mAccessibilityManager, times(3)).getInstalledAccessibilityServiceList();
+    }
+
+    @Test
+    public void getInstalledServiceList_servicesStateChanged_shouldQueryAgain() {
+        AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+        final ArgumentCaptor<AccessibilityManager.AccessibilityServicesStateChangeListener>
+                listener = ArgumentCaptor.forClass(
+                        AccessibilityManager.AccessibilityServicesStateChangeListener.class);
+        verify(mAccessibilityManager).addAccessibilityServicesStateChangeListener(
+                any(Executor.class), listener.capture());
+
+        listener.getValue().onAccessibilityServicesStateChanged(mAccessibilityManager);
+        AccessibilityServiceListRepository.getInstalledServiceList(mContext);
+
+        verify(mAccessibilityManager, times(2)).getInstalledAccessibilityServiceList();
+    }
+
+    @Test
+    public void getPreBundledComponentCategories_shouldIncludeAccessibilityMenu() {
+        assertThat(AccessibilityServiceListRepository.getPreBundledComponentCategories(mContext)
+                .get(AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM))
+                .isEqualTo(AccessibilitySettings.CATEGORY_INTERACTION_CONTROL);
+    }
+}
@@ -406,6 +406,8 @@ public class AccessibilitySettingsTest {
         setupFragment();
         mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
                 singletonList(mServiceInfo));
+        // As done when a package changes.
+        AccessibilityServiceListRepository.invalidate(mContext);
 
         mFragment.onContentChanged();
 
@@ -424,6 +426,8 @@ public class AccessibilitySettingsTest {
 
         mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
                 singletonList(mServiceInfo));
+        // As done when a package changes.
+        AccessibilityServiceListRepository.invalidate(mContext);
 
         mFragment.onContentChanged();
         mFragment.onStart();
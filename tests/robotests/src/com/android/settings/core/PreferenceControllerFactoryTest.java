@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settings.applications.specialaccess.premiumsms.PremiumSmsController;
+import com.android.settings.system.AdditionalSystemUpdatePreferenceController;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceControllerFactoryTest {
+
+    private static final String KEY = "key";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() {
+        PreferenceControllerFactory.sGeneratedFactoriesEnabled = true;
+    }
+
+    @Test
+    public void get_contextOnlyController_shouldCreateWithoutKey() {
+        final PreferenceControllerFactory factory = PreferenceControllerFactory.get(
+                AdditionalSystemUpdatePreferenceController.class.getName());
+
+        assertThat(factory.requiresKey()).isFalse();
+        assertThat(factory.create(mContext, KEY))
+                .isInstanceOf(AdditionalSystemUpdatePreferenceController.class);
+    }
+
+    @Test
+    public void get_keyedController_shouldCreateWithKey() {
+        final PreferenceControllerFactory factory =
+                PreferenceControllerFactory.get(PremiumSmsController.class.getName());
+
+        assertThat(factory.requiresKey()).isTrue();
+        final BasePreferenceController controller = factory.create(mContext, KEY);
+        assertThat(controller).isInstanceOf(PremiumSmsController.class);
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void get_unknownController_shouldReturnNull() {
+        assertThat(PreferenceControllerFactory.get("com.android.settings.NoSuchController"))
+                .isNull();
+    }
+
+    @Test
+    public void get_generatedFactoriesDisabled_shouldReturnNull() {
+        PreferenceControllerFactory.sGeneratedFactoriesEnabled = false;
+
+        assertThat(PreferenceControllerFactory.get(PremiumSmsController.class.getName()))
+                .isNull();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void createInstance_keyedControllerWithoutKey_shouldThrow() {
+        BasePreferenceController.createInstance(mContext, PremiumSmsController.class.getName());
+    }
+}
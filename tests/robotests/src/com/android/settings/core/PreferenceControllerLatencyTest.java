@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.SystemClock;
+
+import com.android.settings.system.AdditionalSystemUpdatePreferenceController;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceControllerLatencyTest {
+
+    private AdditionalSystemUpdatePreferenceController mController;
+    private long mMainThreadBudgetMs;
+
+    @Before
+    public void setUp() {
+        mController = new AdditionalSystemUpdatePreferenceController(
+                RuntimeEnvironment.application);
+        mMainThreadBudgetMs = PreferenceControllerLatency.sMainThreadBudgetMs;
+        PreferenceControllerLatency.clear();
+    }
+
+    @After
+    public void tearDown() {
+        PreferenceControllerLatency.sMainThreadBudgetMs = mMainThreadBudgetMs;
+        PreferenceControllerLatency.clear();
+    }
+
+    @Test
+    public void end_shouldRecordInHistogramOfMethod() throws Exception {
+        PreferenceControllerLatency.end(mController, PreferenceControllerLatency.UPDATE_STATE,
+                beginMillisAgo(3));
+        PreferenceControllerLatency.end(mController, PreferenceControllerLatency.UPDATE_STATE,
+                beginMillisAgo(100));
+
+        final JSONObject updateState = getControllerJson().getJSONObject("updateState");
+        assertThat(updateState.getLong(PreferenceControllerLatency.KEY_COUNT)).isEqualTo(2);
+        assertThat(updateState.getLong(PreferenceControllerLatency.KEY_MAX_US))
+                .isAtLeast(TimeUnit.MILLISECONDS.toMicros(100));
+        final JSONArray buckets = updateState.getJSONArray(PreferenceControllerLatency.KEY_BUCKETS);
+        assertThat(buckets.length())
+                .isEqualTo(PreferenceControllerLatency.BUCKET_UPPER_BOUNDS_MS.length + 1);
+        assertThat(buckets.getLong(2)).isEqualTo(1);
+        assertThat(buckets.getLong(7)).isEqualTo(1);
+        assertThat(getControllerJson().has("displayPreference")).isFalse();
+    }
+
+    @Test
+    public void end_overBudgetOnMainThread_shouldFlag() throws Exception {
+        PreferenceControllerLatency.sMainThreadBudgetMs = 16;
+
+        PreferenceControllerLatency.end(mController,
+                PreferenceControllerLatency.DISPLAY_PREFERENCE, beginMillisAgo(1));
+        PreferenceControllerLatency.end(mController,
+                PreferenceControllerLatency.DISPLAY_PREFERENCE, beginMillisAgo(50));
+
+        assertThat(getControllerJson().getJSONObject("displayPreference")
+                .getLong(PreferenceControllerLatency.KEY_OVER_BUDGET)).isEqualTo(1);
+    }
+
+    @Test
+    public void end_noBudget_shouldNotFlag() throws Exception {
+        PreferenceControllerLatency.sMainThreadBudgetMs = 0;
+
+        PreferenceControllerLatency.end(mController,
+                PreferenceControllerLatency.DISPLAY_PREFERENCE, beginMillisAgo(50));
+
+        assertThat(getControllerJson().getJSONObject("displayPreference")
+                .getLong(PreferenceControllerLatency.KEY_OVER_BUDGET)).isEqualTo(0);
+    }
+
+    @Test
+    public void isAvailable_shouldRecordAvailabilityStatus() throws Exception {
+        mController.isAvailable();
+
+        assertThat(getControllerJson().getJSONObject("getAvailabilityStatus")
+                .getLong(PreferenceControllerLatency.KEY_COUNT)).isEqualTo(1);
+    }
+
+    @Test
+    public void isAvailable_offMainThread_shouldRecordBackgroundAvailabilityStatus()
+            throws Exception {
+        PreferenceControllerLatency.sMainThreadBudgetMs = 1;
+        final Thread thread = new Thread(() -> PreferenceControllerLatency.end(mController,
+                PreferenceControllerLatency.GET_AVAILABILITY_STATUS, beginMillisAgo(50)));
+        thread.start();
+        thread.join();
+
+        final JSONObject controllerJson = getControllerJson();
+        final JSONObject background = controllerJson.getJSONObject(
+                "getAvailabilityStatus" + PreferenceControllerLatency.BACKGROUND_SUFFIX);
+        assertThat(background.getLong(PreferenceControllerLatency.KEY_COUNT)).isEqualTo(1);
+        assertThat(background.getLong(PreferenceControllerLatency.KEY_OVER_BUDGET)).isEqualTo(0);
+        assertThat(controllerJson.has("getAvailabilityStatus")).isFalse();
+    }
+
+    private JSONObject getControllerJson() throws Exception {
+        return PreferenceControllerLatency.toJson()
+                .getJSONObject(PreferenceControllerLatency.KEY_CONTROLLERS)
+                .getJSONObject(AdditionalSystemUpdatePreferenceController.class.getName());
+    }
+
+    private static long beginMillisAgo(long millis) {
+        return SystemClock.elapsedRealtimeNanos() - TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
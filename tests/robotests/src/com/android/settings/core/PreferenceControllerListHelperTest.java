@@ -20,8 +20,6 @@ import static com.google.common.truth.Truth.assertThat;
 
 import android.content.Context;
 
-import androidx.preference.PreferenceManager;
-
 import com.android.settings.R;
 import com.android.settings.slices.FakePreferenceController;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -40,12 +38,10 @@ import java.util.List;
 public class PreferenceControllerListHelperTest {
 
     private Context mContext;
-    private PreferenceManager mPreferenceManager;
 
     @Before
     public void setUp() {
         mContext = RuntimeEnvironment.application;
-        mPreferenceManager = new PreferenceManager(mContext);
     }
 
     @Test
@@ -77,7 +73,7 @@ public class PreferenceControllerListHelperTest {
     public void areAllPreferencesUnavailable_allAvailable() {
         // All preferences have controllers indicating they are available.
         assertThat(PreferenceControllerListHelper.areAllPreferencesUnavailable(mContext,
-                mPreferenceManager, R.xml.location_settings)).isFalse();
+                R.xml.location_settings)).isFalse();
     }
 
     @Test
@@ -85,7 +81,7 @@ public class PreferenceControllerListHelperTest {
     public void areAllPreferencesUnavailable_allUnavailable() {
         // All preferences have controllers indicating they are unavailable. (note the qualifier)
         assertThat(PreferenceControllerListHelper.areAllPreferencesUnavailable(mContext,
-                mPreferenceManager, R.xml.location_settings)).isTrue();
+                R.xml.location_settings)).isTrue();
     }
 
     @Test
@@ -93,7 +89,7 @@ public class PreferenceControllerListHelperTest {
     public void areAllPreferencesUnavailable_noControllersShouldAssumeAvailable() {
         // None of the preferences have controllers, so they are assumed available.
         assertThat(PreferenceControllerListHelper.areAllPreferencesUnavailable(mContext,
-                mPreferenceManager, R.xml.display_settings)).isFalse();
+                R.xml.display_settings)).isFalse();
     }
 
     @Test
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_PREF_TYPE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_TITLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.PREF_SCREEN_TAG;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+
+import androidx.preference.PreferenceManager;
+import androidx.preference.PreferenceScreen;
+
+import com.android.settings.R;
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceXmlMetadataCacheTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = getApplicationContext();
+        PreferenceXmlMetadataCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        PreferenceXmlMetadataCache.clear();
+    }
+
+    @Test
+    public void extractMetadata_differentFlags_shouldParseOnce() throws Exception {
+        final List<Bundle> keys = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.top_level_settings, MetadataFlag.FLAG_NEED_KEY);
+        final List<Bundle> titles = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.top_level_settings, MetadataFlag.FLAG_NEED_PREF_TITLE);
+
+        assertThat(keys).hasSize(titles.size());
+        assertThat(keys.get(0).containsKey(METADATA_TITLE)).isFalse();
+        assertThat(titles.get(0).containsKey(METADATA_KEY)).isFalse();
+        final JSONObject stats = PreferenceXmlMetadataCache.toJson();
+        assertThat(stats.getInt(PreferenceXmlMetadataCache.KEY_MISSES)).isEqualTo(1);
+        assertThat(stats.getInt(PreferenceXmlMetadataCache.KEY_HITS)).isEqualTo(1);
+    }
+
+    @Test
+    public void extractMetadata_withoutPrefScreenFlag_shouldSkipPrefScreen() throws Exception {
+        final List<Bundle> withScreen = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.top_level_settings,
+                MetadataFlag.FLAG_INCLUDE_PREF_SCREEN | MetadataFlag.FLAG_NEED_PREF_TYPE);
+        final List<Bundle> withoutScreen = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.top_level_settings, MetadataFlag.FLAG_NEED_PREF_TYPE);
+
+        assertThat(withScreen.get(0).getString(METADATA_PREF_TYPE)).isEqualTo(PREF_SCREEN_TAG);
+        assertThat(withoutScreen).hasSize(withScreen.size() - 1);
+    }
+
+    @Test
+    public void extractMetadata_configurationChanged_shouldParseAgain() throws Exception {
+        PreferenceXmlParserUtils.extractMetadata(mContext, R.xml.top_level_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+        final Configuration config = new Configuration(mContext.getResources().getConfiguration());
+        config.setLocale(Locale.FRANCE);
+        final Context frenchContext = mContext.createConfigurationContext(config);
+
+        PreferenceXmlParserUtils.extractMetadata(frenchContext, R.xml.top_level_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+
+        assertThat(PreferenceXmlMetadataCache.toJson()
+                .getInt(PreferenceXmlMetadataCache.KEY_MISSES)).isEqualTo(2);
+    }
+
+    @Test
+    public void extractMetadata_alternatingConfigurations_shouldKeepBothEntries()
+            throws Exception {
+        final Configuration config = new Configuration(mContext.getResources().getConfiguration());
+        config.setLocale(Locale.FRANCE);
+        final Context frenchContext = mContext.createConfigurationContext(config);
+
+        PreferenceXmlParserUtils.extractMetadata(mContext, R.xml.top_level_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+        PreferenceXmlParserUtils.extractMetadata(frenchContext, R.xml.top_level_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+        PreferenceXmlParserUtils.extractMetadata(mContext, R.xml.top_level_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+        PreferenceXmlParserUtils.extractMetadata(frenchContext, R.xml.top_level_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+
+        final JSONObject stats = PreferenceXmlMetadataCache.toJson();
+        assertThat(stats.getInt(PreferenceXmlMetadataCache.KEY_MISSES)).isEqualTo(2);
+        assertThat(stats.getInt(PreferenceXmlMetadataCache.KEY_HITS)).isEqualTo(2);
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getTopLevelPreferenceCount_shouldMatchInflatedScreen() throws Exception {
+        final PreferenceScreen screen = new PreferenceManager(mContext)
+                .inflateFromResource(mContext, R.xml.location_settings, null);
+
+        assertThat(PreferenceXmlParserUtils.getTopLevelPreferenceCount(mContext,
+                R.xml.location_settings)).isEqualTo(screen.getPreferenceCount());
+    }
+}
@@ -24,6 +24,8 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_SWIT
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -31,6 +33,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 import android.app.PendingIntent;
 import android.app.settings.SettingsEnums;
@@ -43,6 +46,7 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.preference.PreferenceManager.OnActivityResultListener;
+import android.util.ArraySet;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceCategory;
@@ -54,6 +58,7 @@ import androidx.test.core.app.ApplicationProvider;
 
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.slices.BlockingSlicePrefController;
 import com.android.settings.testutils.FakeFeatureFactory;
@@ -66,6 +71,9 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -77,6 +85,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
@@ -84,6 +93,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 @RunWith(RobolectricTestRunner.class)
 public class DashboardFragmentTest {
@@ -100,6 +111,7 @@ public class DashboardFragmentTest {
     private List<AbstractPreferenceController> mControllers;
     private ActivityTile mActivityTile;
     private ProviderTile mProviderTile;
+    private ExecutorService mAvailabilityExecutor;
 
     @Before
     public void setUp() {
@@ -131,6 +143,13 @@ public class DashboardFragmentTest {
         mTestFragment.onAttach(mAppContext);
         when(mContext.getPackageName()).thenReturn("TestPackage");
         mControllers = new ArrayList<>();
+        mAvailabilityExecutor = DashboardFragment.sAvailabilityExecutor;
+        DashboardFragment.sAvailabilityExecutor = MoreExecutors.newDirectExecutorService();
+    }
+
+    @After
+    public void tearDown() {
+        DashboardFragment.sAvailabilityExecutor = mAvailabilityExecutor;
     }
 
     @Test
@@ -265,6 +284,29 @@ public class DashboardFragmentTest {
         assertThat(controller).isNotNull();
     }
 
+    @Test
+    public void onCategoriesChanged_nonBlockingBinding_shouldApplyDataWhenObserverCompletes() {
+        final DynamicDataObserver observer = new TestDynamicDataObserver();
+        final Runnable updateRunnable = mock(Runnable.class);
+        when(mFakeFeatureFactory.dashboardFeatureProvider
+                .getDashboardKeyForTile(any(ActivityTile.class)))
+                .thenReturn("test_key");
+        when(mFakeFeatureFactory.dashboardFeatureProvider
+                .getDashboardKeyForTile(any(ProviderTile.class)))
+                .thenReturn("test_key2");
+        when(mFakeFeatureFactory.dashboardFeatureProvider.bindPreferenceToTileAndGetObservers(
+                any(), any(), anyBoolean(), any(), any(ActivityTile.class), any(), anyInt()))
+                .thenReturn(Arrays.asList(observer));
+        assertThat(mTestFragment.isNonBlockingTileBindingEnabled()).isTrue();
+
+        mTestFragment.onCategoriesChanged(null);
+        observer.post(updateRunnable);
+
+        verify(updateRunnable, never()).run();
+        ShadowLooper.idleMainLooper();
+        verify(updateRunnable).run();
+    }
+
     @Test
     @Config(shadows = ShadowPreferenceFragmentCompat.class)
     public void onStart_shouldRegisterDynamicDataObservers() {
@@ -325,6 +367,115 @@ public class DashboardFragmentTest {
         verify(mockController2).getPreferenceKey();
     }
 
+    @Test
+    public void updatePreferenceStates_deferredController_shouldSkip() {
+        final AbstractPreferenceController mockController =
+                mock(AbstractPreferenceController.class);
+        mTestFragment.addPreferenceController(mockController);
+        mTestFragment.mDeferredControllers.add(mockController);
+        when(mockController.isAvailable()).thenReturn(true);
+
+        mTestFragment.updatePreferenceStates();
+
+        verify(mockController, never()).isAvailable();
+        verify(mockController, never()).getPreferenceKey();
+    }
+
+    @Test
+    public void updatePreferenceStates_backgroundAvailability_shouldUpdateOnMainThreadLater() {
+        final AbstractPreferenceController controller = mockBackgroundAvailabilityController();
+        final Preference preference = new Preference(mContext);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(preference);
+        assertThat(mTestFragment.isAvailabilityCheckedInBackground(controller)).isTrue();
+
+        mTestFragment.updatePreferenceStates();
+
+        verify(controller).isAvailable();
+        verify(controller, never()).updateState(any(Preference.class));
+        ShadowLooper.idleMainLooper();
+        verify(controller).updateState(preference);
+    }
+
+    @Test
+    public void updatePreferenceStates_backgroundAvailabilitySuperseded_shouldUpdateOnce() {
+        final AbstractPreferenceController controller = mockBackgroundAvailabilityController();
+        final Preference preference = new Preference(mContext);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(preference);
+
+        mTestFragment.updatePreferenceStates();
+        mTestFragment.updatePreferenceStates();
+        ShadowLooper.idleMainLooper();
+
+        verify(controller, times(2)).isAvailable();
+        verify(controller).updateState(preference);
+    }
+
+    @Test
+    public void updatePreferenceStates_pausedBeforeBackgroundResults_shouldNotUpdate() {
+        final AbstractPreferenceController controller = mockBackgroundAvailabilityController();
+        final Preference preference = new Preference(mContext);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(preference);
+
+        mTestFragment.updatePreferenceStates();
+        mTestFragment.mResumed = false;
+        ShadowLooper.idleMainLooper();
+
+        verify(controller, never()).updateState(any(Preference.class));
+    }
+
+    @Test
+    public void updatePreferenceStates_notResumed_shouldUpdateImmediately() {
+        final AbstractPreferenceController controller = mockBackgroundAvailabilityController();
+        final Preference preference = new Preference(mContext);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(preference);
+        mTestFragment.mResumed = false;
+
+        mTestFragment.updatePreferenceStates();
+
+        verify(controller).updateState(preference);
+    }
+
+    @Test
+    public void updatePreferenceStates_backgroundAvailabilityDisabled_shouldUpdateImmediately() {
+        final AbstractPreferenceController controller = mockBackgroundAvailabilityController();
+        final Preference preference = new Preference(mContext);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(preference);
+        mTestFragment.mBackgroundAvailabilityEnabled = false;
+
+        mTestFragment.updatePreferenceStates();
+
+        verify(controller).updateState(preference);
+    }
+
+    @Test
+    public void updatePreferenceStates_backgroundCheckFails_shouldCheckOnMainThread() {
+        final AbstractPreferenceController controller = mockBackgroundAvailabilityController();
+        final Preference preference = new Preference(mContext);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(preference);
+        when(controller.isAvailable()).thenThrow(new IllegalStateException()).thenReturn(true);
+
+        mTestFragment.updatePreferenceStates();
+        ShadowLooper.idleMainLooper();
+
+        verify(controller, times(2)).isAvailable();
+        verify(controller).updateState(preference);
+    }
+
+    @Test
+    public void displayResourceTilesToScreen_deferredController_shouldNotDisplay() {
+        final AbstractPreferenceController deferredController =
+                mock(AbstractPreferenceController.class);
+        final AbstractPreferenceController controller = mock(AbstractPreferenceController.class);
+        mTestFragment.addPreferenceController(deferredController);
+        mTestFragment.addPreferenceController(controller);
+        mTestFragment.mDeferredControllers.add(deferredController);
+
+        mTestFragment.displayResourceTilesToScreen(mTestFragment.mScreen);
+
+        verify(deferredController, never()).displayPreference(any(PreferenceScreen.class));
+        verify(controller).displayPreference(mTestFragment.mScreen);
+    }
+
     @Test
     public void onExpandButtonClick_shouldLogAdvancedButtonExpand() {
         final MetricsFeatureProvider metricsFeatureProvider
@@ -488,6 +639,18 @@ public class DashboardFragmentTest {
         verify(activityResultPref).onActivityResult(requestCode, resultCode, null);
     }
 
+    private AbstractPreferenceController mockBackgroundAvailabilityController() {
+        final AbstractPreferenceController controller = mock(AbstractPreferenceController.class,
+                withSettings().extraInterfaces(
+                        BasePreferenceController.BackgroundAvailability.class));
+        when(controller.isAvailable()).thenReturn(true);
+        when(controller.getPreferenceKey()).thenReturn("key");
+        mTestFragment.addPreferenceController(controller);
+        mTestFragment.mBackgroundAvailabilityEnabled = true;
+        mTestFragment.mResumed = true;
+        return controller;
+    }
+
     public static class TestPreferenceController extends AbstractPreferenceController
             implements PreferenceControllerMixin {
 
@@ -543,6 +706,8 @@ public class DashboardFragmentTest {
         private final ContentResolver mContentResolver;
 
         public final PreferenceScreen mScreen;
+        public final Set<AbstractPreferenceController> mDeferredControllers = new ArraySet<>();
+        public boolean mResumed;
 
         public TestFragment(Context context) {
             mContext = context;
@@ -596,6 +761,15 @@ public class DashboardFragmentTest {
             return mContentResolver;
         }
 
+        @Override
+        protected boolean isPreferenceControllerDeferred(AbstractPreferenceController controller) {
+            return mDeferredControllers.contains(controller);
+        }
+
+        @Override
+        boolean isFragmentResumed() {
+            return mResumed;
+        }
     }
 
     private static class TestDynamicDataObserver extends DynamicDataObserver {
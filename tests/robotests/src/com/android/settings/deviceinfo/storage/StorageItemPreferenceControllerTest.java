@@ -19,10 +19,13 @@ import static com.android.settings.applications.manageapplications.ManageApplica
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -404,6 +407,29 @@ public class StorageItemPreferenceControllerTest {
                 .isEqualTo("60 MB");
     }
 
+    @Test
+    public void onStorageSizeLoaded_currentUser_updatesPreferenceOfType() {
+        mController.displayPreference(mPreferenceScreen);
+        mController.setTotalSize(GIGABYTE_IN_BYTES * 64);
+
+        mController.onStorageSizeLoaded(0, StorageAsyncLoader.TYPE_IMAGES,
+                MEGABYTE_IN_BYTES * 350);
+
+        assertThat(mController.mImagesPreference.getSummary().toString()).isEqualTo("350 MB");
+    }
+
+    @Test
+    public void onStorageSizeLoaded_otherUser_doesNotUpdatePreference() {
+        mController.displayPreference(mPreferenceScreen);
+        mController.setTotalSize(GIGABYTE_IN_BYTES * 64);
+
+        mController.onStorageSizeLoaded(10, StorageAsyncLoader.TYPE_IMAGES,
+                MEGABYTE_IN_BYTES * 350);
+
+        verify(mController.mImagesPreference, never())
+                .setStorageSize(anyLong(), anyLong(), anyBoolean());
+    }
+
     @Test
     public void settingUserIdAppliesNewIcons() {
         mController.displayPreference(mPreferenceScreen);
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.os.UserHandle;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class StorageResultCacheTest {
+    private static final String FAKE_MEDIA_VERSION = "version";
+    private static final long FAKE_MEDIA_GENERATION = 42L;
+    private static final long FAKE_MEDIA_COUNT = 10L;
+    private static final long FAKE_IMAGES_SIZE = 7000L;
+    private static final long FAKE_TRASH_SIZE = 500L;
+    private static final long FAKE_GAMES_SIZE = 5000L;
+    private static final long FAKE_DUPLICATE_CODE_SIZE = 300L;
+
+    private Context mContext;
+    private StorageResultCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCache = new StorageResultCache(mContext, UserHandle.myUserId());
+    }
+
+    @Test
+    public void get_noCacheData_shouldReturnNull() {
+        assertThat(mCache.get()).isNull();
+        assertThat(mCache.getTimestamp()).isEqualTo(0);
+    }
+
+    @Test
+    public void put_shouldSaveMediaSizesOnly() {
+        mCache.put(getFakeStorageResult(), FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT);
+
+        final StorageAsyncLoader.StorageResult result = mCache.get();
+
+        assertThat(result.imagesSize).isEqualTo(FAKE_IMAGES_SIZE);
+        assertThat(result.trashSize).isEqualTo(FAKE_TRASH_SIZE);
+        assertThat(result.gamesSize).isEqualTo(0L);
+        assertThat(result.duplicateCodeSize).isEqualTo(0L);
+        assertThat(mCache.getTimestamp()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void getIfMediaUnchanged_sameGeneration_shouldReturnResult() {
+        mCache.put(getFakeStorageResult(), FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT);
+
+        assertThat(mCache.getIfMediaUnchanged(FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT)).isNotNull();
+    }
+
+    @Test
+    public void getIfMediaUnchanged_newGeneration_shouldReturnNull() {
+        mCache.put(getFakeStorageResult(), FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT);
+
+        assertThat(mCache.getIfMediaUnchanged(FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION + 1,
+                FAKE_MEDIA_COUNT)).isNull();
+    }
+
+    @Test
+    public void getIfMediaUnchanged_newVersion_shouldReturnNull() {
+        mCache.put(getFakeStorageResult(), FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT);
+
+        assertThat(mCache.getIfMediaUnchanged("newVersion", FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT)).isNull();
+    }
+
+    @Test
+    public void getIfMediaUnchanged_fewerFiles_shouldReturnNull() {
+        mCache.put(getFakeStorageResult(), FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT);
+
+        assertThat(mCache.getIfMediaUnchanged(FAKE_MEDIA_VERSION, FAKE_MEDIA_GENERATION,
+                FAKE_MEDIA_COUNT - 1)).isNull();
+    }
+
+    private StorageAsyncLoader.StorageResult getFakeStorageResult() {
+        final StorageAsyncLoader.StorageResult result = new StorageAsyncLoader.StorageResult();
+        result.imagesSize = FAKE_IMAGES_SIZE;
+        result.trashSize = FAKE_TRASH_SIZE;
+        result.gamesSize = FAKE_GAMES_SIZE;
+        result.duplicateCodeSize = FAKE_DUPLICATE_CODE_SIZE;
+        return result;
+    }
+}
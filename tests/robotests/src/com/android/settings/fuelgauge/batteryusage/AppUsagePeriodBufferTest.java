@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public final class AppUsagePeriodBufferTest {
+
+    @Test
+    public void add_exceedDefaultCapacity_keepsAllPeriods() {
+        final AppUsagePeriodBuffer buffer = new AppUsagePeriodBuffer();
+        for (int index = 0; index < 20; index++) {
+            buffer.add(index * 10L, index * 10L + 5);
+        }
+
+        assertThat(buffer.size()).isEqualTo(20);
+        assertThat(buffer.getStartTime(19)).isEqualTo(190L);
+        assertThat(buffer.getEndTime(19)).isEqualTo(195L);
+    }
+
+    @Test
+    public void addTrimmed_trimsIntoRangeAndDropsEmptyPeriod() {
+        final AppUsagePeriodBuffer buffer = new AppUsagePeriodBuffer();
+
+        buffer.addTrimmed(/* startTime= */ 50, /* endTime= */ 150, 100, 200);
+        buffer.addTrimmed(/* startTime= */ 10, /* endTime= */ 20, 100, 200);
+
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(buffer.getStartTime(0)).isEqualTo(100L);
+        assertThat(buffer.getEndTime(0)).isEqualTo(150L);
+    }
+
+    @Test
+    public void sortAndMerge_mergesOverlappingAndAdjacentPeriods() {
+        final AppUsagePeriodBuffer buffer = new AppUsagePeriodBuffer();
+        buffer.add(30, 40);
+        buffer.add(1, 5);
+        buffer.add(3, 10);
+        buffer.add(10, 12);
+        buffer.add(35, 38);
+        buffer.add(20, 25);
+
+        buffer.sortAndMerge();
+
+        final List<AppUsagePeriod> appUsagePeriodList = buffer.toAppUsagePeriodList();
+        assertThat(appUsagePeriodList).hasSize(3);
+        assertAppUsagePeriod(appUsagePeriodList.get(0), 1, 12);
+        assertAppUsagePeriod(appUsagePeriodList.get(1), 20, 25);
+        assertAppUsagePeriod(appUsagePeriodList.get(2), 30, 40);
+        assertThat(buffer.getTotalDuration()).isEqualTo(26L);
+    }
+
+    @Test
+    public void sortAndMerge_nestedPeriods_returnOuterPeriod() {
+        final AppUsagePeriodBuffer buffer = new AppUsagePeriodBuffer();
+        buffer.add(0, 100);
+        buffer.add(10, 20);
+        buffer.add(30, 40);
+
+        buffer.sortAndMerge();
+
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(buffer.getTotalDuration()).isEqualTo(100L);
+    }
+
+    private static void assertAppUsagePeriod(
+            final AppUsagePeriod period, final long startTime, final long endTime) {
+        assertThat(period.getStartTime()).isEqualTo(startTime);
+        assertThat(period.getEndTime()).isEqualTo(endTime);
+    }
+}
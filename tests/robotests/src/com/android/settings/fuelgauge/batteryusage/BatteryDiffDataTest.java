@@ -251,7 +251,7 @@ public class BatteryDiffDataTest {
         values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, consumerType);
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+                batteryInformation.toByteArray());
         return new BatteryHistEntry(values);
     }
 }
@@ -204,7 +204,7 @@ public final class BatteryDiffEntryTest {
                         .build();
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+                batteryInformation.toByteArray());
         final BatteryHistEntry batteryHistEntry = new BatteryHistEntry(values);
 
         final BatteryDiffEntry entry = createBatteryDiffEntry(10, batteryHistEntry);
@@ -300,7 +300,7 @@ public final class BatteryDiffEntryTest {
                 BatteryInformation.newBuilder().setAppLabel(expectedAppLabel).build();
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+                batteryInformation.toByteArray());
         final BatteryHistEntry batteryHistEntry = new BatteryHistEntry(values);
 
         final BatteryDiffEntry entry = createBatteryDiffEntry(10, batteryHistEntry);
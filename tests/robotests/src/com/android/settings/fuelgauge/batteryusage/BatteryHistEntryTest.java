@@ -141,7 +141,7 @@ public final class BatteryHistEntryTest {
                 BatteryInformation.newBuilder().setDrainType(1).build();
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+                batteryInformation.toByteArray());
         final BatteryHistEntry batteryHistEntry = new BatteryHistEntry(values);
 
         assertThat(batteryHistEntry.getKey()).isEqualTo("S|1");
@@ -427,7 +427,7 @@ public final class BatteryHistEntryTest {
                     "com.google.android.settings.battery",
                     Long.valueOf(timestamp),
                     Integer.valueOf(ConvertUtils.CONSUMER_TYPE_SYSTEM_BATTERY),
-                    ConvertUtils.convertBatteryInformationToString(batteryInformation)
+                    batteryInformation.toByteArray()
                 });
         cursor.moveToFirst();
         return new BatteryHistEntry(cursor);
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryHistorySlotCollectorTest {
+    private static final long MINUTE = DateUtils.MINUTE_IN_MILLIS;
+    private static final long HOUR = DateUtils.HOUR_IN_MILLIS;
+
+    private Context mContext;
+    private BatteryHistorySlotCollector mCollector;
+    private long mSharpHour;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCollector = new BatteryHistorySlotCollector();
+        mSharpHour = TimestampUtils.getNextHourTimestamp(System.currentTimeMillis());
+    }
+
+    @Test
+    public void onSnapshot_keepsOnlyNearestSnapshotsOfSharpHours() {
+        addSnapshot(mSharpHour + 10 * MINUTE);
+        addSnapshot(mSharpHour + 30 * MINUTE);
+        addSnapshot(mSharpHour + 50 * MINUTE);
+        addSnapshot(mSharpHour + HOUR + 5 * MINUTE);
+        addSnapshot(mSharpHour + HOUR + 20 * MINUTE);
+        addSnapshot(mSharpHour + 2 * HOUR);
+        addSnapshot(mSharpHour + 2 * HOUR + 30 * MINUTE);
+
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+                mCollector.getBatteryHistoryMap();
+
+        assertThat(batteryHistoryMap.keySet())
+                .containsExactly(
+                        mSharpHour + 10 * MINUTE,
+                        mSharpHour + 50 * MINUTE,
+                        mSharpHour + HOUR + 5 * MINUTE,
+                        mSharpHour + HOUR + 20 * MINUTE,
+                        mSharpHour + 2 * HOUR);
+    }
+
+    @Test
+    public void onSnapshot_notInAscendingOrder_keepsAllSnapshots() {
+        addSnapshot(mSharpHour + 30 * MINUTE);
+        addSnapshot(mSharpHour + 10 * MINUTE);
+        addSnapshot(mSharpHour + 20 * MINUTE);
+
+        assertThat(mCollector.getBatteryHistoryMap()).hasSize(3);
+    }
+
+    @Test
+    public void getHistoryMapWithExpectedTimestamps_sameResultAsAllSnapshots() {
+        DataProcessor.sTestCurrentTimeMillis = mSharpHour + 3 * HOUR;
+        final Map<Long, Map<String, BatteryHistEntry>> allSnapshots = new ArrayMap<>();
+        for (long timestamp = mSharpHour + 10 * MINUTE;
+                timestamp < mSharpHour + 3 * HOUR;
+                timestamp += 20 * MINUTE) {
+            final Map<String, BatteryHistEntry> snapshot = createSnapshot(timestamp);
+            allSnapshots.put(timestamp, snapshot);
+            mCollector.onSnapshot(timestamp, snapshot);
+        }
+
+        try {
+            final Map<Long, Map<String, BatteryHistEntry>> expectedMap =
+                    DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, allSnapshots);
+            final Map<Long, Map<String, BatteryHistEntry>> resultMap =
+                    DataProcessor.getHistoryMapWithExpectedTimestamps(
+                            mContext, mCollector.getBatteryHistoryMap());
+
+            assertThat(resultMap.keySet()).isEqualTo(expectedMap.keySet());
+            for (Map.Entry<Long, Map<String, BatteryHistEntry>> entry : expectedMap.entrySet()) {
+                final Map<String, BatteryHistEntry> resultSnapshot = resultMap.get(entry.getKey());
+                assertThat(resultSnapshot.keySet()).isEqualTo(entry.getValue().keySet());
+                for (String key : entry.getValue().keySet()) {
+                    assertThat(resultSnapshot.get(key).mConsumePower)
+                            .isEqualTo(entry.getValue().get(key).mConsumePower);
+                }
+            }
+        } finally {
+            DataProcessor.sTestCurrentTimeMillis = 0;
+        }
+    }
+
+    private void addSnapshot(long timestamp) {
+        mCollector.onSnapshot(timestamp, createSnapshot(timestamp));
+    }
+
+    private static Map<String, BatteryHistEntry> createSnapshot(long timestamp) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setBootTimestamp(timestamp)
+                        .setConsumePower(timestamp / (double) MINUTE)
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, 1001L);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
+        final BatteryHistEntry entry = new BatteryHistEntry(values);
+        final Map<String, BatteryHistEntry> snapshot = new ArrayMap<>();
+        snapshot.put(entry.getKey(), entry);
+        return snapshot;
+    }
+}
@@ -59,6 +59,7 @@ public final class BatteryUsageContentProviderTest {
     private static final long TIMESTAMP1 = System.currentTimeMillis();
     private static final long TIMESTAMP2 = System.currentTimeMillis() + 2;
     private static final long TIMESTAMP3 = System.currentTimeMillis() + 4;
+    private static final byte[] TEST_BYTES = new byte[] {1, 2, 3};
     private static final String PACKAGE_NAME1 = "com.android.settings1";
     private static final String PACKAGE_NAME2 = "com.android.settings2";
     private static final String PACKAGE_NAME3 = "com.android.settings3";
@@ -310,8 +311,7 @@ public final class BatteryUsageContentProviderTest {
                         .setForegroundServiceUsageTimeInMs(1500)
                         .setDrainType(1)
                         .build();
-        final String expectedBatteryInformationString =
-                ConvertUtils.convertBatteryInformationToString(batteryInformation);
+        final byte[] expectedBatteryInformation = batteryInformation.toByteArray();
         ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_UID, Long.valueOf(101L));
         values.put(BatteryHistEntry.KEY_USER_ID, Long.valueOf(1001L));
@@ -319,7 +319,7 @@ public final class BatteryUsageContentProviderTest {
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100021L));
         values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, Integer.valueOf(2));
         values.put(BatteryHistEntry.KEY_IS_FULL_CHARGE_CYCLE_START, true);
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformationString);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformation);
 
         final Uri uri = mProvider.insert(VALID_BATTERY_STATE_CONTENT_URI, values);
 
@@ -334,7 +334,7 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states.get(0).timestamp).isEqualTo(2100021L);
         assertThat(states.get(0).consumerType).isEqualTo(2);
         assertThat(states.get(0).isFullChargeCycleStart).isTrue();
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformation);
     }
 
     @Test
@@ -348,12 +348,11 @@ public final class BatteryUsageContentProviderTest {
                         .build();
         final BatteryInformation batteryInformation =
                 BatteryInformation.newBuilder().setDeviceBatteryState(deviceBatteryState).build();
-        final String expectedBatteryInformationString =
-                ConvertUtils.convertBatteryInformationToString(batteryInformation);
+        final byte[] expectedBatteryInformation = batteryInformation.toByteArray();
         final ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_PACKAGE_NAME, new String("fake_data"));
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100022L));
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformationString);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformation);
 
         final Uri uri = mProvider.insert(VALID_BATTERY_STATE_CONTENT_URI, values);
 
@@ -364,7 +363,7 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states).hasSize(1);
         assertThat(states.get(0).packageName).isEqualTo("fake_data");
         assertThat(states.get(0).timestamp).isEqualTo(2100022L);
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformation);
     }
 
     @Test
@@ -441,7 +440,7 @@ public final class BatteryUsageContentProviderTest {
         mProvider.onCreate();
         ContentValues values = new ContentValues();
         values.put(BatteryUsageSlotEntity.KEY_TIMESTAMP, 10001L);
-        values.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, "TEST_STRING");
+        values.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, TEST_BYTES);
 
         final Uri uri = mProvider.insert(DatabaseUtils.BATTERY_USAGE_SLOT_URI, values);
         // Verifies the BatteryUsageSlotEntity content.
@@ -450,7 +449,7 @@ public final class BatteryUsageContentProviderTest {
                 BatteryStateDatabase.getInstance(mContext).batteryUsageSlotDao().getAll();
         assertThat(entities).hasSize(1);
         assertThat(entities.get(0).timestamp).isEqualTo(10001L);
-        assertThat(entities.get(0).batteryUsageSlot).isEqualTo("TEST_STRING");
+        assertThat(entities.get(0).batteryUsageSlot).isEqualTo(TEST_BYTES);
 
         final Cursor cursor1 = getCursorOfBatteryUsageSlots(10001L);
         assertThat(cursor1.getCount()).isEqualTo(1);
@@ -458,10 +457,10 @@ public final class BatteryUsageContentProviderTest {
         assertThat(cursor1.getLong(cursor1.getColumnIndex(BatteryUsageSlotEntity.KEY_TIMESTAMP)))
                 .isEqualTo(10001L);
         assertThat(
-                        cursor1.getString(
+                        cursor1.getBlob(
                                 cursor1.getColumnIndex(
                                         BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT)))
-                .isEqualTo("TEST_STRING");
+                .isEqualTo(TEST_BYTES);
 
         final Cursor cursor2 = getCursorOfBatteryUsageSlots(10002L);
         assertThat(cursor2.getCount()).isEqualTo(0);
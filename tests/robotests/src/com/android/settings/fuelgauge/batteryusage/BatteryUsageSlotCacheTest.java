@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.fuelgauge.batteryusage.db.BatteryUsageSlotEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Calendar;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryUsageSlotCacheTest {
+    private static final long HOUR_IN_MILLIS = 60 * 60 * 1000L;
+
+    private Context mContext;
+    private Calendar mCalendar;
+    private long mStartTimestamp;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCalendar = Calendar.getInstance();
+        mStartTimestamp = mCalendar.getTimeInMillis() - 5 * HOUR_IN_MILLIS;
+        BatteryUsageSlotCache.invalidate();
+    }
+
+    @After
+    public void cleanUp() {
+        DatabaseUtils.sFakeSupplier = null;
+        BatteryUsageSlotCache.invalidate();
+    }
+
+    @Test
+    public void getBatteryUsageSlots_firstQuery_loadsFromDatabase() {
+        DatabaseUtils.sFakeSupplier =
+                () -> createSlotCursor(mStartTimestamp, mStartTimestamp + HOUR_IN_MILLIS);
+
+        final List<BatteryUsageSlot> slots =
+                BatteryUsageSlotCache.getBatteryUsageSlots(mContext, mCalendar, mStartTimestamp);
+
+        assertThat(slots).hasSize(2);
+        assertThat(slots.get(0).getStartTimestamp()).isEqualTo(mStartTimestamp);
+        assertThat(BatteryUsageSlotCache.getCachedSlotCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getBatteryUsageSlots_secondQuery_appendsNewSlotsOnly() {
+        DatabaseUtils.sFakeSupplier =
+                () -> createSlotCursor(mStartTimestamp, mStartTimestamp + HOUR_IN_MILLIS);
+        BatteryUsageSlotCache.getBatteryUsageSlots(mContext, mCalendar, mStartTimestamp);
+        DatabaseUtils.sFakeSupplier = () -> createSlotCursor(mStartTimestamp + 2 * HOUR_IN_MILLIS);
+
+        final List<BatteryUsageSlot> slots =
+                BatteryUsageSlotCache.getBatteryUsageSlots(mContext, mCalendar, mStartTimestamp);
+
+        assertThat(slots).hasSize(3);
+        assertThat(slots.get(2).getStartTimestamp())
+                .isEqualTo(mStartTimestamp + 2 * HOUR_IN_MILLIS);
+    }
+
+    @Test
+    public void getBatteryUsageSlots_laterStartTimestamp_dropsOutdatedSlots() {
+        DatabaseUtils.sFakeSupplier =
+                () -> createSlotCursor(mStartTimestamp, mStartTimestamp + HOUR_IN_MILLIS);
+        BatteryUsageSlotCache.getBatteryUsageSlots(mContext, mCalendar, mStartTimestamp);
+        DatabaseUtils.sFakeSupplier = () -> createSlotCursor();
+
+        final List<BatteryUsageSlot> slots =
+                BatteryUsageSlotCache.getBatteryUsageSlots(
+                        mContext, mCalendar, mStartTimestamp + HOUR_IN_MILLIS);
+
+        assertThat(slots).hasSize(1);
+        assertThat(slots.get(0).getStartTimestamp()).isEqualTo(mStartTimestamp + HOUR_IN_MILLIS);
+    }
+
+    @Test
+    public void invalidate_clearsCachedSlots() {
+        DatabaseUtils.sFakeSupplier = () -> createSlotCursor(mStartTimestamp);
+        BatteryUsageSlotCache.getBatteryUsageSlots(mContext, mCalendar, mStartTimestamp);
+
+        BatteryUsageSlotCache.invalidate();
+
+        assertThat(BatteryUsageSlotCache.getCachedSlotCount()).isEqualTo(0);
+    }
+
+    private static MatrixCursor createSlotCursor(long... startTimestamps) {
+        final MatrixCursor cursor =
+                new MatrixCursor(
+                        new String[] {
+                            BatteryUsageSlotEntity.KEY_TIMESTAMP,
+                            BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT
+                        });
+        for (long startTimestamp : startTimestamps) {
+            final BatteryUsageSlot batteryUsageSlot =
+                    BatteryUsageSlot.newBuilder()
+                            .setStartTimestamp(startTimestamp)
+                            .setEndTimestamp(startTimestamp + HOUR_IN_MILLIS)
+                            .build();
+            cursor.addRow(new Object[] {startTimestamp, batteryUsageSlot.toByteArray()});
+        }
+        return cursor;
+    }
+}
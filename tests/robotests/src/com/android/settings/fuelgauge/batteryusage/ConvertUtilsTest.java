@@ -294,7 +294,8 @@ public final class ConvertUtilsTest {
         final ContentValues values =
                 ConvertUtils.convertBatteryUsageSlotToContentValues(batteryUsageSlot);
         assertThat(values.getAsLong(BatteryUsageSlotEntity.KEY_TIMESTAMP)).isEqualTo(10001L);
-        assertThat(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT).isNotEmpty();
+        assertThat(values.getAsByteArray(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT))
+                .isEqualTo(batteryUsageSlot.toByteArray());
     }
 
     @Test
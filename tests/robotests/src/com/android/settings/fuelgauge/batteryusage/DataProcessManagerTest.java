@@ -58,7 +58,6 @@ import org.mockito.junit.MockitoRule;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.android.util.concurrent.PausedExecutorService;
 import org.robolectric.shadows.ShadowLooper;
-import org.robolectric.shadows.ShadowPausedAsyncTask;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -66,6 +65,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
 @RunWith(RobolectricTestRunner.class)
@@ -78,6 +78,7 @@ public final class DataProcessManagerTest {
     private Context mContext;
     private DataProcessManager mDataProcessManager;
     private PausedExecutorService mExecutorService;
+    private ExecutorService mOriginalExecutor;
 
     @Mock private UserIdsSeries mUserIdsSeries;
     @Mock private IUsageStatsManager mUsageStatsManager;
@@ -90,7 +91,8 @@ public final class DataProcessManagerTest {
     @Before
     public void setUp() {
         mExecutorService = new PausedExecutorService();
-        ShadowPausedAsyncTask.overrideExecutor(mExecutorService);
+        mOriginalExecutor = DataProcessManager.sExecutor;
+        DataProcessManager.sExecutor = mExecutorService;
         mContext = spy(ApplicationProvider.getApplicationContext());
         DataProcessor.sTestSystemAppsPackageNames = Set.of();
         DataProcessor.sUsageStatsManager = mUsageStatsManager;
@@ -123,6 +125,8 @@ public final class DataProcessManagerTest {
     public void cleanUp() {
         DatabaseUtils.sFakeSupplier = null;
         DataProcessManager.sFakeBatteryHistoryMap = null;
+        BatteryUsageSlotCache.invalidate();
+        DataProcessManager.sExecutor = mOriginalExecutor;
     }
 
     @Test
@@ -159,6 +163,41 @@ public final class DataProcessManagerTest {
         assertThat(mDataProcessManager.getAppUsagePeriodMap()).isNull();
     }
 
+    @Test
+    public void start_recordStageLatencies() {
+        DatabaseUtils.sFakeSupplier = () -> new MatrixCursor(new String[] {});
+        doReturn(true).when(mUserManager).isUserUnlocked(anyInt());
+
+        mDataProcessManager.start();
+        mExecutorService.runAll();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mDataProcessManager.getStageLatencies().keySet())
+                .containsAtLeast(
+                        "loadCurrentBatteryHistoryMap",
+                        "loadCurrentAppUsageList",
+                        "loadDatabaseAppUsageList",
+                        "loadPowerConnectionBatteryEventList",
+                        "loadBatteryUsageSlotList");
+    }
+
+    @Test
+    public void cancel_pendingStagesNotApplied() {
+        DatabaseUtils.sFakeSupplier = () -> new MatrixCursor(new String[] {});
+        doReturn(true).when(mUserManager).isUserUnlocked(anyInt());
+
+        mDataProcessManager.start();
+        mDataProcessManager.cancel();
+        mExecutorService.runAll();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mDataProcessManager.isCancelled()).isTrue();
+        assertThat(mDataProcessManager.getIsCurrentAppUsageLoaded()).isFalse();
+        assertThat(mDataProcessManager.getIsDatabaseAppUsageLoaded()).isFalse();
+        assertThat(mDataProcessManager.getIsCurrentBatteryHistoryLoaded()).isFalse();
+        assertThat(mDataProcessManager.getStageLatencies()).isEmpty();
+    }
+
     @Test
     public void start_loadExpectedAppUsageData() throws RemoteException {
         final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay =
@@ -460,7 +499,7 @@ public final class DataProcessManagerTest {
                 BatteryInformation.newBuilder().setDeviceBatteryState(deviceBatteryState).build();
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+                batteryInformation.toByteArray());
         return values;
     }
 
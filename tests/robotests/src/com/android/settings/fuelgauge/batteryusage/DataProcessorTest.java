@@ -2161,11 +2161,10 @@ public final class DataProcessorTest {
         assertThat(appUsagePeriodMap).hasSize(2);
         final Map<String, List<AppUsagePeriod>> userMap1 = appUsagePeriodMap.get(1L);
         assertThat(userMap1).hasSize(2);
+        // The overlapping periods of multiple instances are merged.
         List<AppUsagePeriod> appUsagePeriodList = userMap1.get(packageName1);
-        assertThat(appUsagePeriodList).hasSize(3);
-        assertAppUsagePeriod(appUsagePeriodList.get(0), 1, 2);
-        assertAppUsagePeriod(appUsagePeriodList.get(1), 2, 4);
-        assertAppUsagePeriod(appUsagePeriodList.get(2), 3, 4);
+        assertThat(appUsagePeriodList).hasSize(1);
+        assertAppUsagePeriod(appUsagePeriodList.get(0), 1, 4);
         appUsagePeriodList = userMap1.get(packageName2);
         assertThat(appUsagePeriodList).hasSize(1);
         assertAppUsagePeriod(appUsagePeriodList.get(0), 2, 4);
@@ -2428,7 +2427,7 @@ public final class DataProcessorTest {
                 BatteryInformation.newBuilder().setDeviceBatteryState(deviceBatteryState).build();
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+                batteryInformation.toByteArray());
         return values;
     }
 
@@ -2468,7 +2467,7 @@ public final class DataProcessorTest {
         values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, consumerType);
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+                batteryInformation.toByteArray());
         return new BatteryHistEntry(values);
     }
 
@@ -102,7 +102,7 @@ public final class BatteryReattributeDaoTest {
     private void insert(long timestampStart, long timestampEnd, String reattributeData) {
         mBatteryReattributeDao.insert(
                 new BatteryReattributeEntity(
-                        timestampStart, timestampEnd, reattributeData));
+                        timestampStart, timestampEnd, reattributeData.getBytes()));
     }
 
     private List<BatteryReattributeEntity> getAllEntityData() {
@@ -113,6 +113,6 @@ public final class BatteryReattributeDaoTest {
             long timestampEnd, String reattributeData) {
         assertThat(entity.timestampStart).isEqualTo(timestampStart);
         assertThat(entity.timestampEnd).isEqualTo(timestampEnd);
-        assertThat(entity.reattributeData).isEqualTo(reattributeData);
+        assertThat(entity.reattributeData).isEqualTo(reattributeData.getBytes());
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
+import com.android.settings.fuelgauge.batteryusage.BatteryReattribute;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** Tests for {@link BatteryStateDatabaseMigrations}. */
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryStateDatabaseMigrationsTest {
+
+    private SupportSQLiteOpenHelper mOpenHelper;
+    private SupportSQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mOpenHelper =
+                new FrameworkSQLiteOpenHelperFactory()
+                        .create(
+                                SupportSQLiteOpenHelper.Configuration.builder(context)
+                                        .name(null)
+                                        .callback(
+                                                new SupportSQLiteOpenHelper.Callback(3) {
+                                                    @Override
+                                                    public void onCreate(
+                                                            @NonNull SupportSQLiteDatabase db) {
+                                                        createLegacyTables(db);
+                                                    }
+
+                                                    @Override
+                                                    public void onUpgrade(
+                                                            @NonNull SupportSQLiteDatabase db,
+                                                            int oldVersion,
+                                                            int newVersion) {}
+                                                })
+                                        .build());
+        mDatabase = mOpenHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        mOpenHelper.close();
+    }
+
+    @Test
+    public void migrate_batteryState_decodesBase64IntoBlob() {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder().setAppLabel("Settings").setTotalPower(99).build();
+        mDatabase.execSQL(
+                "INSERT INTO BatteryState (uid, userId, packageName, timestamp, consumerType,"
+                        + " isFullChargeCycleStart, batteryInformation) VALUES (1001, 0,"
+                        + " 'com.android.settings', 10001, 1, 1, ?)",
+                new Object[] {encode(batteryInformation.toByteArray())});
+
+        BatteryStateDatabaseMigrations.MIGRATION_3_4.migrate(mDatabase);
+
+        try (Cursor cursor = mDatabase.query("SELECT * FROM BatteryState")) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            cursor.moveToFirst();
+            final int columnIndex = cursor.getColumnIndex("batteryInformation");
+            assertThat(cursor.getType(columnIndex)).isEqualTo(Cursor.FIELD_TYPE_BLOB);
+            assertThat(cursor.getBlob(columnIndex)).isEqualTo(batteryInformation.toByteArray());
+            assertThat(cursor.getString(cursor.getColumnIndex("packageName")))
+                    .isEqualTo("com.android.settings");
+            assertThat(cursor.getLong(cursor.getColumnIndex("timestamp"))).isEqualTo(10001L);
+        }
+    }
+
+    @Test
+    public void migrate_batteryUsageSlotAndReattribute_decodesBase64IntoBlob() {
+        final byte[] slotBytes = new byte[] {8, 1, 16, 2};
+        final BatteryReattribute batteryReattribute =
+                BatteryReattribute.newBuilder()
+                        .setTimestampStart(100L)
+                        .setTimestampEnd(200L)
+                        .build();
+        mDatabase.execSQL(
+                "INSERT INTO BatteryUsageSlotEntity (timestamp, batteryUsageSlot) VALUES (10, ?)",
+                new Object[] {encode(slotBytes)});
+        mDatabase.execSQL(
+                "INSERT INTO BatteryReattributeEntity VALUES (100, 200, ?)",
+                new Object[] {encode(batteryReattribute.toByteArray())});
+
+        BatteryStateDatabaseMigrations.MIGRATION_3_4.migrate(mDatabase);
+
+        try (Cursor cursor = mDatabase.query("SELECT * FROM BatteryUsageSlotEntity")) {
+            cursor.moveToFirst();
+            assertThat(cursor.getBlob(cursor.getColumnIndex("batteryUsageSlot")))
+                    .isEqualTo(slotBytes);
+        }
+        try (Cursor cursor = mDatabase.query("SELECT * FROM BatteryReattributeEntity")) {
+            cursor.moveToFirst();
+            assertThat(cursor.getLong(cursor.getColumnIndex("timestampStart"))).isEqualTo(100L);
+            assertThat(cursor.getBlob(cursor.getColumnIndex("reattributeData")))
+                    .isEqualTo(batteryReattribute.toByteArray());
+        }
+    }
+
+    @Test
+    public void migrate_invalidBase64_storesEmptyBlob() {
+        mDatabase.execSQL(
+                "INSERT INTO BatteryUsageSlotEntity (timestamp, batteryUsageSlot)"
+                        + " VALUES (10, '!!invalid!!')");
+
+        BatteryStateDatabaseMigrations.MIGRATION_3_4.migrate(mDatabase);
+
+        try (Cursor cursor = mDatabase.query("SELECT * FROM BatteryUsageSlotEntity")) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            cursor.moveToFirst();
+            assertThat(cursor.getBlob(cursor.getColumnIndex("batteryUsageSlot"))).isEmpty();
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.encodeToString(bytes, Base64.DEFAULT);
+    }
+
+    private static void createLegacyTables(SupportSQLiteDatabase db) {
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `BatteryState` ("
+                        + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                        + "`uid` INTEGER NOT NULL, `userId` INTEGER NOT NULL, "
+                        + "`packageName` TEXT, `timestamp` INTEGER NOT NULL, "
+                        + "`consumerType` INTEGER NOT NULL, "
+                        + "`isFullChargeCycleStart` INTEGER NOT NULL, "
+                        + "`batteryInformation` TEXT, `batteryInformationDebug` TEXT)");
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `BatteryUsageSlotEntity` ("
+                        + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                        + "`timestamp` INTEGER NOT NULL, `batteryUsageSlot` TEXT)");
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `BatteryReattributeEntity` ("
+                        + "`timestampStart` INTEGER NOT NULL, `timestampEnd` INTEGER NOT NULL, "
+                        + "`reattributeData` TEXT NOT NULL, PRIMARY KEY(`timestampStart`))");
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.SystemClock;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class HomepageStartupTraceTest {
+
+    @After
+    public void tearDown() {
+        HomepageStartupTrace.clear();
+    }
+
+    @Test
+    public void toJson_notStarted_isEmpty() throws Exception {
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+
+        assertThat(HomepageStartupTrace.toJson().length()).isEqualTo(0);
+    }
+
+    @Test
+    public void toJson_phaseRecordedRelativeToStart() throws Exception {
+        HomepageStartupTrace.start();
+        SystemClock.sleep(10);
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+        SystemClock.sleep(30);
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+
+        final JSONObject phase = getPhase(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+
+        assertThat(phase.getLong(HomepageStartupTrace.KEY_BEGIN_MS)).isEqualTo(10);
+        assertThat(phase.getLong(HomepageStartupTrace.KEY_END_MS)).isEqualTo(40);
+    }
+
+    @Test
+    public void toJson_phaseRepeated_keepsFirstOccurrence() throws Exception {
+        HomepageStartupTrace.start();
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+        SystemClock.sleep(10);
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+        SystemClock.sleep(10);
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+        SystemClock.sleep(50);
+        HomepageStartupTrace.end(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+
+        final JSONObject phase = getPhase(HomepageStartupTrace.PHASE_CATEGORY_LOAD);
+
+        assertThat(phase.getLong(HomepageStartupTrace.KEY_BEGIN_MS)).isEqualTo(0);
+        assertThat(phase.getLong(HomepageStartupTrace.KEY_END_MS)).isEqualTo(10);
+    }
+
+    @Test
+    public void toJson_phaseNotEnded_hasNoEnd() throws Exception {
+        HomepageStartupTrace.start();
+        HomepageStartupTrace.begin(HomepageStartupTrace.PHASE_CARD_LOAD);
+
+        final JSONObject phase = getPhase(HomepageStartupTrace.PHASE_CARD_LOAD);
+
+        assertThat(phase.has(HomepageStartupTrace.KEY_END_MS)).isFalse();
+    }
+
+    @Test
+    public void start_dropsPreviousTrace() throws Exception {
+        HomepageStartupTrace.start();
+        HomepageStartupTrace.mark(HomepageStartupTrace.PHASE_FIRST_DRAW);
+
+        HomepageStartupTrace.start();
+
+        assertThat(HomepageStartupTrace.toJson().getJSONObject(HomepageStartupTrace.KEY_PHASES)
+                .has(HomepageStartupTrace.PHASE_FIRST_DRAW)).isFalse();
+    }
+
+    private static JSONObject getPhase(String phase) throws Exception {
+        return HomepageStartupTrace.toJson().getJSONObject(HomepageStartupTrace.KEY_PHASES)
+                .getJSONObject(phase);
+    }
+}
@@ -22,12 +22,16 @@ import static com.android.settings.intelligence.ContextualCardProto.ContextualCa
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import android.app.settings.SettingsEnums;
 import android.content.Context;
@@ -38,6 +42,7 @@ import com.android.settings.R;
 import com.android.settings.slices.CustomSliceRegistry;
 import com.android.settings.testutils.FakeFeatureFactory;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -62,6 +67,11 @@ public class ContextualCardLoaderTest {
         mFakeFeatureFactory = FakeFeatureFactory.setupForTest();
     }
 
+    @After
+    public void tearDown() {
+        ContextualCardLoader.sEligibleCardCache.clear(mContext);
+    }
+
     @Test
     public void loadInBackground_legacyMode_shouldReturnNothing() {
         assertThat(mContext.getResources().getBoolean(R.bool.config_use_legacy_suggestion))
@@ -70,6 +80,59 @@ public class ContextualCardLoaderTest {
         assertThat(mContextualCardLoader.loadInBackground()).isEmpty();
     }
 
+    @Test
+    public void filterEligibleCards_keepsCandidateOrderAndDropsIneligibleCards() {
+        final List<ContextualCard> candidates = getContextualCardList();
+        for (int i = 0; i < candidates.size(); i++) {
+            final ContextualCard candidate = candidates.get(i);
+            final EligibleCardChecker checker = mock(EligibleCardChecker.class);
+            when(checker.call()).thenReturn(i == 1 ? null : candidate);
+            doReturn(checker).when(mContextualCardLoader).createEligibleCardChecker(candidate);
+        }
+
+        final List<ContextualCard> result = mContextualCardLoader.filterEligibleCards(candidates);
+
+        final List<ContextualCard> expected = new ArrayList<>(candidates);
+        expected.remove(1);
+        assertThat(result).containsExactlyElementsIn(expected).inOrder();
+    }
+
+    @Test
+    public void filterEligibleCards_checkedRecently_shouldNotCheckAgain() {
+        final List<ContextualCard> candidates = getContextualCardList().stream().limit(1)
+                .collect(Collectors.toList());
+        final ContextualCard candidate = candidates.get(0);
+        final EligibleCardChecker checker = mock(EligibleCardChecker.class);
+        when(checker.call()).thenReturn(candidate);
+        doReturn(checker).when(mContextualCardLoader).createEligibleCardChecker(candidate);
+
+        mContextualCardLoader.filterEligibleCards(candidates);
+        final List<ContextualCard> result = mContextualCardLoader.filterEligibleCards(candidates);
+
+        assertThat(result).hasSize(1);
+        verify(mContextualCardLoader, times(1)).createEligibleCardChecker(candidate);
+    }
+
+    @Test
+    public void filterEligibleCards_checkedRecently_shouldLogCachedEligibility() {
+        final List<ContextualCard> candidates = getContextualCardList().stream().limit(1)
+                .collect(Collectors.toList());
+        final ContextualCard candidate = candidates.get(0);
+        final EligibleCardChecker checker = mock(EligibleCardChecker.class);
+        when(checker.call()).thenReturn(candidate);
+        doReturn(checker).when(mContextualCardLoader).createEligibleCardChecker(candidate);
+        mContextualCardLoader.filterEligibleCards(candidates);
+
+        mContextualCardLoader.filterEligibleCards(candidates);
+
+        verify(mFakeFeatureFactory.metricsFeatureProvider).action(SettingsEnums.PAGE_UNKNOWN,
+                SettingsEnums.ACTION_CONTEXTUAL_CARD_ELIGIBILITY,
+                SettingsEnums.SETTINGS_HOMEPAGE, candidate.getTextSliceUri(), 1 /* true */);
+        verify(mFakeFeatureFactory.metricsFeatureProvider).action(eq(SettingsEnums.PAGE_UNKNOWN),
+                eq(SettingsEnums.ACTION_CONTEXTUAL_CARD_LOAD),
+                eq(SettingsEnums.SETTINGS_HOMEPAGE), eq(candidate.getTextSliceUri()), anyInt());
+    }
+
     @Test
     public void getDisplayableCards_twoEligibleCards_shouldShowAll() {
         final List<ContextualCard> cards = getContextualCardList().stream().limit(2)
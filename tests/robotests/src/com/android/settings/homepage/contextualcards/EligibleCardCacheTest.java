@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class EligibleCardCacheTest {
+
+    private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
+
+    private Context mContext;
+    private EligibleCardCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = new EligibleCardCache();
+    }
+
+    @After
+    public void tearDown() {
+        mCache.clear(mContext);
+    }
+
+    @Test
+    public void get_eligibleCard_appliedToNewCandidate() {
+        final ContextualCard card = getContextualCard(0.5).mutate()
+                .setHasInlineAction(true)
+                .build();
+        mCache.put(card, card, mCache.startCheck(mContext, TEST_SLICE_URI));
+
+        final ContextualCard candidate = getContextualCard(0.9);
+        final ContextualCard result = mCache.get(TEST_SLICE_URI).apply(candidate);
+
+        assertThat(result.getRankingScore()).isEqualTo(0.9);
+        assertThat(result.hasInlineAction()).isTrue();
+    }
+
+    @Test
+    public void get_ineligibleCard_returnsNullCard() {
+        final ContextualCard card = getContextualCard(0.5);
+        mCache.put(card, null, mCache.startCheck(mContext, TEST_SLICE_URI));
+
+        final EligibleCardCache.Entry entry = mCache.get(TEST_SLICE_URI);
+
+        assertThat(entry).isNotNull();
+        assertThat(entry.apply(card)).isNull();
+    }
+
+    @Test
+    public void get_expired_returnsNull() {
+        final ContextualCard card = getContextualCard(0.5);
+        mCache.put(card, card, mCache.startCheck(mContext, TEST_SLICE_URI));
+
+        SystemClock.sleep(EligibleCardCache.TTL_MS);
+
+        assertThat(mCache.get(TEST_SLICE_URI)).isNull();
+    }
+
+    @Test
+    public void get_sliceChangeNotified_returnsNull() {
+        final ContextualCard card = getContextualCard(0.5);
+        mCache.put(card, card, mCache.startCheck(mContext, TEST_SLICE_URI));
+
+        mContext.getContentResolver().notifyChange(TEST_SLICE_URI, null);
+
+        assertThat(mCache.get(TEST_SLICE_URI)).isNull();
+    }
+
+    @Test
+    public void put_sliceChangeNotifiedDuringCheck_shouldNotCache() {
+        final ContextualCard card = getContextualCard(0.5);
+        final long sequence = mCache.startCheck(mContext, TEST_SLICE_URI);
+
+        mContext.getContentResolver().notifyChange(TEST_SLICE_URI, null);
+        mCache.put(card, card, sequence);
+
+        assertThat(mCache.get(TEST_SLICE_URI)).isNull();
+    }
+
+    private static ContextualCard getContextualCard(double score) {
+        return new ContextualCard.Builder()
+                .setName("test_card")
+                .setRankingScore(score)
+                .setCardType(ContextualCard.CardType.SLICE)
+                .setSliceUri(TEST_SLICE_URI)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.android.settings.intelligence.ContextualCardProto.ContextualCard.Category.IMPORTANT_VALUE;
+import static com.android.settings.intelligence.ContextualCardProto.ContextualCard.Category.STICKY_VALUE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.PriorityBlockingQueue;
+
+@RunWith(RobolectricTestRunner.class)
+public class EligibleCardCheckTaskTest {
+
+    @Test
+    public void compareTo_stickyCardFirst() {
+        final EligibleCardCheckTask important =
+                createTask(getContextualCard("important", IMPORTANT_VALUE, 0.9), 0);
+        final EligibleCardCheckTask sticky =
+                createTask(getContextualCard("sticky", STICKY_VALUE, 0.1), 1);
+        final PriorityBlockingQueue<EligibleCardCheckTask> queue = new PriorityBlockingQueue<>();
+
+        queue.add(important);
+        queue.add(sticky);
+
+        assertThat(queue.poll()).isSameInstanceAs(sticky);
+        assertThat(queue.poll()).isSameInstanceAs(important);
+    }
+
+    @Test
+    public void compareTo_higherRankingScoreFirst() {
+        final EligibleCardCheckTask low = createTask(getContextualCard("low", 0, 0.1), 0);
+        final EligibleCardCheckTask high = createTask(getContextualCard("high", 0, 0.9), 1);
+
+        assertThat(high.compareTo(low)).isLessThan(0);
+        assertThat(low.compareTo(high)).isGreaterThan(0);
+    }
+
+    @Test
+    public void compareTo_sameScore_submissionOrder() {
+        final EligibleCardCheckTask first = createTask(getContextualCard("first", 0, 0.5), 0);
+        final EligibleCardCheckTask second = createTask(getContextualCard("second", 0, 0.5), 1);
+
+        assertThat(first.compareTo(second)).isLessThan(0);
+    }
+
+    @Test
+    public void run_recordsQueueWaitAndCheckTime() throws Exception {
+        final ContextualCard card = getContextualCard("card", 0, 0.5);
+        final EligibleCardChecker checker = mock(EligibleCardChecker.class);
+        when(checker.call()).thenAnswer(invocation -> {
+            SystemClock.sleep(20);
+            return card;
+        });
+        final EligibleCardCheckTask task = new EligibleCardCheckTask(checker, card, 0);
+        SystemClock.sleep(10);
+
+        assertThat(task.isStarted()).isFalse();
+        assertThat(task.getCheckMs()).isEqualTo(0);
+
+        task.run();
+
+        assertThat(task.isStarted()).isTrue();
+        assertThat(task.get()).isSameInstanceAs(card);
+        assertThat(task.getQueueWaitMs()).isEqualTo(10);
+        assertThat(task.getCheckMs()).isEqualTo(20);
+    }
+
+    private static EligibleCardCheckTask createTask(ContextualCard card, int sequence) {
+        return new EligibleCardCheckTask(mock(EligibleCardChecker.class), card, sequence);
+    }
+
+    private static ContextualCard getContextualCard(String name, int category, double score) {
+        return new ContextualCard.Builder()
+                .setName(name)
+                .setCategory(category)
+                .setRankingScore(score)
+                .setCardType(ContextualCard.CardType.SLICE)
+                .setSliceUri(Uri.parse("content://test/" + name))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class NonIndexableKeysStatsTest {
+
+    private static final String PROVIDER = "com.android.settings.FakeFragment";
+
+    @After
+    public void cleanUp() {
+        NonIndexableKeysStats.clear();
+    }
+
+    @Test
+    public void record_latencyDumped() throws Exception {
+        NonIndexableKeysStats.record(PROVIDER, 42L, false /* timedOut */);
+
+        final JSONObject providerObj = NonIndexableKeysStats.toJson().getJSONObject(PROVIDER);
+
+        assertThat(providerObj.getLong(NonIndexableKeysStats.KEY_LATENCY_MS)).isEqualTo(42L);
+        assertThat(providerObj.getBoolean(NonIndexableKeysStats.KEY_TIMED_OUT)).isFalse();
+    }
+
+    @Test
+    public void record_completionAfterTimeout_keepsTimedOutWithFullLatency() throws Exception {
+        NonIndexableKeysStats.record(PROVIDER, 1000L, true /* timedOut */);
+        NonIndexableKeysStats.record(PROVIDER, 3000L, true /* timedOut */);
+
+        final JSONObject providerObj = NonIndexableKeysStats.toJson().getJSONObject(PROVIDER);
+
+        assertThat(providerObj.getLong(NonIndexableKeysStats.KEY_LATENCY_MS)).isEqualTo(3000L);
+        assertThat(providerObj.getBoolean(NonIndexableKeysStats.KEY_TIMED_OUT)).isTrue();
+    }
+
+    @Test
+    public void record_fastCallAfterTimeout_replacesTimedOut() throws Exception {
+        NonIndexableKeysStats.record(PROVIDER, 1000L, true /* timedOut */);
+        NonIndexableKeysStats.record(PROVIDER, 10L, false /* timedOut */);
+
+        final JSONObject providerObj = NonIndexableKeysStats.toJson().getJSONObject(PROVIDER);
+
+        assertThat(providerObj.getLong(NonIndexableKeysStats.KEY_LATENCY_MS)).isEqualTo(10L);
+        assertThat(providerObj.getBoolean(NonIndexableKeysStats.KEY_TIMED_OUT)).isFalse();
+    }
+}
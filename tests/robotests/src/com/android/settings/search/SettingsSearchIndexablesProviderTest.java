@@ -16,6 +16,7 @@ import android.content.pm.ProviderInfo;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.provider.SearchIndexablesContract;
 
 import com.android.settings.R;
@@ -43,6 +44,10 @@ import org.robolectric.annotation.Resetter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(shadows = SettingsSearchIndexablesProviderTest.ShadowCategoryManager.class)
@@ -88,6 +93,7 @@ public class SettingsSearchIndexablesProviderTest {
 
     @After
     public void cleanUp() {
+        NonIndexableKeysStats.clear();
         ShadowCategoryManager.reset();
         mFakeFeatureFactory.searchFeatureProvider = mock(SearchFeatureProvider.class);
     }
@@ -150,6 +156,105 @@ public class SettingsSearchIndexablesProviderTest {
         assertThat(keys).containsAtLeast("pref_key_1", "pref_key_3", "pref_key_5");
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void queryNonIndexableKeys_multipleProviders_keysInProviderOrder() throws Exception {
+        mFakeFeatureFactory.searchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeSettingsFragment.class,
+                        FakeSettingsFragment.SEARCH_INDEX_DATA_PROVIDER));
+        final Uri rawUri = Uri.parse(
+                BASE_AUTHORITY + SearchIndexablesContract.NON_INDEXABLES_KEYS_PATH);
+
+        final List<String> keys = new ArrayList<>();
+        try (Cursor cursor = mProvider.query(rawUri,
+                SearchIndexablesContract.NON_INDEXABLES_KEYS_COLUMNS, null, null, null)) {
+            while (cursor.moveToNext()) {
+                keys.add(cursor.getString(0));
+            }
+        }
+
+        assertThat(keys).hasSize(6);
+        assertThat(keys.subList(3, 6)).containsExactlyElementsIn(keys.subList(0, 3)).inOrder();
+        assertThat(NonIndexableKeysStats.toJson().has(FakeSettingsFragment.class.getName()))
+                .isTrue();
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void queryNonIndexableKeys_poolBusy_shouldEvaluateOnCallingThread() throws Exception {
+        mFakeFeatureFactory.searchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeSettingsFragment.class,
+                        FakeSettingsFragment.SEARCH_INDEX_DATA_PROVIDER));
+        final Uri rawUri = Uri.parse(
+                BASE_AUTHORITY + SearchIndexablesContract.NON_INDEXABLES_KEYS_PATH);
+        // The only worker thread is stuck, so no provider is evaluated on the pool.
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> {
+            blocker.await();
+            return null;
+        });
+        final ExecutorService originalExecutor =
+                SettingsSearchIndexablesProvider.sNonIndexableKeysExecutor;
+        final long originalTimeoutMs = SettingsSearchIndexablesProvider.sNonIndexableKeysTimeoutMs;
+        SettingsSearchIndexablesProvider.sNonIndexableKeysExecutor = executor;
+        SettingsSearchIndexablesProvider.sNonIndexableKeysTimeoutMs = 0L;
+
+        final List<String> keys = new ArrayList<>();
+        try (Cursor cursor = mProvider.query(rawUri,
+                SearchIndexablesContract.NON_INDEXABLES_KEYS_COLUMNS, null, null, null)) {
+            while (cursor.moveToNext()) {
+                keys.add(cursor.getString(0));
+            }
+        } finally {
+            SettingsSearchIndexablesProvider.sNonIndexableKeysExecutor = originalExecutor;
+            SettingsSearchIndexablesProvider.sNonIndexableKeysTimeoutMs = originalTimeoutMs;
+            blocker.countDown();
+            executor.shutdown();
+        }
+
+        assertThat(keys).hasSize(6);
+        assertThat(NonIndexableKeysStats.toJson().has(FakeSettingsFragment.class.getName()))
+                .isTrue();
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void queryNonIndexableKeys_slowProvider_shouldEvaluateOnceAndRecordTimeout()
+            throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        mFakeFeatureFactory.searchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(NetworkDashboardFragment.class,
+                        new BaseSearchIndexProvider() {
+                            @Override
+                            public List<String> getNonIndexableKeys(Context context) {
+                                calls.incrementAndGet();
+                                SystemClock.sleep(100L);
+                                return new ArrayList<>(Arrays.asList("slow_key"));
+                            }
+                        }));
+        final Uri rawUri = Uri.parse(
+                BASE_AUTHORITY + SearchIndexablesContract.NON_INDEXABLES_KEYS_PATH);
+        final long originalTimeoutMs = SettingsSearchIndexablesProvider.sNonIndexableKeysTimeoutMs;
+        SettingsSearchIndexablesProvider.sNonIndexableKeysTimeoutMs = 10L;
+
+        final List<String> keys = new ArrayList<>();
+        try (Cursor cursor = mProvider.query(rawUri,
+                SearchIndexablesContract.NON_INDEXABLES_KEYS_COLUMNS, null, null, null)) {
+            while (cursor.moveToNext()) {
+                keys.add(cursor.getString(0));
+            }
+        } finally {
+            SettingsSearchIndexablesProvider.sNonIndexableKeysTimeoutMs = originalTimeoutMs;
+        }
+
+        assertThat(keys).contains("slow_key");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(NonIndexableKeysStats.toJson()
+                .getJSONObject(NetworkDashboardFragment.class.getName())
+                .getBoolean(NonIndexableKeysStats.KEY_TIMED_OUT)).isTrue();
+    }
+
     @Test
     public void refreshSearchEnabledState_classNotFoundInCategoryMap_hasInjectionRawData() {
         mProvider.refreshSearchEnabledState(mContext,
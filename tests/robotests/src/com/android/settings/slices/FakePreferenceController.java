@@ -17,11 +17,15 @@
 package com.android.settings.slices;
 
 import android.content.Context;
+import android.os.Looper;
 
 import com.android.settings.core.BasePreferenceController;
 
 public class FakePreferenceController extends BasePreferenceController {
 
+    /** Whether {@link #isSliceable()} fails off the main thread, like a non thread-safe one. */
+    static boolean sMainThreadOnly;
+
     public FakePreferenceController(Context context, String preferenceKey) {
         super(context, preferenceKey);
     }
@@ -38,6 +42,9 @@ public class FakePreferenceController extends BasePreferenceController {
 
     @Override
     public boolean isSliceable() {
+        if (sMainThreadOnly && !Looper.getMainLooper().isCurrentThread()) {
+            throw new IllegalStateException("Not on the main thread");
+        }
         return true;
     }
 
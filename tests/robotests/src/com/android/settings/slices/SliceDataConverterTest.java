@@ -85,6 +85,7 @@ public class SliceDataConverterTest {
 
     @After
     public void cleanUp() {
+        FakePreferenceController.sMainThreadOnly = false;
         mFakeFeatureFactory.searchFeatureProvider = mock(SearchFeatureProvider.class);
     }
 
@@ -114,6 +115,64 @@ public class SliceDataConverterTest {
         }
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_parallel_sameOrderAsSequential() {
+        final List<SearchIndexableData> providers =
+                mSearchFeatureProvider.getSearchIndexableResources().getProviderValues();
+        providers.clear();
+        for (int i = 0; i < SliceDataConverter.MAX_CONVERSION_THREADS + 1; i++) {
+            providers.add(new SearchIndexableData(FakeIndexProvider.class,
+                    FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+            providers.add(new SearchIndexableData(AccessibilitySettings.class,
+                    FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        }
+        doReturn(new ArrayList<>()).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+
+        doReturn(true).when(mSliceDataConverter).isParallelConversionEnabled();
+        final List<SliceData> parallelData = mSliceDataConverter.getSliceData();
+        doReturn(false).when(mSliceDataConverter).isParallelConversionEnabled();
+        final List<SliceData> sequentialData = mSliceDataConverter.getSliceData();
+
+        assertThat(parallelData).hasSize(providers.size());
+        assertThat(getFragmentNames(parallelData))
+                .containsExactlyElementsIn(getFragmentNames(sequentialData))
+                .inOrder();
+        for (int i = 0; i < parallelData.size(); i++) {
+            assertThat(parallelData.get(i).getFragmentClassName()).isEqualTo(
+                    i % 2 == 0 ? FAKE_FRAGMENT_CLASSNAME : ACCESSIBILITY_FRAGMENT);
+        }
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_parallelConversionFails_shouldRetryOnCallingThread() {
+        final List<SearchIndexableData> providers =
+                mSearchFeatureProvider.getSearchIndexableResources().getProviderValues();
+        providers.clear();
+        providers.add(new SearchIndexableData(FakeIndexProvider.class,
+                FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        providers.add(new SearchIndexableData(FakeIndexProvider.class,
+                FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        doReturn(new ArrayList<>()).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+        doReturn(true).when(mSliceDataConverter).isParallelConversionEnabled();
+        FakePreferenceController.sMainThreadOnly = true;
+
+        final List<SliceData> sliceData = mSliceDataConverter.getSliceData();
+
+        assertThat(sliceData).hasSize(2);
+        assertFakeSlice(sliceData.get(0));
+        assertFakeSlice(sliceData.get(1));
+    }
+
+    private static List<String> getFragmentNames(List<SliceData> sliceDataList) {
+        final List<String> fragmentNames = new ArrayList<>();
+        for (SliceData sliceData : sliceDataList) {
+            fragmentNames.add(sliceData.getFragmentClassName());
+        }
+        return fragmentNames;
+    }
+
     private void assertFakeSlice(SliceData fakeSlice) {
         assertThat(fakeSlice.getKey()).isEqualTo(FAKE_KEY);
         assertThat(fakeSlice.getTitle()).isEqualTo(FAKE_TITLE);
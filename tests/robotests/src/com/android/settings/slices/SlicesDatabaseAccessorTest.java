@@ -21,18 +21,24 @@ import static android.content.ContentResolver.SCHEME_CONTENT;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import android.app.ApplicationPackageManager;
 import android.content.ComponentName;
 import android.content.ContentResolver;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.net.Uri;
 import android.provider.SettingsSlicesContract;
 import android.view.accessibility.AccessibilityManager;
 
 import com.android.settings.search.SearchFeatureProvider;
 import com.android.settings.search.SearchFeatureProviderImpl;
+import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.testutils.DatabaseTestUtils;
 import com.android.settings.testutils.FakeFeatureFactory;
 import com.android.settings.testutils.FakeIndexProvider;
@@ -72,6 +78,8 @@ public class SlicesDatabaseAccessorTest {
     @Before
     public void setUp() {
         mContext = RuntimeEnvironment.application;
+        FakeFeatureFactory.setupForTest();
+        SlicesDatabaseAccessor.clearSliceDataCache();
         ShadowUserManager.getShadow().setIsAdminUser(true);
         mAccessor = spy(new SlicesDatabaseAccessor(mContext));
         SlicesDatabaseHelper.getInstance(mContext).setIndexedState();
@@ -84,6 +92,7 @@ public class SlicesDatabaseAccessorTest {
 
     @After
     public void cleanUp() {
+        SlicesDatabaseAccessor.clearSliceDataCache();
         DatabaseTestUtils.clearDb(mContext);
     }
 
@@ -164,6 +173,70 @@ public class SlicesDatabaseAccessorTest {
         assertThat(data.getHighlightMenuRes()).isEqualTo(SliceTestUtils.FAKE_HIGHLIGHT_MENU_RES);
     }
 
+    @Test
+    public void getSliceDataFromKey_calledTwice_secondCallServedFromCache() {
+        final String key = "key";
+        doAnswer(invocation -> createSliceCursor(key)).when(mAccessor).getIndexedSliceData(key);
+        final int hitCount = SlicesDatabaseAccessor.getCacheHitCount();
+        final int missCount = SlicesDatabaseAccessor.getCacheMissCount();
+
+        final SliceData data = mAccessor.getSliceDataFromKey(key);
+        final SliceData cachedData = mAccessor.getSliceDataFromKey(key);
+
+        assertThat(cachedData).isSameInstanceAs(data);
+        verify(mAccessor, times(1)).getIndexedSliceData(key);
+        assertThat(SlicesDatabaseAccessor.getCacheMissCount()).isEqualTo(missCount + 1);
+        assertThat(SlicesDatabaseAccessor.getCacheHitCount()).isEqualTo(hitCount + 1);
+    }
+
+    @Test
+    public void getSliceDataFromKey_cacheCleared_queriesDatabaseAgain() {
+        final String key = "key";
+        doAnswer(invocation -> createSliceCursor(key)).when(mAccessor).getIndexedSliceData(key);
+        final SliceData data = mAccessor.getSliceDataFromKey(key);
+
+        SlicesDatabaseAccessor.clearSliceDataCache();
+        final SliceData newData = mAccessor.getSliceDataFromKey(key);
+
+        assertThat(newData).isNotSameInstanceAs(data);
+        verify(mAccessor, times(2)).getIndexedSliceData(key);
+    }
+
+    @Test
+    public void getSliceDataFromKey_cacheClearedWhileQuerying_resultNotCached() {
+        final String key = "key";
+        doAnswer(invocation -> {
+            // Re-indexing finished while the stale row was being read.
+            SlicesDatabaseAccessor.clearSliceDataCache();
+            return createSliceCursor(key);
+        }).doAnswer(invocation -> createSliceCursor(key))
+                .when(mAccessor).getIndexedSliceData(key);
+
+        mAccessor.getSliceDataFromKey(key);
+        mAccessor.getSliceDataFromKey(key);
+
+        verify(mAccessor, times(2)).getIndexedSliceData(key);
+    }
+
+    @Test
+    public void getSliceDataFromUri_calledTwice_secondCallServedFromCache() {
+        final String key = "key";
+        final Uri uri = new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(SettingsSliceProvider.SLICE_AUTHORITY)
+                .appendPath("action")
+                .appendPath(key)
+                .build();
+        doAnswer(invocation -> createSliceCursor(key)).when(mAccessor).getIndexedSliceData(key);
+
+        final SliceData data = mAccessor.getSliceDataFromUri(uri);
+        final SliceData cachedData = mAccessor.getSliceDataFromUri(uri);
+
+        assertThat(cachedData).isSameInstanceAs(data);
+        assertThat(cachedData.getUri()).isEqualTo(uri);
+        verify(mAccessor, times(1)).getIndexedSliceData(key);
+    }
+
     @Test(expected = IllegalStateException.class)
     @Ignore
     public void testGetSliceFromUri_invalidUri_errorThrown() {
@@ -332,6 +405,24 @@ public class SlicesDatabaseAccessorTest {
         assertThat(data.getUnavailableSliceSubtitle()).isEqualTo(subtitle);
     }
 
+    /** Returns a cursor on a single slices index row, like the slices database. */
+    private static Cursor createSliceCursor(String key) {
+        final MatrixCursor cursor = new MatrixCursor(SlicesDatabaseAccessor.SELECT_COLUMNS_ALL);
+        cursor.newRow()
+                .add(IndexColumns.KEY, key)
+                .add(IndexColumns.TITLE, SliceTestUtils.FAKE_TITLE)
+                .add(IndexColumns.SUMMARY, SliceTestUtils.FAKE_SUMMARY)
+                .add(IndexColumns.SCREENTITLE, SliceTestUtils.FAKE_SCREEN_TITLE)
+                .add(IndexColumns.KEYWORDS, SliceTestUtils.FAKE_KEYWORDS)
+                .add(IndexColumns.ICON_RESOURCE, SliceTestUtils.FAKE_ICON)
+                .add(IndexColumns.FRAGMENT, SliceTestUtils.FAKE_FRAGMENT_NAME)
+                .add(IndexColumns.CONTROLLER, SliceTestUtils.FAKE_CONTROLLER_NAME)
+                .add(IndexColumns.SLICE_TYPE, SliceData.SliceType.SWITCH)
+                .add(IndexColumns.HIGHLIGHT_MENU_RESOURCE, SliceTestUtils.FAKE_HIGHLIGHT_MENU_RES);
+        cursor.moveToFirst();
+        return cursor;
+    }
+
     @Implements(ApplicationPackageManager.class)
     public static class ShadowApplicationPackageManager extends
             org.robolectric.shadows.ShadowApplicationPackageManager {
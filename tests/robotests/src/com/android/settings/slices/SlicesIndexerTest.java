@@ -18,7 +18,11 @@ package com.android.settings.slices;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.junit.Assert.assertThrows;
+
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.spy;
 
 import android.content.ContentValues;
@@ -205,6 +209,16 @@ public class SlicesIndexerTest {
         }
     }
 
+    @Test
+    public void indexSliceData_insertFails_shouldNotMarkIndexed() {
+        doReturn(new ArrayList<SliceData>()).when(mManager).getSliceData();
+        doThrow(new IllegalStateException()).when(mManager).insertSliceData(any(), any());
+
+        assertThrows(IllegalStateException.class, () -> mManager.run());
+
+        assertThat(SlicesDatabaseHelper.getInstance(mContext).isSliceDataIndexed()).isFalse();
+    }
+
     private void insertSpecialCase(String key, String title) {
         final ContentValues values = new ContentValues();
         values.put(IndexColumns.KEY, key);
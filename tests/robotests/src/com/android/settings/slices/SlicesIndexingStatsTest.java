@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SlicesIndexingStatsTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void cleanUp() {
+        mContext.getSharedPreferences(SlicesIndexingStats.SHARED_PREFS_TAG, Context.MODE_PRIVATE)
+                .edit()
+                .clear()
+                .commit();
+    }
+
+    @Test
+    public void toJson_notIndexed_returnsEmpty() throws Exception {
+        assertThat(SlicesIndexingStats.toJson(mContext).length()).isEqualTo(0);
+    }
+
+    @Test
+    public void toJson_afterSave_returnsPhaseTimings() throws Exception {
+        SlicesIndexingStats.save(mContext, 42 /* rowCount */, 1L /* reconstructMs */,
+                20L /* convertMs */, 3L /* insertMs */, 24L /* totalMs */);
+
+        final JSONObject stats = SlicesIndexingStats.toJson(mContext);
+
+        assertThat(stats.has(SlicesIndexingStats.KEY_TIMESTAMP)).isTrue();
+        assertThat(stats.getInt(SlicesIndexingStats.KEY_ROW_COUNT)).isEqualTo(42);
+        assertThat(stats.getLong(SlicesIndexingStats.KEY_RECONSTRUCT_MS)).isEqualTo(1L);
+        assertThat(stats.getLong(SlicesIndexingStats.KEY_CONVERT_MS)).isEqualTo(20L);
+        assertThat(stats.getLong(SlicesIndexingStats.KEY_INSERT_MS)).isEqualTo(3L);
+        assertThat(stats.getLong(SlicesIndexingStats.KEY_TOTAL_MS)).isEqualTo(24L);
+    }
+}
@@ -47,7 +47,10 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 @RunWith(AndroidJUnit4.class)
@@ -408,6 +411,73 @@ public class CategoryManagerTest {
         assertThat(category.getTilesCount()).isEqualTo(1);
     }
 
+    @Test
+    public void updateCategoryFromDenylist_shouldPublishNewCategoriesOnly() {
+        final String testPackage = mContext.getPackageName();
+        final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+        final Tile tile1 = createActivityTile(category.key, testPackage, "class1", 100);
+        final Tile tile2 = createActivityTile(category.key, testPackage, "class2", 100);
+        category.addTile(tile1);
+        category.addTile(tile2);
+        final CategoryManager categoryManager = new CategoryManager(mContext);
+        categoryManager.setCategories(Collections.singletonList(category));
+
+        categoryManager.updateCategoryFromDenylist(
+                Collections.singleton(tile1.getIntent().getComponent()));
+
+        final DashboardCategory newCategory =
+                categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE);
+        assertThat(newCategory.getTilesCount()).isEqualTo(1);
+        assertThat(newCategory.getTile(0)).isSameInstanceAs(tile2);
+        assertThat(category.getTilesCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void updateCategoryFromDenylist_noDeniedTile_shouldKeepCategories() {
+        final String testPackage = mContext.getPackageName();
+        final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+        category.addTile(createActivityTile(category.key, testPackage, "class1", 100));
+        final CategoryManager categoryManager = new CategoryManager(mContext);
+        categoryManager.setCategories(Collections.singletonList(category));
+
+        categoryManager.updateCategoryFromDenylist(Collections.emptySet());
+
+        assertThat(categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE))
+                .isSameInstanceAs(category);
+    }
+
+    @Test
+    public void updateCategoryFromDenylist_mergedCategory_shouldKeepFilteredCategory() {
+        final String testPackage = mContext.getPackageName();
+        final DashboardCategory homepage = new DashboardCategory(CATEGORY_HOMEPAGE);
+        final Tile homepageTile = createActivityTile(homepage.key, testPackage, "class1", 100);
+        homepage.addTile(homepageTile);
+        homepage.addTile(createActivityTile(homepage.key, testPackage, "class2", 100));
+        // Created by mergeSecurityPrivacyKeys, so only in the map.
+        final DashboardCategory merged =
+                new DashboardCategory(CategoryKey.CATEGORY_MORE_SECURITY_PRIVACY_SETTINGS);
+        final Tile mergedTile = createActivityTile(merged.key, testPackage, "class3", 100);
+        merged.addTile(mergedTile);
+        merged.addTile(createActivityTile(merged.key, testPackage, "class4", 100));
+        final Map<String, DashboardCategory> categoryByKeyMap = new HashMap<>();
+        categoryByKeyMap.put(homepage.key, homepage);
+        categoryByKeyMap.put(merged.key, merged);
+        final CategoryManager categoryManager = new CategoryManager(mContext);
+        categoryManager.setCategories(Collections.singletonList(homepage), categoryByKeyMap);
+
+        categoryManager.updateCategoryFromDenylist(new HashSet<>(Arrays.asList(
+                homepageTile.getIntent().getComponent(), mergedTile.getIntent().getComponent())));
+
+        final DashboardCategory newMerged = categoryManager.getTilesByCategory(mContext,
+                CategoryKey.CATEGORY_MORE_SECURITY_PRIVACY_SETTINGS);
+        assertThat(newMerged.getTilesCount()).isEqualTo(1);
+        assertThat(merged.getTilesCount()).isEqualTo(2);
+        final DashboardCategory newHomepage =
+                categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE);
+        assertThat(newHomepage.getTilesCount()).isEqualTo(1);
+        assertThat(categoryManager.getCategories(mContext)).containsExactly(newHomepage);
+    }
+
     private Tile createActivityTile(String categoryKey, String packageName, String className,
             int order) {
         final ActivityInfo activityInfo = new ActivityInfo();
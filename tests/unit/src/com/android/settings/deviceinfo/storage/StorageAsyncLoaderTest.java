@@ -25,6 +25,8 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -45,6 +47,7 @@ import androidx.test.runner.AndroidJUnit4;
 import com.android.settings.R;
 import com.android.settingslib.applications.StorageStatsSource;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -64,6 +67,10 @@ public class StorageAsyncLoaderTest {
     private static final String PACKAGE_NAME_2 = "com.blah.test2";
     private static final String PACKAGE_NAME_3 = "com.blah.test3";
     private static final long DEFAULT_QUOTA = DataUnit.MEBIBYTES.toBytes(64);
+    private static final String MEDIA_VERSION = "version";
+    private static final long MEDIA_GENERATION = 42L;
+    private static final long MEDIA_COUNT = 10L;
+    private static final long MEDIA_SIZE = 1000L;
 
     @Mock
     private StorageStatsSource mSource;
@@ -95,6 +102,12 @@ public class StorageAsyncLoaderTest {
         when(mContext.getResources()).thenReturn(resources);
         doReturn("content://com.android.providers.media.documents/root/videos_root")
                 .when(resources).getString(R.string.config_videos_storage_category_uri);
+        new StorageResultCache(mContext, PRIMARY_USER_ID).clear();
+    }
+
+    @After
+    public void tearDown() {
+        new StorageResultCache(mContext, PRIMARY_USER_ID).clear();
     }
 
     @Test
@@ -210,6 +223,73 @@ public class StorageAsyncLoaderTest {
         assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize).isEqualTo(33L);
     }
 
+    @Test
+    public void loadInBackground_mediaUnchanged_shouldReuseMediaSizes() {
+        final StorageAsyncLoader loader = createMediaLoader(false /* parallel */);
+
+        loader.loadInBackground();
+        final SparseArray<StorageAsyncLoader.StorageResult> result = loader.loadInBackground();
+
+        verify(loader, times(1)).getMediaSize(PRIMARY_USER_ID, StorageAsyncLoader.TYPE_IMAGES);
+        assertThat(result.get(PRIMARY_USER_ID).imagesSize).isEqualTo(MEDIA_SIZE);
+    }
+
+    @Test
+    public void loadInBackground_parallelMediaUnchanged_shouldReuseMediaSizes() {
+        final StorageAsyncLoader loader = createMediaLoader(true /* parallel */);
+
+        loader.loadInBackground();
+        final SparseArray<StorageAsyncLoader.StorageResult> result = loader.loadInBackground();
+
+        verify(loader, times(1)).getMediaSize(PRIMARY_USER_ID, StorageAsyncLoader.TYPE_IMAGES);
+        assertThat(result.get(PRIMARY_USER_ID).imagesSize).isEqualTo(MEDIA_SIZE);
+    }
+
+    @Test
+    public void loadInBackground_mediaGenerationChanged_shouldQueryMediaSizesAgain() {
+        final StorageAsyncLoader loader = createMediaLoader(false /* parallel */);
+        loader.loadInBackground();
+        doReturn(new StorageAsyncLoader.MediaStoreState(MEDIA_VERSION, MEDIA_GENERATION + 1,
+                MEDIA_COUNT)).when(loader).getMediaStoreState(PRIMARY_USER_ID);
+
+        loader.loadInBackground();
+
+        verify(loader, times(2)).getMediaSize(PRIMARY_USER_ID, StorageAsyncLoader.TYPE_IMAGES);
+    }
+
+    @Test
+    public void loadInBackground_mediaDeleted_shouldQueryMediaSizesAgain() {
+        final StorageAsyncLoader loader = createMediaLoader(false /* parallel */);
+        loader.loadInBackground();
+        // Deletes do not advance the generation.
+        doReturn(new StorageAsyncLoader.MediaStoreState(MEDIA_VERSION, MEDIA_GENERATION,
+                MEDIA_COUNT - 1)).when(loader).getMediaStoreState(PRIMARY_USER_ID);
+
+        loader.loadInBackground();
+
+        verify(loader, times(2)).getMediaSize(PRIMARY_USER_ID, StorageAsyncLoader.TYPE_IMAGES);
+    }
+
+    @Test
+    public void loadInBackground_mediaQueryFailed_shouldNotCacheMediaSizes() {
+        final StorageAsyncLoader loader = createMediaLoader(false /* parallel */);
+        doReturn(null).when(loader).getMediaSize(PRIMARY_USER_ID, StorageAsyncLoader.TYPE_TRASH);
+
+        loader.loadInBackground();
+        loader.loadInBackground();
+
+        verify(loader, times(2)).getMediaSize(PRIMARY_USER_ID, StorageAsyncLoader.TYPE_IMAGES);
+    }
+
+    private StorageAsyncLoader createMediaLoader(boolean parallel) {
+        final StorageAsyncLoader loader = spy(mLoader);
+        doReturn(parallel).when(loader).isParallelScanningEnabled();
+        doReturn(new StorageAsyncLoader.MediaStoreState(MEDIA_VERSION, MEDIA_GENERATION,
+                MEDIA_COUNT)).when(loader).getMediaStoreState(PRIMARY_USER_ID);
+        doReturn(MEDIA_SIZE).when(loader).getMediaSize(anyInt(), anyInt());
+        return loader;
+    }
+
     private ApplicationInfo addPackage(String packageName, long cacheSize, long codeSize,
             long dataSize, int category) throws Exception {
         StorageStatsSource.AppStorageStats storageStats =